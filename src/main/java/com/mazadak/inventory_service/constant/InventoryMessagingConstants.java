@@ -2,4 +2,5 @@ package com.mazadak.inventory_service.constant;
 
 public class InventoryMessagingConstants {
     public static final String INVENTORY_DELETED_BINDING = "inventoryDeleted-out-0";
+    public static final String CONTENT_ENCODING_HEADER = "contentEncoding";
 }
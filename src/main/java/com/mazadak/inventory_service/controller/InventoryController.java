@@ -1,17 +1,28 @@
 package com.mazadak.inventory_service.controller;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
+import com.mazadak.inventory_service.dto.request.BatchGetAvailabilityRequest;
 import com.mazadak.inventory_service.dto.request.UpdateInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
+import com.mazadak.inventory_service.service.IdempotencyService;
 import com.mazadak.inventory_service.service.InventoryService;
+import com.mazadak.inventory_service.service.InventoryShardService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -20,12 +31,21 @@ import java.util.UUID;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryShardService inventoryShardService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
+    // a replay is answered with the JSON recorded the first time, without mapping it back to a DTO
     @PostMapping
-    public ResponseEntity<InventoryDTO> addInventory(
+    public ResponseEntity<?> addInventory(
             @RequestHeader("Idempotency-Key") @NotNull UUID idempotencyKey,
            @Valid @RequestBody AddInventoryRequest request) {
 
+        Optional<String> recorded = idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.ADD_INVENTORY, request);
+        if (recorded.isPresent()) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(recorded.get());
+        }
         return ResponseEntity.ok(inventoryService.addInventory(idempotencyKey, request));
     }
 
@@ -37,11 +57,45 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.reduceQuantity(productId, quantity));
     }
 
+    /**
+     * Tagged with a weak ETag of the quantities served, so a poller sending it back in {@code If-None-Match} gets a
+     * 304 without a body. The tag is taken from the representation itself rather than the row version: the read is
+     * usually answered from a cache, and a tag that ran ahead of it would let a client keep a stale body.
+     */
     @GetMapping("/{productId}")
     public ResponseEntity<InventoryDTO> getInventoryByProductId(
             @PathVariable @NotNull UUID productId) {
 
-        return ResponseEntity.ok(inventoryService.getInventory(productId));
+        InventoryDTO inventory = inventoryService.getInventory(productId);
+        return ResponseEntity.ok().eTag(eTag(inventory)).body(inventory);
+    }
+
+    private static String eTag(InventoryDTO inventory) {
+        return "W/\"" + inventory.totalQuantity() + "-" + inventory.reservedQuantity() + "\"";
+    }
+
+    /**
+     * Writes the JSON array of availabilities as the lookup reads them instead of buffering the whole response.
+     */
+    @PostMapping(value = "/availability:batchGet", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchGetAvailability(
+            @Valid @RequestBody BatchGetAvailabilityRequest request) {
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                inventoryService.streamAvailability(request.productIds(), availability -> {
+                    try {
+                        generator.writeObject(availability);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/exists/{productId}")
@@ -70,4 +124,28 @@ public class InventoryController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/{productId}/reservation-ttl")
+    public ResponseEntity<Void> setReservationTtl(
+            @PathVariable @NotNull UUID productId,
+            @RequestParam(required = false) @Min(value = 1, message = "Reservation TTL must be at least 1 minute") Integer minutes) {
+
+        inventoryService.setReservationTtl(productId, minutes);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/{productId}/shards")
+    public ResponseEntity<InventoryDTO> shardInventory(
+            @PathVariable @NotNull UUID productId,
+            @RequestParam @Min(value = 2, message = "Shard count must be at least 2") int count) {
+
+        return ResponseEntity.ok(inventoryShardService.shardInventory(productId, count));
+    }
+
+    @DeleteMapping("/{productId}/shards")
+    public ResponseEntity<InventoryDTO> mergeInventoryShards(
+            @PathVariable @NotNull UUID productId) {
+
+        return ResponseEntity.ok(inventoryShardService.mergeShards(productId));
+    }
+
 }
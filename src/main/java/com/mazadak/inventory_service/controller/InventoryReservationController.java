@@ -2,16 +2,26 @@ package com.mazadak.inventory_service.controller;
 
 
 import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
+import com.mazadak.inventory_service.dto.request.ExtendReservationRequest;
 import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
+import com.mazadak.inventory_service.service.IdempotencyService;
 import com.mazadak.inventory_service.service.InventoryReservationService;
+import com.mazadak.inventory_service.service.admission.ReservationAdmissionFilter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -19,18 +29,58 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class InventoryReservationController {
     private final InventoryReservationService inventoryReservationService;
+    private final Optional<ReservationAdmissionFilter> reservationAdmissionFilter;
+    private final IdempotencyService idempotencyService;
 
+    // a replay is answered with the JSON recorded the first time, without mapping it back to a DTO, and ahead
+    // of admission, which would turn away the retry of a request that already succeeded; partial requests keep
+    // the reservation ids of the items granted anything here, /fill answers them per item
     @PostMapping
-    public ResponseEntity<List<UUID> > reserveInventory(
+    public ResponseEntity<?> reserveInventory(
             @RequestHeader("Idempotency-Key") @NotNull UUID idempotencyKey,
             @Valid @RequestBody ReserveInventoryRequest request) {
+        Optional<String> recorded = idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.RESERVE_INVENTORY, request);
+        if (recorded.isPresent()) {
+            return recordedResponse(recorded.get());
+        }
+        reservationAdmissionFilter.ifPresent(filter -> filter.admit(request));
         return ResponseEntity.ok(inventoryReservationService.reserveInventory(idempotencyKey, request));
     }
 
+    @PostMapping("/fill")
+    public ResponseEntity<?> reserveAvailableInventory(
+            @RequestHeader("Idempotency-Key") @NotNull UUID idempotencyKey,
+            @Valid @RequestBody ReserveInventoryRequest request) {
+        Optional<String> recorded = idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.RESERVE_AVAILABLE_INVENTORY, request);
+        if (recorded.isPresent()) {
+            return recordedResponse(recorded.get());
+        }
+        reservationAdmissionFilter.ifPresent(filter -> filter.admit(request));
+        return ResponseEntity.ok(inventoryReservationService.reserveAvailableInventory(idempotencyKey, request));
+    }
+
+    /**
+     * Tagged with a weak ETag of the reservation's last update, which is read on its own first so a matching
+     * {@code If-None-Match} is answered with a 304 without loading the reservation.
+     */
     @GetMapping("/{reservationId}")
-    public InventoryReservationDTO getReservation(
-            @NotNull @PathVariable UUID reservationId) {
-        return inventoryReservationService.getReservation(reservationId);
+    public ResponseEntity<InventoryReservationDTO> getReservation(
+            @NotNull @PathVariable UUID reservationId,
+            WebRequest webRequest) {
+        LocalDateTime updatedAt = inventoryReservationService.getReservationUpdatedAt(reservationId);
+        if (webRequest.checkNotModified(eTag(updatedAt))) {
+            return null;
+        }
+        return ResponseEntity.ok(inventoryReservationService.getReservation(reservationId));
+    }
+
+    @PatchMapping("/{reservationId}/extend")
+    public ResponseEntity<ReservationHoldDTO> extendReservation(
+            @NotNull @PathVariable UUID reservationId,
+            @Valid @RequestBody ExtendReservationRequest request) {
+        return ResponseEntity.ok(inventoryReservationService.extendReservation(reservationId, request.minutes()));
     }
 
     @PostMapping("/confirm")
@@ -49,4 +99,12 @@ public class InventoryReservationController {
          return ResponseEntity.ok().build();
     }
 
+    private static ResponseEntity<String> recordedResponse(String json) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    private static String eTag(LocalDateTime updatedAt) {
+        long micros = updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000;
+        return "W/\"" + Long.toHexString(micros) + "\"";
+    }
 }
@@ -0,0 +1,43 @@
+package com.mazadak.inventory_service.controller;
+
+
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.response.WaitlistTicketDTO;
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+import com.mazadak.inventory_service.service.waitlist.ReservationWaitlist;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/inventories/reservations/waitlist")
+@ConditionalOnProperty(name = "app.inventory.waitlist.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReservationWaitlistController {
+    private final ReservationWaitlist reservationWaitlist;
+
+    @PostMapping
+    public ResponseEntity<WaitlistTicketDTO> reserveOrWait(
+            @RequestHeader("Idempotency-Key") @NotNull UUID idempotencyKey,
+            @RequestParam(defaultValue = "60") @Min(value = 1, message = "Wait must be at least 1 second") long waitSeconds,
+            @Valid @RequestBody ReserveInventoryRequest request) {
+        WaitlistTicketDTO ticket = reservationWaitlist.reserveOrWait(idempotencyKey, request, waitSeconds);
+        HttpStatus status = ticket.status() == WaitlistStatus.QUEUED ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(ticket);
+    }
+
+    @GetMapping("/{ticketId}")
+    public CompletableFuture<WaitlistTicketDTO> getTicket(
+            @NotNull @PathVariable UUID ticketId,
+            @RequestParam(defaultValue = "0") @Min(value = 0, message = "Wait cannot be negative") long waitSeconds) {
+        return reservationWaitlist.awaitTicket(ticketId, waitSeconds);
+    }
+}
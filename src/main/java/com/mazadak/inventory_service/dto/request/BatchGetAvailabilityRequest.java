@@ -0,0 +1,17 @@
+package com.mazadak.inventory_service.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchGetAvailabilityRequest(
+        @NotEmpty
+        @Size(max = BatchGetAvailabilityRequest.MAX_PRODUCTS, message = "At most 500 products can be looked up at once")
+        List<@NotNull UUID> productIds
+) {
+
+    public static final int MAX_PRODUCTS = 500;
+}
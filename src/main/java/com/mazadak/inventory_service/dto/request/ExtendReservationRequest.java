@@ -0,0 +1,6 @@
+package com.mazadak.inventory_service.dto.request;
+
+import jakarta.validation.constraints.Positive;
+
+public record ExtendReservationRequest(
+        @Positive int minutes) { }
@@ -1,5 +1,6 @@
 package com.mazadak.inventory_service.dto.request;
 
+import com.mazadak.inventory_service.model.enums.FillPolicy;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
@@ -8,5 +9,15 @@ import java.util.UUID;
 
 public record ReserveInventoryRequest(
         List<reserveItemDTO> items,
-        @NotNull UUID orderId
-) { }
+        @NotNull UUID orderId,
+        FillPolicy fillPolicy
+) {
+
+    public ReserveInventoryRequest(List<reserveItemDTO> items, UUID orderId) {
+        this(items, orderId, FillPolicy.ALL_OR_NOTHING);
+    }
+
+    public FillPolicy fillPolicyOrDefault() {
+        return fillPolicy == null ? FillPolicy.ALL_OR_NOTHING : fillPolicy;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mazadak.inventory_service.dto.request;
 
+import com.mazadak.inventory_service.model.enums.FillPolicy;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
@@ -7,5 +8,21 @@ import java.util.UUID;
 
 public record reserveItemDTO (
         @NotNull UUID productId,
-        @Positive int quantity ){
+        @Positive int quantity,
+        @Positive Integer minQuantity ){
+
+    public reserveItemDTO(UUID productId, int quantity) {
+        this(productId, quantity, null);
+    }
+
+    /**
+     * The least quantity of this item that has to be granted for the request to succeed under the fill policy.
+     */
+    public int requiredQuantity(FillPolicy fillPolicy) {
+        return switch (fillPolicy) {
+            case ALL_OR_NOTHING -> quantity;
+            case PARTIAL -> 0;
+            case PARTIAL_MIN -> minQuantity == null ? quantity : Math.min(minQuantity, quantity);
+        };
+    }
 }
@@ -0,0 +1,26 @@
+package com.mazadak.inventory_service.dto.response;
+
+import com.mazadak.inventory_service.model.enums.AvailabilityStatus;
+
+import java.util.UUID;
+
+/**
+ * {@code inventory} is only set when the status is {@link AvailabilityStatus#FOUND}.
+ */
+public record ProductAvailabilityDTO(
+        UUID productId,
+        AvailabilityStatus status,
+        InventoryDTO inventory) {
+
+    public static ProductAvailabilityDTO found(InventoryDTO inventory) {
+        return new ProductAvailabilityDTO(inventory.productId(), AvailabilityStatus.FOUND, inventory);
+    }
+
+    public static ProductAvailabilityDTO deleted(UUID productId) {
+        return new ProductAvailabilityDTO(productId, AvailabilityStatus.DELETED, null);
+    }
+
+    public static ProductAvailabilityDTO notFound(UUID productId) {
+        return new ProductAvailabilityDTO(productId, AvailabilityStatus.NOT_FOUND, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.mazadak.inventory_service.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ReservationHoldDTO(
+        UUID reservationId,
+        LocalDateTime expiresAt) {
+}
@@ -0,0 +1,9 @@
+package com.mazadak.inventory_service.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+public record ReservationResultDTO(
+        List<UUID> reservationIds,
+        List<ReservedItemDTO> items) {
+}
@@ -0,0 +1,10 @@
+package com.mazadak.inventory_service.dto.response;
+
+import java.util.UUID;
+
+public record ReservedItemDTO(
+        UUID productId,
+        int requestedQuantity,
+        int grantedQuantity,
+        UUID reservationId) {
+}
@@ -0,0 +1,14 @@
+package com.mazadak.inventory_service.dto.response;
+
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public record WaitlistTicketDTO(
+        UUID ticketId,
+        WaitlistStatus status,
+        LocalDateTime expiresAt,
+        List<UUID> reservationIds) {
+}
@@ -0,0 +1,11 @@
+package com.mazadak.inventory_service.event;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that changes the stock or the existence of the given products. Changes that
+ * free stock publish a {@link StockFreedEvent} instead.
+ */
+public record InventoryChangedEvent(Collection<UUID> productIds) {
+}
@@ -0,0 +1,9 @@
+package com.mazadak.inventory_service.event;
+
+import com.mazadak.inventory_service.model.OutboxEvent;
+
+/**
+ * Published inside the transaction that writes the given outbox event.
+ */
+public record OutboxEventWrittenEvent(OutboxEvent outboxEvent) {
+}
@@ -0,0 +1,21 @@
+package com.mazadak.inventory_service.event;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that creates reservations, with their expiry times, or closes them.
+ */
+public record ReservationExpiryEvent(Map<UUID, LocalDateTime> scheduled, Collection<UUID> closed) {
+
+    public static ReservationExpiryEvent scheduled(Map<UUID, LocalDateTime> scheduled) {
+        return new ReservationExpiryEvent(scheduled, List.of());
+    }
+
+    public static ReservationExpiryEvent closed(Collection<UUID> closed) {
+        return new ReservationExpiryEvent(Map.of(), closed);
+    }
+}
@@ -0,0 +1,10 @@
+package com.mazadak.inventory_service.event;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that makes stock of the given products available again.
+ */
+public record StockFreedEvent(Collection<UUID> productIds) {
+}
@@ -0,0 +1,11 @@
+package com.mazadak.inventory_service.event;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Published whenever committed inventory rows are read for a stock mutation, with the available quantity of every
+ * unsharded product read. {@code observedAtNanos} is taken before the read, on the {@link System#nanoTime()} clock.
+ */
+public record StockObservedEvent(Map<UUID, Integer> availableQuantities, long observedAtNanos) {
+}
@@ -0,0 +1,7 @@
+package com.mazadak.inventory_service.event.codec;
+
+/**
+ * An event as written to the outbox, with the id of the codec that wrote it.
+ */
+public record EncodedPayload(short codecId, byte[] bytes) {
+}
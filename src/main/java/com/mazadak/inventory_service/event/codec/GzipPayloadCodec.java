@@ -0,0 +1,61 @@
+package com.mazadak.inventory_service.event.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips the output of another codec. Consumers see the inner codec's content type with a {@code gzip}
+ * content encoding.
+ */
+class GzipPayloadCodec implements OutboxPayloadCodec {
+
+    private final short id;
+    private final OutboxPayloadCodec inner;
+
+    GzipPayloadCodec(short id, OutboxPayloadCodec inner) {
+        this.id = id;
+        this.inner = inner;
+    }
+
+    OutboxPayloadCodec inner() {
+        return inner;
+    }
+
+    @Override
+    public short id() {
+        return id;
+    }
+
+    @Override
+    public String contentType() {
+        return inner.contentType();
+    }
+
+    @Override
+    public String contentEncoding() {
+        return "gzip";
+    }
+
+    @Override
+    public byte[] encode(Object event) throws IOException {
+        return compress(inner.encode(event));
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return inner.decode(in.readAllBytes(), type);
+        }
+    }
+
+    byte[] compress(byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length / 2 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(payload);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,41 @@
+package com.mazadak.inventory_service.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Writes events with a Jackson mapper, as JSON or as Smile, its binary equivalent.
+ */
+class JacksonPayloadCodec implements OutboxPayloadCodec {
+
+    private final short id;
+    private final String contentType;
+    private final ObjectMapper objectMapper;
+
+    JacksonPayloadCodec(short id, String contentType, ObjectMapper objectMapper) {
+        this.id = id;
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public short id() {
+        return id;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] encode(Object event) throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        return objectMapper.readValue(payload, type);
+    }
+}
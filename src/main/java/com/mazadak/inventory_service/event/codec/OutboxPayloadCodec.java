@@ -0,0 +1,25 @@
+package com.mazadak.inventory_service.event.codec;
+
+import java.io.IOException;
+
+/**
+ * Turns outbox events into the bytes stored in {@code outbox_events} and sent to the broker. The codec id is
+ * stored with every row, so rows written with one codec can still be read after the configured one changes.
+ */
+public interface OutboxPayloadCodec {
+
+    short id();
+
+    String contentType();
+
+    /**
+     * The {@code content-encoding} header sent with the payload, or {@code null} when it is not compressed.
+     */
+    default String contentEncoding() {
+        return null;
+    }
+
+    byte[] encode(Object event) throws IOException;
+
+    <T> T decode(byte[] payload, Class<T> type) throws IOException;
+}
@@ -0,0 +1,68 @@
+package com.mazadak.inventory_service.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The outbox payload codecs by id, and the one new events are written with ({@code app.outbox.payload.codec}).
+ * A compressing codec only compresses payloads of at least {@code compress-min-bytes}; smaller ones are stored with
+ * the uncompressed codec underneath, which would otherwise make them larger.
+ */
+@Component
+@Slf4j
+public class OutboxPayloadCodecs {
+
+    public static final short JSON = 0;
+    public static final short SMILE = 1;
+    public static final short JSON_GZIP = 2;
+    public static final short SMILE_GZIP = 3;
+
+    private static final Map<String, Short> NAMES = Map.of(
+            "json", JSON, "smile", SMILE, "json-gzip", JSON_GZIP, "smile-gzip", SMILE_GZIP);
+
+    private final OutboxPayloadCodec[] codecs;
+    private final OutboxPayloadCodec writer;
+    private final int compressMinBytes;
+
+    public OutboxPayloadCodecs(ObjectMapper objectMapper,
+                               @Value("${app.outbox.payload.codec:json}") String codec,
+                               @Value("${app.outbox.payload.compress-min-bytes:512}") int compressMinBytes) {
+        OutboxPayloadCodec json = new JacksonPayloadCodec(JSON, "application/json", objectMapper);
+        OutboxPayloadCodec smile = new JacksonPayloadCodec(SMILE, "application/x-jackson-smile",
+                objectMapper.copyWith(new SmileFactory()));
+        this.codecs = new OutboxPayloadCodec[]{
+                json, smile, new GzipPayloadCodec(JSON_GZIP, json), new GzipPayloadCodec(SMILE_GZIP, smile)};
+        Short writerId = NAMES.get(codec);
+        if (writerId == null) {
+            throw new IllegalArgumentException(
+                    "Unknown outbox payload codec " + codec + ", expected one of " + NAMES.keySet());
+        }
+        this.writer = codecs[writerId];
+        this.compressMinBytes = compressMinBytes;
+        log.info("Writing outbox payloads as {}", codec);
+    }
+
+    public OutboxPayloadCodec get(short id) {
+        if (id < 0 || id >= codecs.length) {
+            throw new IllegalArgumentException("Unknown outbox payload codec id " + id);
+        }
+        return codecs[id];
+    }
+
+    public EncodedPayload encode(Object event) throws IOException {
+        if (writer instanceof GzipPayloadCodec gzip) {
+            byte[] payload = gzip.inner().encode(event);
+            if (payload.length < compressMinBytes) {
+                return new EncodedPayload(gzip.inner().id(), payload);
+            }
+            return new EncodedPayload(gzip.id(), gzip.compress(payload));
+        }
+        return new EncodedPayload(writer.id(), writer.encode(event));
+    }
+}
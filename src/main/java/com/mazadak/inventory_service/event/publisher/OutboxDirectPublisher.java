@@ -0,0 +1,82 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import com.mazadak.inventory_service.event.OutboxEventWrittenEvent;
+import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends outbox events straight to the broker once the transaction that wrote them commits, then marks them
+ * published. Sends happen one at a time in commit order, off the request thread. The outbox row stays the durable
+ * copy: an event whose send fails, that finds the queue full, or that is lost with the process is picked up by the
+ * {@link OutboxPublisher} once it is older than the relay's minimum age. An event whose aggregate still has an
+ * earlier event waiting is left to the relay as well, so the aggregate's events keep their order.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.direct.enabled", havingValue = "true")
+@Slf4j
+public class OutboxDirectPublisher {
+
+    private final OutboxPublisher outboxPublisher;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor sender;
+
+    public OutboxDirectPublisher(OutboxPublisher outboxPublisher,
+                                 OutboxEventRepository outboxEventRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${app.outbox.direct.queue-capacity:10000}") int queueCapacity) {
+        this.outboxPublisher = outboxPublisher;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        // a full queue drops the send, leaving the event to the relay
+        this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-direct");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOutboxEventWritten(OutboxEventWrittenEvent event) {
+        OutboxEvent outboxEvent = event.outboxEvent();
+        sender.execute(() -> publish(outboxEvent));
+    }
+
+    void publish(OutboxEvent outboxEvent) {
+        if (outboxEvent.getAggregateId() != null && outboxEventRepository.existsEarlierUnpublished(
+                outboxEvent.getAggregateId(), outboxEvent.getCreatedAt(), outboxEvent.getId())) {
+            log.info("Leaving outbox event {} to the relay behind earlier events of aggregate {}",
+                    outboxEvent.getId(), outboxEvent.getAggregateId());
+            return;
+        }
+        if (!outboxPublisher.send(outboxEvent)) {
+            log.warn("Leaving outbox event {} to the relay", outboxEvent.getId());
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.markPublished(List.of(outboxEvent.getId())));
+        } catch (RuntimeException e) {
+            log.error("Sent outbox event {} but could not mark it published, the relay will send it again",
+                    outboxEvent.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+}
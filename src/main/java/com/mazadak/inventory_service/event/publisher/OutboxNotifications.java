@@ -0,0 +1,17 @@
+package com.mazadak.inventory_service.event.publisher;
+
+/**
+ * Signals raised by the database when outbox events are written.
+ */
+interface OutboxNotifications {
+
+    /**
+     * Waits up to {@code timeoutMillis} for a signal and returns whether one arrived.
+     */
+    boolean await(long timeoutMillis);
+
+    /**
+     * Stops listening and releases the underlying session.
+     */
+    void close();
+}
@@ -1,43 +1,342 @@
 package com.mazadak.inventory_service.event.publisher;
 
 import com.mazadak.inventory_service.constant.InventoryMessagingConstants;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodec;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
 import com.mazadak.inventory_service.model.OutboxEvent;
 import com.mazadak.inventory_service.repository.OutboxEventRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Relays outbox events to the broker. Each batch is claimed with {@code FOR UPDATE SKIP LOCKED} among the
+ * oldest pending events, so replicas never send the same event, and is acknowledged with a single update before
+ * its transaction commits. Events of one aggregate are sent one after the other in the order they were written,
+ * while different aggregates are sent in parallel; an aggregate whose older events are still held by another
+ * relay is left for a later batch.
+ * <p>
+ * Sends are pipelined: up to {@code max-in-flight} of them wait on the broker at once, each on a sender that only
+ * returns once the broker confirmed or refused the record (the binding's producer runs with {@code sync: true}),
+ * so an event is only acknowledged after its delivery is confirmed. A failed send is retried with exponential
+ * backoff off the sender threads, holding back only the rest of its aggregate; once its attempts are used up the
+ * remaining events of that aggregate are left for a later batch.
+ * <p>
+ * With the {@link OutboxDirectPublisher} on, events younger than {@code app.outbox.relay.min-age-ms} are left to it,
+ * since it sends them as soon as their transaction commits; the relay only picks up the ones it failed, held back or
+ * never got to send. Without it there is no minimum age by default.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OutboxPublisher {
+
+    // candidates read per batch, in batches, so a few relays claiming at once still fill theirs
+    private static final int CLAIM_WINDOW_BATCHES = 4;
+
     private final OutboxEventRepository outboxEventRepository;
     private final StreamBridge streamBridge;
+    private final OutboxPayloadCodecs outboxPayloadCodecs;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long minAgeMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long batchTimeoutMs;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService retries;
+    private final Set<CompletableFuture<List<UUID>>> pendingLanes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer sendTimer;
+    private final Counter sendFailures;
+    private final Counter sendRetries;
+
+    public OutboxPublisher(OutboxEventRepository outboxEventRepository,
+                           StreamBridge streamBridge,
+                           OutboxPayloadCodecs outboxPayloadCodecs,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                           @Value("${app.outbox.relay.max-in-flight:64}") int maxInFlight,
+                           @Value("${app.outbox.relay.max-batches:100}") int maxBatches,
+                           @Value("${app.outbox.relay.min-age-ms:#{${app.outbox.direct.enabled:false} ? 10000 : 0}}") long minAgeMs,
+                           @Value("${app.outbox.relay.max-attempts:3}") int maxAttempts,
+                           @Value("${app.outbox.relay.retry-backoff-ms:200}") long retryBackoffMs,
+                           @Value("${app.outbox.relay.batch-timeout-ms:30000}") long batchTimeoutMs,
+                           MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.streamBridge = streamBridge;
+        this.outboxPayloadCodecs = outboxPayloadCodecs;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.minAgeMs = minAgeMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.batchTimeoutMs = batchTimeoutMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sendTimer = Timer.builder("outbox.relay.send")
+                .description("Time from handing an outbox event to the broker until it is confirmed or refused")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("outbox.relay.send.failures")
+                .description("Outbox event sends the broker refused or that failed")
+                .register(meterRegistry);
+        this.sendRetries = Counter.builder("outbox.relay.send.retries")
+                .description("Outbox event sends retried after a failure")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.in-flight", inFlight, AtomicInteger::get)
+                .description("Outbox event sends waiting on the broker")
+                .register(meterRegistry);
+    }
 
-    @Scheduled(fixedDelay = 5000)
+    public record BatchResult(int claimed, int published) {
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:5000}")
     public void publishPendingEvents() {
-        List<OutboxEvent> events = outboxEventRepository.findByPublishedFalse();
+        int published = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            BatchResult result;
+            try {
+                result = relayBatch();
+            } catch (Exception e) {
+                log.error("Failed to relay a batch of outbox events", e);
+                break;
+            }
+            published += result.published();
+            if (result.claimed() < batchSize || result.published() == 0) {
+                break;
+            }
+        }
+        if (published > 0) {
+            log.info("Published {} outbox events", published);
+        }
+    }
 
-        for (var event : events) {
-            var bindingName = resolveBindingForEventType(event.getEventType());
+    /**
+     * Claims, sends and acknowledges one batch of unpublished events in one transaction.
+     */
+    public BatchResult relayBatch() {
+        return transactionTemplate.execute(status -> {
+            List<PendingEvent> pending = outboxEventRepository.findPendingEvents(
+                    LocalDateTime.now().minus(minAgeMs, ChronoUnit.MILLIS),
+                    PageRequest.of(0, batchSize * CLAIM_WINDOW_BATCHES));
+            if (pending.isEmpty()) {
+                return new BatchResult(0, 0);
+            }
+            List<OutboxEvent> claimed = outboxEventRepository.lockUnpublishedEvents(
+                    pending.stream().map(PendingEvent::id).toList(), PageRequest.of(0, batchSize));
+            if (claimed.isEmpty()) {
+                return new BatchResult(0, 0);
+            }
 
-            if (bindingName == null) {
-                log.warn("No binding found for event type {}", event.getEventType());
+            List<UUID> published = new ArrayList<>();
+            List<Lane> lanes = new ArrayList<>();
+            for (List<OutboxEvent> lane : lanes(claimed, pending)) {
+                lanes.add(publishLane(lane));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+            for (Lane lane : lanes) {
+                published.addAll(await(lane, deadline));
+            }
+
+            if (!published.isEmpty()) {
+                outboxEventRepository.markPublished(published);
+            }
+            log.debug("Published {} of {} claimed outbox events", published.size(), claimed.size());
+            return new BatchResult(claimed.size(), published.size());
+        });
+    }
+
+    // groups the claimed events by aggregate, oldest first, cut where another relay still holds an older event;
+    // the pending window starts at the oldest unpublished event, so it holds every such event that is older
+    // than the newest claimed one
+    private Collection<List<OutboxEvent>> lanes(List<OutboxEvent> claimed, List<PendingEvent> pending) {
+        Map<String, List<OutboxEvent>> lanes = new LinkedHashMap<>();
+        Set<UUID> claimedIds = new HashSet<>();
+        for (OutboxEvent event : claimed) {
+            String lane = event.getAggregateId() != null ? event.getAggregateId() : event.getId().toString();
+            lanes.computeIfAbsent(lane, key -> new ArrayList<>()).add(event);
+            claimedIds.add(event.getId());
+        }
+        LocalDateTime newest = claimed.get(claimed.size() - 1).getCreatedAt();
+        for (PendingEvent unclaimed : pending) {
+            if (unclaimed.createdAt().isAfter(newest)) {
+                break;
+            }
+            List<OutboxEvent> lane = unclaimed.aggregateId() != null ? lanes.get(unclaimed.aggregateId()) : null;
+            if (lane == null || claimedIds.contains(unclaimed.id())) {
                 continue;
             }
+            if (lane.removeIf(event -> !event.getCreatedAt().isBefore(unclaimed.createdAt()))) {
+                log.debug("Holding back outbox events of aggregate {} behind another relay", unclaimed.aggregateId());
+            }
+        }
+        return lanes.values();
+    }
 
+    // a lane being sent, and the ids of its events the broker confirmed so far
+    private record Lane(CompletableFuture<List<UUID>> done, List<UUID> published) {
+    }
+
+    // sends the lane's events one after the other, stopping at the first one that could not be delivered or once
+    // the lane is cancelled
+    private Lane publishLane(List<OutboxEvent> events) {
+        Lane lane = new Lane(new CompletableFuture<>(), Collections.synchronizedList(new ArrayList<>()));
+        pendingLanes.add(lane.done());
+        lane.done().whenComplete((published, error) -> pendingLanes.remove(lane.done()));
+        CompletableFuture<Boolean> chain = CompletableFuture.completedFuture(true);
+        for (OutboxEvent event : events) {
+            chain = chain.thenCompose(delivered -> !delivered
+                    ? CompletableFuture.completedFuture(false)
+                    : sendWithRetry(lane, event, 1).thenApply(sent -> {
+                        if (sent) {
+                            lane.published().add(event.getId());
+                        }
+                        return sent;
+                    }));
+        }
+        chain.whenComplete((delivered, error) -> {
+            if (error != null) {
+                lane.done().completeExceptionally(error);
+            } else {
+                lane.done().complete(confirmed(lane));
+            }
+        });
+        return lane;
+    }
+
+    private static List<UUID> confirmed(Lane lane) {
+        synchronized (lane.published()) {
+            return List.copyOf(lane.published());
+        }
+    }
+
+    // every attempt, retries included, first checks that the lane is still waited on: a cancelled lane's events are
+    // relayed again by a later batch, and sending one now could overtake a newer event of its aggregate
+    private CompletableFuture<Boolean> sendWithRetry(Lane lane, OutboxEvent event, int attempt) {
+        if (lane.done().isDone() || sender.isShutdown()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> !lane.done().isDone() && send(event), sender).thenCompose(sent -> {
+            if (sent || attempt >= maxAttempts || lane.done().isDone()) {
+                return CompletableFuture.completedFuture(sent);
+            }
+            sendRetries.increment();
+            CompletableFuture<Boolean> retried = new CompletableFuture<>();
+            long backoffMs = retryBackoffMs << (attempt - 1);
             try {
-                log.info("Sending outbox event: {}", event);
-                streamBridge.send(bindingName, event.getPayload());
-                event.setPublished(true);
-                outboxEventRepository.save(event);
-            } catch (Exception e) {
-                log.error("Couldn't publish event {}.", event, e);
+                retries.schedule(() -> sendWithRetry(lane, event, attempt + 1).whenComplete((result, error) -> {
+                    if (error != null) {
+                        retried.completeExceptionally(error);
+                    } else {
+                        retried.complete(result);
+                    }
+                }), backoffMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                retried.complete(false);
             }
+            return retried;
+        });
+    }
+
+    /**
+     * Sends one event to the binding of its type and returns whether the broker took it.
+     */
+    boolean send(OutboxEvent event) {
+        var bindingName = resolveBindingForEventType(event.getEventType());
+
+        if (bindingName == null) {
+            log.warn("No binding found for event type {}", event.getEventType());
+            return false;
+        }
+
+        inFlight.incrementAndGet();
+        long begin = System.nanoTime();
+        try {
+            log.debug("Sending outbox event: {}", event);
+            if (!streamBridge.send(bindingName, toMessage(event))) {
+                log.error("Couldn't publish event {}.", event);
+                sendFailures.increment();
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Couldn't publish event {}.", event, e);
+            sendFailures.increment();
+            return false;
+        } finally {
+            sendTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // passes the stored bytes through as they are, labelled with the codec that wrote them
+    private Message<byte[]> toMessage(OutboxEvent event) {
+        OutboxPayloadCodec codec = outboxPayloadCodecs.get(event.getPayloadCodec());
+        byte[] payload = event.getPayload() != null
+                ? event.getPayload()
+                : event.getLegacyPayload().getBytes(StandardCharsets.UTF_8);
+        MessageBuilder<byte[]> message = MessageBuilder.withPayload(payload)
+                .setHeader(MessageHeaders.CONTENT_TYPE, codec.contentType());
+        if (codec.contentEncoding() != null) {
+            message.setHeader(InventoryMessagingConstants.CONTENT_ENCODING_HEADER, codec.contentEncoding());
+        }
+        return message.build();
+    }
+
+    // waits for the lane until the batch deadline; a lane still sending by then, or cancelled by shutdown, stops
+    // and only the events confirmed so far are acknowledged, the rest are relayed again
+    private List<UUID> await(Lane lane, long deadline) {
+        try {
+            return lane.done().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            lane.done().cancel(false);
+            List<UUID> confirmed = confirmed(lane);
+            log.warn("Gave up waiting on an outbox lane after {} confirmed sends", confirmed.size());
+            return confirmed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to publish outbox events", e.getCause());
         }
     }
 
@@ -48,4 +347,10 @@ public class OutboxPublisher {
         };
     }
 
+    @PreDestroy
+    public void shutdown() {
+        pendingLanes.forEach(lane -> lane.cancel(false));
+        retries.shutdownNow();
+        sender.shutdownNow();
+    }
 }
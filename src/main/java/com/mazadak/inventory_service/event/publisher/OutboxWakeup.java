@@ -0,0 +1,129 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wakes the {@link OutboxPublisher} as soon as the database signals new outbox events instead of waiting for its
+ * next poll. Signals are debounced: the first one schedules a drain {@code debounce-ms} later and the ones that
+ * arrive before it starts ride along, so a burst of writes is relayed as one run of batches. The publisher's
+ * fixed-delay poll stays on as a fallback for signals lost while the listening session was down.
+ * Only works on Postgres.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.notify.enabled", havingValue = "true")
+@Slf4j
+public class OutboxWakeup {
+
+    private static final long LISTEN_TIMEOUT_MS = 10_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final OutboxNotifications notifications;
+    private final OutboxPublisher outboxPublisher;
+    private final long debounceMs;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-wakeup-drain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+    private Thread listener;
+
+    @Autowired
+    public OutboxWakeup(DataSourceProperties dataSourceProperties,
+                        OutboxPublisher outboxPublisher,
+                        @Value("${app.outbox.notify.debounce-ms:20}") long debounceMs) {
+        this(new PostgresOutboxNotifications(dataSourceProperties), outboxPublisher, debounceMs);
+    }
+
+    OutboxWakeup(OutboxNotifications notifications, OutboxPublisher outboxPublisher, long debounceMs) {
+        this.notifications = notifications;
+        this.outboxPublisher = outboxPublisher;
+        this.debounceMs = debounceMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "outbox-wakeup-listener");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Listening for outbox notifications, debounced by {} ms", debounceMs);
+    }
+
+    /**
+     * Schedules a drain unless one is already waiting to start.
+     */
+    void requestDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            drainer.schedule(this::drain, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        // cleared before relaying, so events written during the drain schedule the next one
+        drainScheduled.set(false);
+        try {
+            outboxPublisher.publishPendingEvents();
+        } catch (RuntimeException e) {
+            log.error("Failed to drain the outbox after a notification", e);
+        }
+    }
+
+    private void listen() {
+        // anything written before the session was up has not been signalled
+        requestDrain();
+        while (running) {
+            try {
+                if (notifications.await(LISTEN_TIMEOUT_MS)) {
+                    requestDrain();
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox notifications interrupted, reconnecting in {} ms", RECONNECT_DELAY_MS, e);
+                if (!pause()) {
+                    return;
+                }
+                requestDrain();
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        drainer.shutdownNow();
+        notifications.close();
+    }
+}
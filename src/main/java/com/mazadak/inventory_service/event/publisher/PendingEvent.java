@@ -0,0 +1,10 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Unpublished outbox event as seen by a relay before it claims its batch.
+ */
+public record PendingEvent(UUID id, String aggregateId, LocalDateTime createdAt) {
+}
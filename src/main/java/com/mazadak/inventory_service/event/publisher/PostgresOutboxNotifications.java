@@ -0,0 +1,92 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Postgres {@code LISTEN} on a connection opened next to the pool rather than borrowed from it. A statement-level
+ * trigger on {@code outbox_events} raises one {@code NOTIFY} per inserting statement, which Postgres delivers when
+ * the transaction commits, so the relay never wakes up for events it cannot see yet. The trigger is installed once
+ * per process, under an advisory lock and only when it is missing, so reconnecting never locks the outbox table.
+ */
+class PostgresOutboxNotifications implements OutboxNotifications {
+
+    static final String CHANNEL = "outbox_events";
+
+    private static final String INSTALL_TRIGGER = """
+            DO $$
+            BEGIN
+                PERFORM pg_advisory_xact_lock(hashtext('outbox_events_notify'));
+                IF NOT EXISTS (SELECT 1 FROM pg_trigger
+                               WHERE tgname = 'outbox_events_notify' AND tgrelid = 'outbox_events'::regclass) THEN
+                    CREATE OR REPLACE FUNCTION notify_outbox_events() RETURNS trigger AS $fn$
+                    BEGIN
+                        PERFORM pg_notify('outbox_events', '');
+                        RETURN NULL;
+                    END;
+                    $fn$ LANGUAGE plpgsql;
+                    CREATE OR REPLACE TRIGGER outbox_events_notify AFTER INSERT ON outbox_events
+                        FOR EACH STATEMENT EXECUTE FUNCTION notify_outbox_events();
+                END IF;
+            END
+            $$;
+            """;
+
+    private final DataSourceProperties dataSourceProperties;
+    private Connection connection;
+    private boolean triggerInstalled;
+
+    PostgresOutboxNotifications(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @Override
+    public boolean await(long timeoutMillis) {
+        try {
+            PGNotification[] notifications = listen().getNotifications((int) timeoutMillis);
+            return notifications != null && notifications.length > 0;
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Lost the outbox notification session", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("UNLISTEN *");
+            } catch (SQLException e) {
+                // the session is gone, and its subscription with it
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // the session is gone either way
+            }
+            connection = null;
+        }
+    }
+
+    private PGConnection listen() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                if (!triggerInstalled) {
+                    statement.execute(INSTALL_TRIGGER);
+                    triggerInstalled = true;
+                }
+                statement.execute("LISTEN " + CHANNEL);
+            }
+        }
+        return connection.unwrap(PGConnection.class);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mazadak.inventory_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+/**
+ * A request reused an idempotency key whose first request has not finished yet; it can be retried once it has.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(UUID idempotencyKey) {
+        super("Idempotency key " + idempotencyKey + " is already being processed");
+    }
+}
@@ -35,11 +35,24 @@ public class Inventory extends BaseEntity {
     @OneToMany(mappedBy = "inventory", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<InventoryReservation> reservations = new ArrayList<>();
 
-    @Column(name = "idempotency_key", unique = true)
-    private UUID idempotencyKey;
-
     private boolean deleted = false;
 
+    // number of inventory_shards rows holding this product's stock, 0 when it is kept on this row
+    @Column(name = "shard_count", nullable = false, columnDefinition = "integer default 0")
+    private int shardCount;
+
+    // how long reservations of this product are held, app.reservation.timeout-minutes when null
+    @Column(name = "reservation_ttl_minutes")
+    private Integer reservationTtlMinutes;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    public boolean isSharded() {
+        return shardCount > 0;
+    }
+
     public void reduceQuantity(int quantity) {
         if (quantity > totalQuantity) {
             throw new IllegalArgumentException("Not enough inventory");
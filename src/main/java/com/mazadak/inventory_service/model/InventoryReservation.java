@@ -21,6 +21,8 @@ import java.util.UUID;
 @EqualsAndHashCode(exclude = "inventory")
 public class InventoryReservation extends BaseEntity {
 
+    public static final int EXPIRY_BUCKETS = 1024;
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "inventory_reservation_id", nullable = false, updatable = false)
@@ -45,6 +47,15 @@ public class InventoryReservation extends BaseEntity {
     @Column(name = "idempotency_key")
     private UUID idempotencyKey;
 
+    @Column(name = "shard_index")
+    private Integer shardIndex;
+
+    /**
+     * Hash of the product into {@link #EXPIRY_BUCKETS} buckets, which expiry partitions are made of.
+     */
+    @Column(name = "expiry_bucket")
+    private Integer expiryBucket;
+
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
 
@@ -61,6 +72,17 @@ public class InventoryReservation extends BaseEntity {
 
 
 
+    public static int expiryBucketOf(UUID productId) {
+        return Math.floorMod(productId.hashCode(), EXPIRY_BUCKETS);
+    }
+
+    @PrePersist
+    void assignExpiryBucket() {
+        if (expiryBucket == null && inventory != null) {
+            expiryBucket = expiryBucketOf(inventory.getProductId());
+        }
+    }
+
     public void confirm(UUID orderId) {
         if (this.status != ReservationStatus.RESERVED) {
             throw new IllegalStateException("Only RESERVED reservations can be confirmed");
@@ -0,0 +1,41 @@
+package com.mazadak.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * One slice of a hot product's stock. While an {@link Inventory} is sharded its own quantities stay at zero
+ * and the product's stock is the sum of its shards, so concurrent reservations spread over several rows.
+ */
+@Entity
+@Table(name = "inventory_shards", uniqueConstraints =
+        @UniqueConstraint(name = "uk_inventory_shards_inventory_shard", columnNames = {"inventory_id", "shard_index"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "inventory")
+@EqualsAndHashCode(exclude = "inventory")
+public class InventoryShard extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "inventory_shard_id", nullable = false, updatable = false)
+    private UUID inventoryShardId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false, updatable = false)
+    private Inventory inventory;
+
+    @Column(name = "shard_index", nullable = false, updatable = false)
+    private int shardIndex;
+
+    @Column(name = "total_quantity", nullable = false)
+    private int totalQuantity;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    private int reservedQuantity;
+}
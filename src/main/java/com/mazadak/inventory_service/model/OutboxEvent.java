@@ -1,12 +1,15 @@
 package com.mazadak.inventory_service.model;
 
+import com.mazadak.inventory_service.event.codec.EncodedPayload;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.UUID;
 
 @Entity
-@Table(name = "outbox_events")
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_published_created_at", columnList = "published, created_at, id")
+})
 @Getter
 @Setter
 @ToString
@@ -19,16 +22,32 @@ public class OutboxEvent extends BaseEntity {
 
     private String aggregateType;
 
+    // events of the same aggregate are relayed in the order they were written
+    @Column(name = "aggregate_id")
+    private String aggregateId;
+
     private String eventType;
 
-    @Column(columnDefinition = "TEXT")
-    private String payload;
+    // encoded by the codec with this id, see OutboxPayloadCodecs; rows written before it are JSON
+    @Column(name = "payload_codec", columnDefinition = "smallint default 0 not null")
+    private short payloadCodec;
+
+    @Column(name = "encoded_payload", columnDefinition = "bytea")
+    @ToString.Exclude
+    private byte[] payload;
+
+    // JSON text of rows written before payloads were encoded, relayed when encoded_payload is null
+    @Column(name = "payload", columnDefinition = "TEXT", insertable = false, updatable = false)
+    @ToString.Exclude
+    private String legacyPayload;
 
     private boolean published = false;
 
-    public OutboxEvent(String aggregateType, String eventType, String payload) {
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, EncodedPayload payload) {
         this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
         this.eventType = eventType;
-        this.payload = payload;
+        this.payloadCodec = payload.codecId();
+        this.payload = payload.bytes();
     }
 }
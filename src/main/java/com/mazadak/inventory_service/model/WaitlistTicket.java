@@ -0,0 +1,55 @@
+package com.mazadak.inventory_service.model;
+
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Entity
+@Table(name = "waitlist_tickets", indexes = {
+        @Index(name = "idx_waitlist_tickets_status_expires_at", columnList = "status, expires_at")
+}, uniqueConstraints =
+        @UniqueConstraint(name = "uk_waitlist_tickets_idempotency_key", columnNames = "idempotency_key"))
+@Getter
+@Setter
+@ToString(exclude = {"request", "productIds"})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistTicket extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "ticket_id", nullable = false, updatable = false)
+    private UUID ticketId;
+
+    // one ticket per key, so a retried request is answered with the ticket of the first one
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private UUID idempotencyKey;
+
+    // the reservation request as JSON, retried with the idempotency key until it is fulfilled
+    @Column(name = "request", columnDefinition = "TEXT", nullable = false, updatable = false)
+    private String request;
+
+    @Builder.Default
+    @ElementCollection
+    @CollectionTable(name = "waitlist_ticket_products", joinColumns = @JoinColumn(name = "ticket_id"),
+            indexes = @Index(name = "idx_waitlist_ticket_products_product_id", columnList = "product_id"))
+    @Column(name = "product_id", nullable = false)
+    private Set<UUID> productIds = new HashSet<>();
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private WaitlistStatus status;
+
+    // JSON array of the reservation ids once fulfilled
+    @Column(name = "reservation_ids", columnDefinition = "TEXT")
+    private String reservationIds;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,13 @@
+package com.mazadak.inventory_service.model.enums;
+
+/**
+ * Represents what a batch availability lookup found for a product.
+ * - FOUND: The product has a live inventory, its quantities are included
+ * - DELETED: The product's inventory was deleted
+ * - NOT_FOUND: The product never had an inventory
+ */
+public enum AvailabilityStatus {
+    FOUND,
+    DELETED,
+    NOT_FOUND
+}
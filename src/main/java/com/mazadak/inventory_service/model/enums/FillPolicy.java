@@ -0,0 +1,13 @@
+package com.mazadak.inventory_service.model.enums;
+
+/**
+ * How much of a reservation request may be granted when some of its items are short.
+ * - ALL_OR_NOTHING: Every item is reserved in full or the whole request fails
+ * - PARTIAL: Every item is reserved up to what is available, short items may get nothing
+ * - PARTIAL_MIN: Like PARTIAL, but the request fails when an item cannot get its minQuantity
+ */
+public enum FillPolicy {
+    ALL_OR_NOTHING,
+    PARTIAL,
+    PARTIAL_MIN
+}
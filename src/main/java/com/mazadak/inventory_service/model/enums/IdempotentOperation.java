@@ -0,0 +1,12 @@
+package com.mazadak.inventory_service.model.enums;
+
+/**
+ * Operations whose responses are recorded in the idempotency store.
+ */
+public enum IdempotentOperation {
+    ADD_INVENTORY,
+    RESERVE_INVENTORY,
+    RESERVE_AVAILABLE_INVENTORY,
+    CONFIRM_RESERVATION,
+    RELEASE_RESERVATION
+}
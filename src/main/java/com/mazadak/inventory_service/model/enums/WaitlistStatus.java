@@ -0,0 +1,15 @@
+package com.mazadak.inventory_service.model.enums;
+
+/**
+ * Represents the lifecycle of a waitlisted reservation request.
+ * - QUEUED: Waiting for stock to be freed
+ * - FULFILLED: Stock was reserved, the reservation ids are available
+ * - EXPIRED: The request's deadline passed before stock was freed
+ * - FAILED: The request can no longer be fulfilled
+ */
+public enum WaitlistStatus {
+    QUEUED,
+    FULFILLED,
+    EXPIRED,
+    FAILED
+}
@@ -0,0 +1,47 @@
+package com.mazadak.inventory_service.repository;
+
+import com.mazadak.inventory_service.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+
+    /**
+     * Inserts a record without a response for the key, or does nothing when the key already has one.
+     * Returns 0 when the key was taken, after waiting for the transaction that inserted it to end.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO idempotency_keys (idempotency_key, operation, request_hash, expires_at, created_at, updated_at)
+        VALUES (:idempotencyKey, :operation, :requestHash, :expiresAt, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int claim(@Param("idempotencyKey") UUID idempotencyKey, @Param("operation") String operation,
+              @Param("requestHash") String requestHash, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("""
+        UPDATE IdempotencyRecord r
+        SET r.response = :response,
+            r.updatedAt = CURRENT_TIMESTAMP
+        WHERE r.idempotencyKey = :idempotencyKey
+    """)
+    int recordResponse(@Param("idempotencyKey") UUID idempotencyKey, @Param("response") String response);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :idempotencyKey")
+    void deleteByIdempotencyKey(@Param("idempotencyKey") UUID idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :idempotencyKey AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("idempotencyKey") UUID idempotencyKey, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
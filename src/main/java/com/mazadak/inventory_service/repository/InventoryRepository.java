@@ -1,20 +1,155 @@
 package com.mazadak.inventory_service.repository;
 
 import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.service.cache.InventoryAvailabilityRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, UUID> {
 
     Optional<Inventory> findByProductId(UUID productId);
 
     void deleteByProductId(UUID productId);
-    
-    Optional<Inventory> findByIdempotencyKey(UUID idempotencyKey);
 
     Boolean existsByProductId(UUID productId);
 
     Boolean existsByProductIdAndDeletedFalse(UUID productId);
+
+    /**
+     * Streams the inventories of the given products, deleted ones included, in a single {@code = ANY} lookup.
+     */
+    @Query(value = "SELECT * FROM inventories WHERE product_id = ANY(:productIds)", nativeQuery = true)
+    Stream<Inventory> streamByProductIdIn(@Param("productIds") UUID[] productIds);
+
+    /**
+     * Streams the quantities of every inventory, deleted ones included, through a cursor; must be consumed inside a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("""
+        SELECT new com.mazadak.inventory_service.service.cache.InventoryAvailabilityRow(
+            i.productId, i.totalQuantity, i.reservedQuantity, i.deleted, i.shardCount)
+        FROM Inventory i
+    """)
+    Stream<InventoryAvailabilityRow> streamAvailability();
+
+    @Query("""
+        SELECT new com.mazadak.inventory_service.service.cache.InventoryAvailabilityRow(
+            i.productId, i.totalQuantity, i.reservedQuantity, i.deleted, i.shardCount)
+        FROM Inventory i
+        WHERE i.productId IN :productIds
+    """)
+    List<InventoryAvailabilityRow> findAvailabilityByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    /**
+     * Streams the product ids of every live inventory through a cursor; must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT i.productId FROM Inventory i WHERE i.deleted = false")
+    Stream<UUID> streamLiveProductIds();
+
+    /**
+     * Loads and write-locks the unsharded inventories of the given products in a single statement.
+     * Rows are locked in productId order so concurrent overlapping carts cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount = 0 ORDER BY i.productId")
+    List<Inventory> lockUnshardedByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    /**
+     * Same as {@link #lockUnshardedByProductIdIn} but fails immediately instead of waiting when a row is already locked.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount = 0 ORDER BY i.productId")
+    List<Inventory> lockUnshardedByProductIdInNowait(@Param("productIds") Collection<UUID> productIds);
+
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount = 0 ORDER BY i.productId")
+    List<Inventory> findUnshardedByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    /**
+     * Sharded rows are never locked by reservations, their stock is reserved on the shards.
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount > 0")
+    List<Inventory> findShardedByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId = :productId")
+    Optional<Inventory> lockByProductId(@Param("productId") UUID productId);
+
+    @Query("SELECT i.totalQuantity - i.reservedQuantity FROM Inventory i WHERE i.inventoryId = :inventoryId")
+    int findAvailableQuantity(@Param("inventoryId") UUID inventoryId);
+
+    /**
+     * Atomically adds {@code quantity} to the reserved quantity.
+     * Returns 0 when less than {@code quantity} is currently available.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Inventory i
+        SET i.reservedQuantity = i.reservedQuantity + :quantity,
+            i.version = i.version + 1,
+            i.updatedAt = CURRENT_TIMESTAMP
+        WHERE i.inventoryId = :inventoryId
+          AND i.totalQuantity - i.reservedQuantity >= :quantity
+    """)
+    int reserveStock(@Param("inventoryId") UUID inventoryId, @Param("quantity") int quantity);
+
+    /**
+     * Atomically removes {@code quantity} of confirmed stock from both total and reserved quantities.
+     * Returns 0 when less than {@code quantity} is currently reserved.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Inventory i
+        SET i.totalQuantity = i.totalQuantity - :quantity,
+            i.reservedQuantity = i.reservedQuantity - :quantity,
+            i.version = i.version + 1,
+            i.updatedAt = CURRENT_TIMESTAMP
+        WHERE i.inventoryId = :inventoryId
+          AND i.reservedQuantity >= :quantity
+    """)
+    int commitReservedStock(@Param("inventoryId") UUID inventoryId, @Param("quantity") int quantity);
+
+    /**
+     * Atomically returns {@code quantity} of reserved stock to the available pool.
+     * Returns 0 when less than {@code quantity} is currently reserved.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Inventory i
+        SET i.reservedQuantity = i.reservedQuantity - :quantity,
+            i.version = i.version + 1,
+            i.updatedAt = CURRENT_TIMESTAMP
+        WHERE i.inventoryId = :inventoryId
+          AND i.reservedQuantity >= :quantity
+    """)
+    int releaseReservedStock(@Param("inventoryId") UUID inventoryId, @Param("quantity") int quantity);
+
+    /**
+     * Sets how long new reservations of the product are held, {@code null} falling back to the default.
+     * Returns 0 when the product has no live inventory.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Inventory i
+        SET i.reservationTtlMinutes = :minutes,
+            i.version = i.version + 1,
+            i.updatedAt = CURRENT_TIMESTAMP
+        WHERE i.productId = :productId
+          AND i.deleted = false
+    """)
+    int updateReservationTtl(@Param("productId") UUID productId, @Param("minutes") Integer minutes);
 }
@@ -1,12 +1,22 @@
 package com.mazadak.inventory_service.repository;
 
+import com.mazadak.inventory_service.model.Inventory;
 import com.mazadak.inventory_service.model.InventoryReservation;
 import com.mazadak.inventory_service.model.enums.ReservationStatus;
+import com.mazadak.inventory_service.service.expiry.ExpiredStock;
+import com.mazadak.inventory_service.service.expiry.ReservationDeadline;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,5 +29,113 @@ public interface InventoryReservationRepository extends JpaRepository<InventoryR
             @Param("status") ReservationStatus status,
             @Param("expiresAt") LocalDateTime expiresAt
     );
+
+    /**
+     * A page of the deadlines of reservations of the given status, in reservation id order after {@code afterId}.
+     */
+    @Query("""
+        SELECT new com.mazadak.inventory_service.service.expiry.ReservationDeadline(r.inventoryReservationId, r.expiresAt)
+        FROM InventoryReservation r
+        WHERE r.status = :status AND r.expiresAt IS NOT NULL AND r.inventoryReservationId > :afterId
+        ORDER BY r.inventoryReservationId
+    """)
+    List<ReservationDeadline> findDeadlinesByStatus(@Param("status") ReservationStatus status,
+                                                    @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Write-locks up to a page of reservations of the given status that expired before {@code now}, oldest first,
+     * skipping rows another transaction holds.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM InventoryReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<InventoryReservation> lockExpiredReservations(@Param("status") ReservationStatus status,
+                                                       @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Same as {@link #lockExpiredReservations} but only in the given expiry partitions, a partition being the
+     * expiry buckets that are equal modulo {@code partitionCount}. Reservations without a bucket belong to bucket 0
+     * until {@link #setMissingExpiryBucket} gives them one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT r FROM InventoryReservation r
+        WHERE r.status = :status AND r.expiresAt < :now
+          AND MOD(COALESCE(r.expiryBucket, 0), :partitionCount) IN :partitions
+        ORDER BY r.expiresAt
+    """)
+    List<InventoryReservation> lockExpiredReservationsInPartitions(@Param("status") ReservationStatus status,
+                                                                   @Param("now") LocalDateTime now,
+                                                                   @Param("partitionCount") int partitionCount,
+                                                                   @Param("partitions") Collection<Integer> partitions,
+                                                                   Pageable pageable);
+
+    /**
+     * A page of the inventories with reservations of the given status that predate expiry buckets.
+     */
+    @Query("SELECT DISTINCT r.inventory FROM InventoryReservation r WHERE r.status = :status AND r.expiryBucket IS NULL")
+    List<Inventory> findInventoriesWithoutExpiryBucket(@Param("status") ReservationStatus status, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.expiryBucket = :expiryBucket WHERE r.inventory = :inventory AND r.expiryBucket IS NULL")
+    int setMissingExpiryBucket(@Param("inventory") Inventory inventory, @Param("expiryBucket") int expiryBucket);
+
+    /**
+     * Same as {@link #lockExpiredReservations} but only among the given reservations.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT r FROM InventoryReservation r
+        WHERE r.inventoryReservationId IN :reservationIds AND r.status = :status AND r.expiresAt < :now
+    """)
+    List<InventoryReservation> lockExpiredReservationsIn(@Param("reservationIds") Collection<UUID> reservationIds,
+                                                         @Param("status") ReservationStatus status,
+                                                         @Param("now") LocalDateTime now);
+
+    @Query("""
+        SELECT new com.mazadak.inventory_service.service.expiry.ExpiredStock(
+            r.inventory.inventoryId, r.inventory.productId, r.inventory.shardCount, r.shardIndex,
+            CAST(SUM(r.quantity) AS Integer))
+        FROM InventoryReservation r
+        WHERE r.inventoryReservationId IN :reservationIds
+        GROUP BY r.inventory.inventoryId, r.inventory.productId, r.inventory.shardCount, r.shardIndex
+    """)
+    List<ExpiredStock> sumStockByReservationIds(@Param("reservationIds") Collection<UUID> reservationIds);
+
+    @Modifying
+    @Query("""
+        UPDATE InventoryReservation r
+        SET r.status = :status,
+            r.updatedAt = CURRENT_TIMESTAMP
+        WHERE r.inventoryReservationId IN :reservationIds
+    """)
+    int updateStatusByReservationIds(@Param("reservationIds") Collection<UUID> reservationIds,
+                                     @Param("status") ReservationStatus status);
+
+    /**
+     * Moves the expiry of a reservation that is still {@code status} and has not expired by {@code now} out to
+     * {@code expiresAt}, leaving a later expiry as it is. Returns 0 when the reservation is missing, in another
+     * status or already past its expiry.
+     */
+    @Modifying
+    @Query("""
+        UPDATE InventoryReservation r
+        SET r.expiresAt = GREATEST(r.expiresAt, :expiresAt),
+            r.updatedAt = CURRENT_TIMESTAMP
+        WHERE r.inventoryReservationId = :reservationId
+          AND r.status = :status
+          AND r.expiresAt > :now
+    """)
+    int extendReservation(@Param("reservationId") UUID reservationId, @Param("status") ReservationStatus status,
+                          @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Query("SELECT r.updatedAt FROM InventoryReservation r WHERE r.inventoryReservationId = :reservationId")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("reservationId") UUID reservationId);
+
     Optional<InventoryReservation> findByInventory_ProductIdAndIdempotencyKey(UUID productId, UUID idempotencyKey);
+
+    @Query("SELECT DISTINCT r.inventory.productId FROM InventoryReservation r WHERE r.inventoryReservationId IN :reservationIds")
+    List<UUID> findProductIdsByReservationIds(@Param("reservationIds") Collection<UUID> reservationIds);
 }
@@ -0,0 +1,109 @@
+package com.mazadak.inventory_service.repository;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.model.InventoryShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, UUID> {
+
+    /**
+     * Write-locks every shard of the inventory, in shard order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.inventory = :inventory ORDER BY s.shardIndex")
+    List<InventoryShard> lockByInventory(@Param("inventory") Inventory inventory);
+
+    @Query("""
+        SELECT new com.mazadak.inventory_service.dto.response.InventoryDTO(
+            s.inventory.productId, CAST(SUM(s.totalQuantity) AS Integer), CAST(SUM(s.reservedQuantity) AS Integer))
+        FROM InventoryShard s
+        WHERE s.inventory = :inventory
+        GROUP BY s.inventory.productId
+    """)
+    Optional<InventoryDTO> sumByInventory(@Param("inventory") Inventory inventory);
+
+    @Query("""
+        SELECT new com.mazadak.inventory_service.dto.response.InventoryDTO(
+            s.inventory.productId, CAST(SUM(s.totalQuantity) AS Integer), CAST(SUM(s.reservedQuantity) AS Integer))
+        FROM InventoryShard s
+        WHERE s.inventory IN :inventories
+        GROUP BY s.inventory.productId
+    """)
+    List<InventoryDTO> sumByInventoryIn(@Param("inventories") Collection<Inventory> inventories);
+
+    @Query("""
+        SELECT new com.mazadak.inventory_service.dto.response.InventoryDTO(
+            s.inventory.productId, CAST(SUM(s.totalQuantity) AS Integer), CAST(SUM(s.reservedQuantity) AS Integer))
+        FROM InventoryShard s
+        WHERE s.inventory.productId IN :productIds
+        GROUP BY s.inventory.productId
+    """)
+    List<InventoryDTO> sumByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    @Query("""
+        SELECT COALESCE(MAX(s.totalQuantity - s.reservedQuantity), 0)
+        FROM InventoryShard s
+        WHERE s.inventory.inventoryId = :inventoryId
+    """)
+    int findMaxAvailableQuantity(@Param("inventoryId") UUID inventoryId);
+
+    /**
+     * Atomically adds {@code quantity} to the reserved quantity of one shard.
+     * Returns 0 when the shard has less than {@code quantity} available or no longer exists.
+     */
+    @Modifying
+    @Query("""
+        UPDATE InventoryShard s
+        SET s.reservedQuantity = s.reservedQuantity + :quantity,
+            s.updatedAt = CURRENT_TIMESTAMP
+        WHERE s.inventory.inventoryId = :inventoryId
+          AND s.shardIndex = :shardIndex
+          AND s.totalQuantity - s.reservedQuantity >= :quantity
+    """)
+    int reserveStock(@Param("inventoryId") UUID inventoryId, @Param("shardIndex") int shardIndex,
+                     @Param("quantity") int quantity);
+
+    /**
+     * Atomically returns {@code quantity} of reserved stock of one shard to its available pool.
+     * Returns 0 when less than {@code quantity} is reserved on the shard.
+     */
+    @Modifying
+    @Query("""
+        UPDATE InventoryShard s
+        SET s.reservedQuantity = s.reservedQuantity - :quantity,
+            s.updatedAt = CURRENT_TIMESTAMP
+        WHERE s.inventory.inventoryId = :inventoryId
+          AND s.shardIndex = :shardIndex
+          AND s.reservedQuantity >= :quantity
+    """)
+    int releaseReservedStock(@Param("inventoryId") UUID inventoryId, @Param("shardIndex") int shardIndex,
+                             @Param("quantity") int quantity);
+
+    /**
+     * Atomically removes {@code quantity} of confirmed stock from both quantities of one shard.
+     * Returns 0 when less than {@code quantity} is reserved on the shard.
+     */
+    @Modifying
+    @Query("""
+        UPDATE InventoryShard s
+        SET s.totalQuantity = s.totalQuantity - :quantity,
+            s.reservedQuantity = s.reservedQuantity - :quantity,
+            s.updatedAt = CURRENT_TIMESTAMP
+        WHERE s.inventory.inventoryId = :inventoryId
+          AND s.shardIndex = :shardIndex
+          AND s.reservedQuantity >= :quantity
+    """)
+    int commitReservedStock(@Param("inventoryId") UUID inventoryId, @Param("shardIndex") int shardIndex,
+                            @Param("quantity") int quantity);
+}
@@ -1,9 +1,19 @@
 package com.mazadak.inventory_service.repository;
 
+import com.mazadak.inventory_service.event.publisher.PendingEvent;
 import com.mazadak.inventory_service.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,4 +24,48 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID>
         WHERE obe.published = false
     """)
     List<OutboxEvent> findByPublishedFalse();
+
+    /**
+     * Returns a page of the unpublished events written up to {@code writtenBefore}, oldest first, without locking
+     * them. Ordering on the full {@code (published, created_at, id)} index lets it be read straight off the index.
+     */
+    @Query("""
+        SELECT new com.mazadak.inventory_service.event.publisher.PendingEvent(obe.id, obe.aggregateId, obe.createdAt)
+        FROM OutboxEvent obe
+        WHERE obe.published = false
+          AND obe.createdAt <= :writtenBefore
+        ORDER BY obe.published, obe.createdAt, obe.id
+    """)
+    List<PendingEvent> findPendingEvents(@Param("writtenBefore") LocalDateTime writtenBefore, Pageable pageable);
+
+    /**
+     * Write-locks up to a page of the given events that are still unpublished, oldest first, skipping rows
+     * another relay holds.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT obe FROM OutboxEvent obe WHERE obe.id IN :ids AND obe.published = false ORDER BY obe.createdAt, obe.id")
+    List<OutboxEvent> lockUnpublishedEvents(@Param("ids") Collection<UUID> ids, Pageable pageable);
+
+    /**
+     * Whether another unpublished event of the aggregate was written no later than {@code createdAt}.
+     */
+    @Query("""
+        SELECT COUNT(obe) > 0 FROM OutboxEvent obe
+        WHERE obe.aggregateId = :aggregateId
+          AND obe.published = false
+          AND obe.createdAt <= :createdAt
+          AND obe.id <> :id
+    """)
+    boolean existsEarlierUnpublished(@Param("aggregateId") String aggregateId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") UUID id);
+
+    @Modifying
+    @Query("""
+        UPDATE OutboxEvent obe
+        SET obe.published = true,
+            obe.updatedAt = CURRENT_TIMESTAMP
+        WHERE obe.id IN :ids
+    """)
+    int markPublished(@Param("ids") Collection<UUID> ids);
 }
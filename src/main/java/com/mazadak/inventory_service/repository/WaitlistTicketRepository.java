@@ -0,0 +1,62 @@
+package com.mazadak.inventory_service.repository;
+
+import com.mazadak.inventory_service.model.WaitlistTicket;
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WaitlistTicketRepository extends JpaRepository<WaitlistTicket, UUID> {
+
+    long countByStatus(WaitlistStatus status);
+
+    Optional<WaitlistTicket> findByIdempotencyKey(UUID idempotencyKey);
+
+    @Query("SELECT COUNT(t) FROM WaitlistTicket t JOIN t.productIds p WHERE p = :productId AND t.status = :status")
+    long countByProductIdAndStatus(@Param("productId") UUID productId, @Param("status") WaitlistStatus status);
+
+    /**
+     * The ids of the tickets naming the product, oldest first.
+     */
+    @Query("""
+        SELECT t.ticketId FROM WaitlistTicket t JOIN t.productIds p
+        WHERE p = :productId AND t.status = :status
+        ORDER BY t.createdAt, t.ticketId
+    """)
+    List<UUID> findTicketIdsByProductIdAndStatus(@Param("productId") UUID productId,
+                                                 @Param("status") WaitlistStatus status, Pageable pageable);
+
+    @Query("SELECT DISTINCT p FROM WaitlistTicket t JOIN t.productIds p WHERE t.status = :status")
+    List<UUID> findProductIdsByStatus(@Param("status") WaitlistStatus status);
+
+    /**
+     * Locks the ticket, or returns nothing when another transaction holds it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM WaitlistTicket t WHERE t.ticketId = :ticketId")
+    Optional<WaitlistTicket> lockByTicketId(@Param("ticketId") UUID ticketId);
+
+    @Modifying
+    @Query("""
+        UPDATE WaitlistTicket t
+        SET t.status = :expired, t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.status = :queued AND t.expiresAt < :now
+    """)
+    int expireOverdue(@Param("queued") WaitlistStatus queued, @Param("expired") WaitlistStatus expired,
+                      @Param("now") LocalDateTime now);
+
+    List<WaitlistTicket> findByStatusNotAndExpiresAtBefore(WaitlistStatus status, LocalDateTime cutoff,
+                                                           Pageable pageable);
+}
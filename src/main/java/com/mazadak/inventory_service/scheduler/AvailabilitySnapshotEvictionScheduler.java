@@ -0,0 +1,23 @@
+package com.mazadak.inventory_service.scheduler;
+
+import com.mazadak.inventory_service.service.admission.ReservationAdmissionFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.inventory.admission.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AvailabilitySnapshotEvictionScheduler {
+
+    private final ReservationAdmissionFilter reservationAdmissionFilter;
+
+    @Scheduled(fixedDelayString = "${app.inventory.admission.eviction-interval-ms:60000}")
+    public void evictExpiredReadings() {
+        int evicted = reservationAdmissionFilter.evictExpired();
+        log.debug("Evicted {} expired availability readings", evicted);
+    }
+}
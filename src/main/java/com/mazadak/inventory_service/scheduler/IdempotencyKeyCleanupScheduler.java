@@ -0,0 +1,21 @@
+package com.mazadak.inventory_service.scheduler;
+
+import com.mazadak.inventory_service.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyCleanupScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyService.deleteExpiredKeys();
+        log.info("Deleted {} expired idempotency keys", deleted);
+    }
+}
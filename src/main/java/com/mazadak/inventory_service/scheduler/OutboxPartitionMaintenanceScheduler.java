@@ -0,0 +1,22 @@
+package com.mazadak.inventory_service.scheduler;
+
+import com.mazadak.inventory_service.service.outbox.OutboxPartitionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.partitioning.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxPartitionMaintenanceScheduler {
+
+    private final OutboxPartitionManager outboxPartitionManager;
+
+    @Scheduled(fixedDelayString = "${app.outbox.partitioning.maintenance-interval-ms:3600000}")
+    public void maintainOutboxPartitions() {
+        outboxPartitionManager.maintain();
+    }
+}
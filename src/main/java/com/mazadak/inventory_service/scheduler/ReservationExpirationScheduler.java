@@ -1,52 +1,76 @@
 package com.mazadak.inventory_service.scheduler;
 
-import com.mazadak.inventory_service.model.InventoryReservation;
-import com.mazadak.inventory_service.model.enums.ReservationStatus;
-import com.mazadak.inventory_service.repository.InventoryReservationRepository;
-import com.mazadak.inventory_service.service.InventoryReservationService;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import com.mazadak.inventory_service.service.expiry.ExpiryPartitionCoordinator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ReservationExpirationScheduler {
 
-    private final InventoryReservationRepository reservationRepository;
-    private final InventoryReservationService reservationService;
+    private final InventoryReservationServiceImpl reservationService;
+    private final Optional<ExpiryPartitionCoordinator> expiryPartitionCoordinator;
 
+    @Value("${app.reservation.cleanup-chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.reservation.cleanup-max-chunks:200}")
+    private int maxChunks;
+
+    // reservations without an expiry bucket would all fall into partition 0
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillExpiryBuckets() {
+        if (expiryPartitionCoordinator.isEmpty()) {
+            return;
+        }
+        try {
+            log.info("Backfilled the expiry bucket of {} reservations", reservationService.backfillExpiryBuckets(chunkSize));
+        } catch (Exception e) {
+            log.error("Failed to backfill expiry buckets", e);
+        }
+    }
+
+    // with the expiry wheel on, this still runs at the same rate, since the wheel only knows the reservations of this replica
     @Scheduled(fixedRateString = "${app.reservation.cleanup-interval-ms}")
-    @Transactional
     public void releaseExpiredReservations() {
         log.info("Starting expired reservations cleanup at: {}", LocalDateTime.now());
 
-        List<InventoryReservation> expiredReservations = reservationRepository.findExpiredReservations(
-                ReservationStatus.RESERVED,
-                LocalDateTime.now()
-        );
-
-        log.info("Found {} expired reservations to process", expiredReservations.size());
+        Set<Integer> partitions = expiryPartitionCoordinator.map(ExpiryPartitionCoordinator::rebalance).orElse(null);
+        if (partitions != null && partitions.isEmpty()) {
+            log.info("No expiry partitions owned by this replica");
+            return;
+        }
 
-        for (var reservation : expiredReservations) {
+        // every chunk is its own transaction, so a backlog never turns into one long one
+        int expired = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            int chunkExpired;
             try {
-                log.info("Processing reservation ID: {}, expires at: {}",
-                        reservation.getInventoryReservationId(),
-                        reservation.getExpiresAt());
-                UUID idempotencyKey = UUID.randomUUID();
-                reservationService.releaseReservation(idempotencyKey, Collections.singletonList(reservation.getInventoryReservationId()));
-                log.info("Successfully released reservation ID: {}", reservation.getInventoryReservationId());
+                chunkExpired = partitions == null
+                        ? reservationService.expireOverdueReservations(chunkSize)
+                        : reservationService.expireOverdueReservations(chunkSize,
+                                expiryPartitionCoordinator.get().getPartitionCount(), partitions);
             } catch (Exception e) {
-                log.error("Failed to release reservation ID: {}", reservation.getInventoryReservationId(), e);
+                log.error("Failed to expire a chunk of reservations", e);
+                break;
+            }
+            expired += chunkExpired;
+            if (chunkExpired < chunkSize) {
+                break;
             }
         }
+
+        log.info("Expired {} reservations", expired);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.mazadak.inventory_service.scheduler;
+
+import com.mazadak.inventory_service.service.waitlist.ReservationWaitlist;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.inventory.waitlist.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReservationWaitlistSweepScheduler {
+
+    private final ReservationWaitlist reservationWaitlist;
+
+    @Scheduled(fixedDelayString = "${app.inventory.waitlist.sweep-interval-ms:1000}")
+    public void sweepWaitlist() {
+        reservationWaitlist.sweep();
+    }
+}
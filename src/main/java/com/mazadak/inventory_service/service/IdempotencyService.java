@@ -0,0 +1,32 @@
+package com.mazadak.inventory_service.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs {@code action} once per idempotency key and records its response in the caller's transaction.
+     * The key is claimed before the action runs, so a concurrent request with the same key waits for the
+     * first one and replays its response, or runs the action itself if the first one rolled back.
+     * Replays of the same key return the recorded response instead of running the action again.
+     * A {@code null} key runs the action without recording it.
+     */
+    <T> T execute(UUID idempotencyKey, IdempotentOperation operation, Object request,
+                  TypeReference<T> responseType, Supplier<T> action);
+
+    /**
+     * Returns the recorded response of a completed request as the JSON it was stored as, so it can be written back
+     * without being read and serialized again. Empty for a {@code null} key or a key without a record, expired
+     * keys included; it only reads, so it can be called outside a transaction. Throws
+     * {@link com.mazadak.inventory_service.exception.IdempotencyKeyInProgressException} while a request with the
+     * key is still running.
+     */
+    Optional<String> findRecordedResponse(UUID idempotencyKey, IdempotentOperation operation, Object request);
+
+    int deleteExpiredKeys();
+}
@@ -0,0 +1,203 @@
+package com.mazadak.inventory_service.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.exception.IdempotencyKeyInProgressException;
+import com.mazadak.inventory_service.model.IdempotencyRecord;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
+import com.mazadak.inventory_service.repository.IdempotencyRecordRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMinutes;
+    private final Map<UUID, CachedResponse> cache;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                                  @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttlMinutes = ttlMinutes;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public <T> T execute(UUID idempotencyKey, IdempotentOperation operation, Object request,
+                         TypeReference<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+
+        String requestHash = hash(request);
+        CachedResponse record = findRecord(idempotencyKey);
+        CachedResponse recorded = completed(idempotencyKey, record);
+        if (recorded != null) {
+            return read(replay(idempotencyKey, recorded, operation, requestHash), responseType);
+        }
+        if (record != null) {
+            // only a record that is still expired is freed, never the claim of a request that renewed the key
+            log.info("Idempotency key {} has expired", idempotencyKey);
+            cache.remove(idempotencyKey);
+            idempotencyRecordRepository.deleteIfExpired(idempotencyKey, LocalDateTime.now());
+        }
+
+        // waits for a concurrent transaction claiming the same key and loses to it if it commits
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        if (idempotencyRecordRepository.claim(idempotencyKey, operation.name(), requestHash, expiresAt) == 0) {
+            log.info("Idempotency key {} was claimed by a concurrent request", idempotencyKey);
+            recorded = completed(idempotencyKey, findRecord(idempotencyKey));
+            if (recorded == null) {
+                throw new IdempotencyKeyInProgressException(idempotencyKey);
+            }
+            return read(replay(idempotencyKey, recorded, operation, requestHash), responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // a failure that does not roll the transaction back, like a failed request of a group, must free the key
+            try {
+                idempotencyRecordRepository.deleteByIdempotencyKey(idempotencyKey);
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+
+        log.info("Recording {} response for idempotency key {}", operation, idempotencyKey);
+        CachedResponse cachedResponse = new CachedResponse(operation, requestHash, write(response), expiresAt);
+        idempotencyRecordRepository.recordResponse(idempotencyKey, cachedResponse.response());
+        cacheAfterCommit(idempotencyKey, cachedResponse);
+        return response;
+    }
+
+    @Override
+    public Optional<String> findRecordedResponse(UUID idempotencyKey, IdempotentOperation operation, Object request) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        CachedResponse recorded = completed(idempotencyKey, findRecord(idempotencyKey));
+        return recorded == null ? Optional.empty()
+                : Optional.of(replay(idempotencyKey, recorded, operation, hash(request)));
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            cache.values().removeIf(cachedResponse -> cachedResponse.expiresAt().isBefore(now));
+        }
+        return idempotencyRecordRepository.deleteExpired(now);
+    }
+
+    // the record of the key, expired or not, null when it has none; reads only, so it needs no transaction
+    private CachedResponse findRecord(UUID idempotencyKey) {
+        CachedResponse cachedResponse = cache.get(idempotencyKey);
+        if (cachedResponse == null) {
+            cachedResponse = idempotencyRecordRepository.findById(idempotencyKey)
+                    .map(record -> new CachedResponse(record.getOperation(), record.getRequestHash(),
+                            record.getResponse(), record.getExpiresAt()))
+                    .orElse(null);
+            if (cachedResponse != null && cachedResponse.response() != null && !cachedResponse.expired()) {
+                cache.put(idempotencyKey, cachedResponse);
+            }
+        }
+        return cachedResponse;
+    }
+
+    // the record if it is completed, null when there is none or it has expired; a claim still in progress throws
+    private static CachedResponse completed(UUID idempotencyKey, CachedResponse record) {
+        if (record == null || record.expired()) {
+            return null;
+        }
+        if (record.response() == null) {
+            log.warn("Idempotency key {} is still being processed", idempotencyKey);
+            throw new IdempotencyKeyInProgressException(idempotencyKey);
+        }
+        return record;
+    }
+
+    private String replay(UUID idempotencyKey, CachedResponse recorded, IdempotentOperation operation,
+                          String requestHash) {
+        log.info("Replaying {} response for idempotency key {}", recorded.operation(), idempotencyKey);
+        if (recorded.operation() != operation || !recorded.requestHash().equals(requestHash)) {
+            log.error("Idempotency key {} was already used for a different request", idempotencyKey);
+            throw new IllegalArgumentException("Idempotency key was already used for a different request");
+        }
+        return recorded.response();
+    }
+
+    // only successfully committed responses may be replayed from memory
+    private void cacheAfterCommit(UUID idempotencyKey, CachedResponse cachedResponse) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(idempotencyKey, cachedResponse);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(idempotencyKey, cachedResponse);
+            }
+        });
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash idempotent request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+    }
+
+    private <T> T read(String response, TypeReference<T> responseType) {
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize recorded idempotent response", e);
+        }
+    }
+
+    private record CachedResponse(IdempotentOperation operation, String requestHash, String response,
+                                  LocalDateTime expiresAt) {
+
+        boolean expired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+}
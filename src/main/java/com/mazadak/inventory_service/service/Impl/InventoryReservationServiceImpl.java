@@ -1,5 +1,6 @@
 package com.mazadak.inventory_service.service.Impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
 import com.mazadak.common.exception.domain.inventory.ReservationExpiredException;
 import com.mazadak.common.exception.shared.ResourceNotFoundException;
@@ -7,99 +8,281 @@ import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
 import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
 import com.mazadak.inventory_service.dto.request.reserveItemDTO;
 import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.dto.response.ReservedItemDTO;
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import com.mazadak.inventory_service.event.ReservationExpiryEvent;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.event.StockObservedEvent;
 import com.mazadak.inventory_service.mapper.InventoryReservationMapper;
 import com.mazadak.inventory_service.model.Inventory;
 import com.mazadak.inventory_service.model.InventoryReservation;
+import com.mazadak.inventory_service.model.enums.FillPolicy;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
 import com.mazadak.inventory_service.model.enums.ReservationStatus;
 import com.mazadak.inventory_service.repository.InventoryRepository;
 import com.mazadak.inventory_service.repository.InventoryReservationRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
 import com.mazadak.inventory_service.service.InventoryReservationService;
-import com.mazadak.inventory_service.service.InventoryService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.concurrency.StockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.expiry.ExpiredStock;
+import com.mazadak.inventory_service.service.groupcommit.PendingReservation;
+import com.mazadak.inventory_service.service.groupcommit.ReservationOutcome;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class InventoryReservationServiceImpl implements InventoryReservationService {
 
     private final InventoryRepository inventoryRepository;
     private final InventoryReservationRepository inventoryReservationRepository;
-    private final InventoryService inventoryService;
     private final InventoryReservationMapper inventoryReservationMapper;
+    private final IdempotencyService idempotencyService;
+    private final InventoryShardService inventoryShardService;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Value("${app.reservation.timeout-minutes:15}")
     private int reservationTimeoutMinutes;
 
+    @Value("${app.reservation.max-hold-minutes:120}")
+    private int maxHoldMinutes;
+
+    public InventoryReservationServiceImpl(InventoryRepository inventoryRepository,
+                                           InventoryReservationRepository inventoryReservationRepository,
+                                           InventoryReservationMapper inventoryReservationMapper,
+                                           IdempotencyService idempotencyService,
+                                           InventoryShardService inventoryShardService,
+                                           StockConcurrencyStrategy stockConcurrencyStrategy,
+                                           TransactionTemplate transactionTemplate,
+                                           ApplicationEventPublisher applicationEventPublisher) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryReservationRepository = inventoryReservationRepository;
+        this.inventoryReservationMapper = inventoryReservationMapper;
+        this.idempotencyService = idempotencyService;
+        this.inventoryShardService = inventoryShardService;
+        this.stockConcurrencyStrategy = stockConcurrencyStrategy;
+        this.transactionTemplate = transactionTemplate;
+        this.newTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager(),
+                transactionTemplate);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    // the strategy may retry the whole transaction, so every attempt opens one of its own here rather than
+    // joining the caller's, which a failed attempt would have left unusable
     @Override
-    @Transactional
     public List<UUID> reserveInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        return stockConcurrencyStrategy.execute(() -> newTransactionTemplate.execute(status ->
+                idempotencyService.execute(idempotencyKey, IdempotentOperation.RESERVE_INVENTORY, request,
+                        new TypeReference<List<UUID>>() {},
+                        () -> reserveItems(idempotencyKey, request, loadInventories(request.items())).reservationIds())));
+    }
+
+    @Override
+    public ReservationResultDTO reserveAvailableInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        return stockConcurrencyStrategy.execute(() -> newTransactionTemplate.execute(status ->
+                idempotencyService.execute(idempotencyKey, IdempotentOperation.RESERVE_AVAILABLE_INVENTORY, request,
+                        new TypeReference<ReservationResultDTO>() {},
+                        () -> reserveItems(idempotencyKey, request, loadInventories(request.items())))));
+    }
+
+    /**
+     * Applies a group of independent reservation requests in a single transaction. Every product of
+     * the group is locked once, then the requests are applied in order against the locked rows; a
+     * request that cannot be satisfied gets its own failed outcome and leaves no writes behind.
+     */
+    public List<ReservationOutcome> reserveInventoryGroup(List<PendingReservation> pendingReservations) {
+        return stockConcurrencyStrategy.execute(() -> newTransactionTemplate.execute(status ->
+                reserveGroupItems(pendingReservations)));
+    }
+
+    private List<ReservationOutcome> reserveGroupItems(List<PendingReservation> pendingReservations) {
+        log.info("Reserving inventory for a group of {} requests", pendingReservations.size());
+        List<reserveItemDTO> items = new ArrayList<>();
+        for (PendingReservation pendingReservation : pendingReservations) {
+            items.addAll(pendingReservation.request().items());
+        }
+        Map<UUID, Inventory> inventories = loadInventories(items);
+
+        List<ReservationOutcome> outcomes = new ArrayList<>();
+        for (PendingReservation pendingReservation : pendingReservations) {
+            UUID idempotencyKey = pendingReservation.idempotencyKey();
+            ReserveInventoryRequest request = pendingReservation.request();
+            try {
+                outcomes.add(ReservationOutcome.reserved(idempotencyService.execute(idempotencyKey,
+                        IdempotentOperation.RESERVE_INVENTORY, request, new TypeReference<List<UUID>>() {},
+                        () -> reserveItems(idempotencyKey, request, inventories).reservationIds())));
+            } catch (NotEnoughStockException | IllegalArgumentException e) {
+                outcomes.add(ReservationOutcome.failed(e));
+            }
+        }
+        return outcomes;
+    }
+
+    private Map<UUID, Inventory> loadInventories(List<reserveItemDTO> items) {
+        Set<UUID> productIds = new HashSet<>();
+        for (reserveItemDTO requestItem : items) {
+            productIds.add(requestItem.productId());
+        }
+
+        log.info("Loading inventories for {} products", productIds.size());
+        long observedAt = System.nanoTime();
+        Map<UUID, Inventory> inventories = new HashMap<>();
+        Map<UUID, Integer> availableQuantities = new HashMap<>();
+        for (Inventory inventory : stockConcurrencyStrategy.loadInventories(productIds)) {
+            inventories.put(inventory.getProductId(), inventory);
+            availableQuantities.put(inventory.getProductId(), inventory.getTotalQuantity() - inventory.getReservedQuantity());
+        }
+        applicationEventPublisher.publishEvent(new StockObservedEvent(availableQuantities, observedAt));
+        if (inventories.size() < productIds.size()) {
+            Set<UUID> remainingProductIds = new HashSet<>(productIds);
+            remainingProductIds.removeAll(inventories.keySet());
+            for (Inventory inventory : inventoryRepository.findShardedByProductIdIn(remainingProductIds)) {
+                inventories.put(inventory.getProductId(), inventory);
+            }
+        }
+        return inventories;
+    }
+
+    private ReservationResultDTO reserveItems(UUID idempotencyKey, ReserveInventoryRequest request,
+                                              Map<UUID, Inventory> inventories) {
         List<reserveItemDTO> items = request.items();
         UUID orderId = request.orderId();
-        List<UUID> reservations = new ArrayList<>();
+        FillPolicy fillPolicy = request.fillPolicyOrDefault();
+        log.info("Reserving inventory for {} items of order {} with fill policy {}", items.size(), orderId, fillPolicy);
 
+        Map<UUID, Integer> requestedQuantities = new LinkedHashMap<>();
+        Map<UUID, Integer> minimumQuantities = new HashMap<>();
         for (reserveItemDTO requestItem : items) {
+            requestedQuantities.merge(requestItem.productId(), requestItem.quantity(), Integer::sum);
+            minimumQuantities.merge(requestItem.productId(), requestItem.requiredQuantity(fillPolicy), Integer::sum);
+        }
 
-            log.info("Reserving inventory for product {}", requestItem.productId());
-            
-            Optional<InventoryReservation> inventoryReservation = inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(
-                    requestItem.productId(), idempotencyKey);
+        Map<UUID, Integer> shardedQuantities = new LinkedHashMap<>();
+        Map<UUID, Integer> unshardedQuantities = new LinkedHashMap<>();
+        requestedQuantities.forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            (inventory != null && inventory.isSharded() ? shardedQuantities : unshardedQuantities).put(productId, quantity);
+        });
 
-            log.info("Found existing reservation: {}", inventoryReservation.isPresent());
-            if (inventoryReservation.isPresent()) { // request has been processed
-                log.info("Request has been processed");
-                return null;
-            }
-
-            Inventory inventory = inventoryService.findOrCreateInventory(requestItem.productId());
-            log.info("Found inventory: {}", inventory);
-
-            int availableQuantity = inventory.getTotalQuantity() - inventory.getReservedQuantity();
-            log.info("Available quantity: {}", availableQuantity);
-            if (availableQuantity < requestItem.quantity()) {
-                log.info("Not enough inventory");
-                throw new NotEnoughStockException(
-                        inventory.getProductId(),
-                        requestItem.quantity(),
-                        availableQuantity
-                );
+        log.info("Reserving quantities");
+        Map<UUID, Integer> grantedQuantities = new HashMap<>();
+        Map<UUID, Integer> shardIndexes = new HashMap<>();
+        Map<UUID, Integer> shardedGrantedQuantities = Map.of();
+        try {
+            if (fillPolicy == FillPolicy.ALL_OR_NOTHING) {
+                if (!shardedQuantities.isEmpty()) {
+                    shardIndexes = inventoryShardService.reserve(inventories, shardedQuantities);
+                    shardedGrantedQuantities = shardedQuantities;
+                }
+                stockConcurrencyStrategy.reserve(inventories, unshardedQuantities);
+                grantedQuantities.putAll(requestedQuantities);
+            } else {
+                if (!shardedQuantities.isEmpty()) {
+                    shardedGrantedQuantities = inventoryShardService.reserveAvailable(inventories, shardedQuantities,
+                            minimumQuantities, shardIndexes);
+                    grantedQuantities.putAll(shardedGrantedQuantities);
+                }
+                grantedQuantities.putAll(stockConcurrencyStrategy.reserveAvailable(inventories, unshardedQuantities,
+                        minimumQuantities));
             }
+        } catch (NotEnoughStockException e) {
+            log.info("Not enough inventory for order {}", orderId);
+            inventoryShardService.release(inventories, shardIndexes, shardedGrantedQuantities);
+            throw e;
+        }
 
-            log.info("Updating inventory with idempotency key");
-            inventory.setIdempotencyKey(idempotencyKey);
+        if (!grantedQuantities.isEmpty() && grantedQuantities.values().stream().allMatch(quantity -> quantity == 0)) {
+            log.info("No inventory available for any item of order {}", orderId);
+            UUID productId = items.get(0).productId();
+            throw new NotEnoughStockException(productId, requestedQuantities.get(productId), 0);
+        }
 
-            log.info("Updating reserved quantity");
-            inventory.setReservedQuantity(inventory.getReservedQuantity() + requestItem.quantity());
-            inventory = inventoryRepository.save(inventory);
+        log.info("Creating reservations");
+        Map<UUID, Integer> remainingQuantities = new HashMap<>(grantedQuantities);
+        int[] grantedPerItem = new int[items.size()];
+        // every line gets its own minimum first, then what is left goes to the lines in request order
+        for (int i = 0; i < items.size(); i++) {
+            reserveItemDTO requestItem = items.get(i);
+            grantedPerItem[i] = requestItem.requiredQuantity(fillPolicy);
+            remainingQuantities.merge(requestItem.productId(), -grantedPerItem[i], Integer::sum);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            reserveItemDTO requestItem = items.get(i);
+            int topUp = Math.min(requestItem.quantity() - grantedPerItem[i], remainingQuantities.get(requestItem.productId()));
+            grantedPerItem[i] += topUp;
+            remainingQuantities.merge(requestItem.productId(), -topUp, Integer::sum);
+        }
 
-            log.info("Creating reservation");
-            InventoryReservation reservation = InventoryReservation.builder()
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryReservation> reservations = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            reserveItemDTO requestItem = items.get(i);
+            if (grantedPerItem[i] == 0) {
+                continue;
+            }
+            Inventory inventory = inventories.get(requestItem.productId());
+            Integer ttlMinutes = inventory.getReservationTtlMinutes();
+            LocalDateTime expiresAt = now.plusMinutes(ttlMinutes != null
+                    ? Math.min(ttlMinutes, maxHoldMinutes) : reservationTimeoutMinutes);
+            reservations.add(InventoryReservation.builder()
                     .orderId(orderId)
                     .inventory(inventory)
-                    .quantity(requestItem.quantity())
+                    .shardIndex(shardIndexes.get(requestItem.productId()))
+                    .quantity(grantedPerItem[i])
                     .status(ReservationStatus.RESERVED)
-                    .expiresAt(LocalDateTime.now().plusMinutes(reservationTimeoutMinutes))
+                    .expiresAt(expiresAt)
                     .idempotencyKey(idempotencyKey)
-                    .build();
+                    .build());
+        }
 
-            InventoryReservation needed =  inventoryReservationRepository.save(reservation);
-            log.info("Saving reservation {}", needed.getInventoryReservationId());
-            reservations.add(needed.getInventoryReservationId());
+        List<UUID> reservationIds = new ArrayList<>();
+        Map<UUID, LocalDateTime> expiries = new HashMap<>();
+        for (InventoryReservation saved : inventoryReservationRepository.saveAll(reservations)) {
+            reservationIds.add(saved.getInventoryReservationId());
+            expiries.put(saved.getInventoryReservationId(), saved.getExpiresAt());
         }
-        return reservations;
+        log.info("Saved reservations {}", reservationIds);
+        applicationEventPublisher.publishEvent(ReservationExpiryEvent.scheduled(expiries));
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(
+                reservations.stream().map(reservation -> reservation.getInventory().getProductId()).toList()));
+
+        List<ReservedItemDTO> reservedItems = new ArrayList<>();
+        Iterator<UUID> reservationId = reservationIds.iterator();
+        for (int i = 0; i < items.size(); i++) {
+            reserveItemDTO requestItem = items.get(i);
+            reservedItems.add(new ReservedItemDTO(requestItem.productId(), requestItem.quantity(), grantedPerItem[i],
+                    grantedPerItem[i] == 0 ? null : reservationId.next()));
+        }
+        return new ReservationResultDTO(reservationIds, reservedItems);
     }
 
     @Override
     @Transactional
     public List<InventoryReservationDTO> releaseReservation(UUID idempotencyKey, List<UUID> reservations) {
+        return idempotencyService.execute(idempotencyKey, IdempotentOperation.RELEASE_RESERVATION, reservations,
+                new TypeReference<List<InventoryReservationDTO>>() {}, () -> releaseReservations(reservations));
+    }
+
+    private List<InventoryReservationDTO> releaseReservations(List<UUID> reservations) {
         List<InventoryReservationDTO> releasedReservations = new ArrayList<>();
+        Set<UUID> freedProductIds = new HashSet<>();
         for (UUID reservationId : reservations) {
         log.info("Releasing reservation with id: {}", reservationId);
 
@@ -112,26 +295,130 @@ public class InventoryReservationServiceImpl implements InventoryReservationServ
         inventoryReservation.release();
 
         log.info("Updating reserved quantity");
-        inventoryReservation.getInventory()
-                .setReservedQuantity(inventoryReservation.getInventory()
-                        .getReservedQuantity() - inventoryReservation.getQuantity());
+        UUID inventoryId = inventoryReservation.getInventory().getInventoryId();
+        if (!releaseReservedStock(inventoryReservation)) {
+            log.error("Reserved quantity of inventory {} is lower than reservation {}", inventoryId, reservationId);
+            throw new IllegalStateException("Reserved quantity is lower than the reservation quantity");
+        }
 
-        log.info("Saving inventory");
-        inventoryRepository.save(inventoryReservation.getInventory());
         log.info("Saving reservation");
         inventoryReservationRepository.save(inventoryReservation);
 
         releasedReservations.add(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation));
+        freedProductIds.add(inventoryReservation.getInventory().getProductId());
         }
+        applicationEventPublisher.publishEvent(new StockFreedEvent(freedProductIds));
+        applicationEventPublisher.publishEvent(ReservationExpiryEvent.closed(reservations));
         return releasedReservations;
     }
 
+    /**
+     * Expires up to {@code chunkSize} reservations that are still RESERVED and past their expiry time, oldest
+     * first, in one short transaction, and returns how many were expired. Reservations locked by another
+     * transaction are skipped and left for a later chunk.
+     */
+    public int expireOverdueReservations(int chunkSize) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> expireLockedReservations(inventoryReservationRepository
+                .lockExpiredReservations(ReservationStatus.RESERVED, now, PageRequest.of(0, chunkSize))));
+    }
+
+    /**
+     * Same as {@link #expireOverdueReservations(int)} but only in the given expiry partitions.
+     */
+    public int expireOverdueReservations(int chunkSize, int partitionCount, Collection<Integer> partitions) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> expireLockedReservations(inventoryReservationRepository
+                .lockExpiredReservationsInPartitions(ReservationStatus.RESERVED, now, partitionCount, partitions,
+                        PageRequest.of(0, chunkSize))));
+    }
+
+    /**
+     * Gives the pending reservations that predate expiry buckets the bucket of their product, a page of products
+     * per transaction, so partitioned expiry does not leave them all to the owner of partition 0.
+     */
+    public int backfillExpiryBuckets(int chunkSize) {
+        int backfilled = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                int chunkUpdated = 0;
+                for (Inventory inventory : inventoryReservationRepository.findInventoriesWithoutExpiryBucket(
+                        ReservationStatus.RESERVED, PageRequest.of(0, chunkSize))) {
+                    chunkUpdated += inventoryReservationRepository.setMissingExpiryBucket(inventory,
+                            InventoryReservation.expiryBucketOf(inventory.getProductId()));
+                }
+                return chunkUpdated;
+            });
+            backfilled += updated;
+        } while (updated > 0);
+        return backfilled;
+    }
+
+    /**
+     * Expires the given reservations that are still RESERVED and past their expiry time, skipping the others,
+     * and returns how many were expired.
+     */
+    public int expireReservations(Collection<UUID> reservationIds) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> expireLockedReservations(inventoryReservationRepository
+                .lockExpiredReservationsIn(reservationIds, ReservationStatus.RESERVED, now)));
+    }
+
+    // one status update for the whole chunk and one reserved quantity decrement per inventory row or shard
+    private int expireLockedReservations(List<InventoryReservation> reservations) {
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        List<UUID> reservationIds = new ArrayList<>();
+        for (InventoryReservation reservation : reservations) {
+            reservationIds.add(reservation.getInventoryReservationId());
+        }
+        log.info("Expiring {} reservations", reservationIds.size());
+
+        // stock is handed back shards first, then rows, each in the productId order reservations take it in, so
+        // expiries and reservations running at the same time cannot wait on each other's rows
+        List<ExpiredStock> expiredStocks = new ArrayList<>(inventoryReservationRepository.sumStockByReservationIds(reservationIds));
+        expiredStocks.sort(Comparator.comparing(ExpiredStock::productId)
+                .thenComparing(ExpiredStock::shardIndex, Comparator.nullsFirst(Comparator.naturalOrder())));
+        Set<UUID> freedProductIds = new HashSet<>();
+        Map<UUID, Integer> unshardedQuantities = new LinkedHashMap<>();
+        for (ExpiredStock expiredStock : expiredStocks) {
+            freedProductIds.add(expiredStock.productId());
+            if (!expiredStock.isSharded()) {
+                unshardedQuantities.merge(expiredStock.inventoryId(), expiredStock.quantity(), Integer::sum);
+            } else if (!inventoryShardService.releaseReservedStock(inventoryRepository.getReferenceById(
+                    expiredStock.inventoryId()), expiredStock.shardIndex(), expiredStock.quantity())) {
+                log.error("Reserved quantity of sharded inventory {} is lower than its expired reservations",
+                        expiredStock.inventoryId());
+                throw new IllegalStateException("Reserved quantity is lower than the reservation quantity");
+            }
+        }
+        unshardedQuantities.forEach((inventoryId, quantity) -> {
+            if (inventoryRepository.releaseReservedStock(inventoryId, quantity) == 0) {
+                log.error("Reserved quantity of inventory {} is lower than its expired reservations", inventoryId);
+                throw new IllegalStateException("Reserved quantity is lower than the reservation quantity");
+            }
+        });
+        inventoryReservationRepository.updateStatusByReservationIds(reservationIds, ReservationStatus.EXPIRED);
+
+        applicationEventPublisher.publishEvent(new StockFreedEvent(freedProductIds));
+        applicationEventPublisher.publishEvent(ReservationExpiryEvent.closed(reservationIds));
+        return reservationIds.size();
+    }
+
     @Override
     @Transactional
     public List<InventoryReservationDTO> confirmReservation(UUID idempotencyKey, ConfirmReservationRequest request) {
+        return idempotencyService.execute(idempotencyKey, IdempotentOperation.CONFIRM_RESERVATION, request,
+                new TypeReference<List<InventoryReservationDTO>>() {}, () -> confirmReservations(request));
+    }
+
+    private List<InventoryReservationDTO> confirmReservations(ConfirmReservationRequest request) {
         List<UUID> reservationIds = request.reservationIds();
         UUID orderId = request.orderId();
         List<InventoryReservationDTO> confirmedReservations = new ArrayList<>();
+        Set<UUID> confirmedProductIds = new HashSet<>();
         for (UUID reservationId : reservationIds) {
             log.info("Confirming reservation with id: {}", reservationId);
             InventoryReservation inventoryReservation = inventoryReservationRepository.findById(reservationId)
@@ -143,32 +430,48 @@ public class InventoryReservationServiceImpl implements InventoryReservationServ
             log.info("Check for reservation expiration");
             if (inventoryReservation.getExpiresAt().isBefore(LocalDateTime.now())) {
                 log.info("Reservation has expired");
-                releaseReservation(idempotencyKey, Collections.singletonList(reservationId));
+                releaseReservations(Collections.singletonList(reservationId));
                 throw new ReservationExpiredException(reservationId);
             }
 
             log.info("Updating reservation status");
             inventoryReservation.confirm(request.orderId());
 
-            log.info("Updating total quantity");
-            inventoryReservation.getInventory()
-                    .setTotalQuantity(inventoryReservation.getInventory()
-                            .getTotalQuantity() - inventoryReservation.getQuantity());
-
-            log.info("Updating reserved quantity");
-            inventoryReservation.getInventory()
-                    .setReservedQuantity(inventoryReservation.getInventory()
-                            .getReservedQuantity() - inventoryReservation.getQuantity());
+            log.info("Updating total and reserved quantity");
+            UUID inventoryId = inventoryReservation.getInventory().getInventoryId();
+            if (!commitReservedStock(inventoryReservation)) {
+                log.error("Reserved quantity of inventory {} is lower than reservation {}", inventoryId, reservationId);
+                throw new IllegalStateException("Reserved quantity is lower than the reservation quantity");
+            }
 
-            log.info("Saving inventory");
-            inventoryRepository.save(inventoryReservation.getInventory());
             log.info("Saving reservation");
             inventoryReservationRepository.save(inventoryReservation);
             confirmedReservations.add(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation));
+            confirmedProductIds.add(inventoryReservation.getInventory().getProductId());
         }
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(confirmedProductIds));
+        applicationEventPublisher.publishEvent(ReservationExpiryEvent.closed(reservationIds));
         return confirmedReservations;
     }
 
+    private boolean releaseReservedStock(InventoryReservation inventoryReservation) {
+        Inventory inventory = inventoryReservation.getInventory();
+        if (inventory.isSharded()) {
+            return inventoryShardService.releaseReservedStock(inventory, inventoryReservation.getShardIndex(),
+                    inventoryReservation.getQuantity());
+        }
+        return inventoryRepository.releaseReservedStock(inventory.getInventoryId(), inventoryReservation.getQuantity()) > 0;
+    }
+
+    private boolean commitReservedStock(InventoryReservation inventoryReservation) {
+        Inventory inventory = inventoryReservation.getInventory();
+        if (inventory.isSharded()) {
+            return inventoryShardService.commitReservedStock(inventory, inventoryReservation.getShardIndex(),
+                    inventoryReservation.getQuantity());
+        }
+        return inventoryRepository.commitReservedStock(inventory.getInventoryId(), inventoryReservation.getQuantity()) > 0;
+    }
+
     @Override
     public InventoryReservationDTO getReservation(UUID reservationId) {
         log.info("Getting reservation with id: {}", reservationId);
@@ -179,4 +482,45 @@ public class InventoryReservationServiceImpl implements InventoryReservationServ
                 });
         return inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation);
     }
+
+    @Override
+    public LocalDateTime getReservationUpdatedAt(UUID reservationId) {
+        return inventoryReservationRepository.findUpdatedAtById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation", "Id", reservationId.toString()));
+    }
+
+    @Override
+    @Transactional
+    public ReservationHoldDTO extendReservation(UUID reservationId, int minutes) {
+        InventoryReservation inventoryReservation = inventoryReservationRepository.findById(reservationId)
+                .orElseThrow(() -> {
+                    log.error("Reservation not found with id: {}", reservationId);
+                    return new ResourceNotFoundException("Reservation", "Id", reservationId.toString());
+                });
+        if (inventoryReservation.getStatus() != ReservationStatus.RESERVED) {
+            log.error("Reservation {} is {} and cannot be extended", reservationId, inventoryReservation.getStatus());
+            throw new IllegalStateException("Only RESERVED reservations can be extended");
+        }
+
+        // the cap counts from when the reservation was made, so extending again and again cannot hold stock forever
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime holdLimit = inventoryReservation.getCreatedAt().plusMinutes(maxHoldMinutes);
+        LocalDateTime requestedExpiresAt = now.plusMinutes(minutes);
+        LocalDateTime expiresAt = requestedExpiresAt.isBefore(holdLimit) ? requestedExpiresAt : holdLimit;
+        log.info("Extending reservation with id: {} until {}", reservationId, expiresAt);
+
+        if (inventoryReservationRepository.extendReservation(reservationId, ReservationStatus.RESERVED, now, expiresAt) == 0) {
+            if (inventoryReservation.getExpiresAt().isAfter(now)) {
+                log.error("Reservation {} stopped being RESERVED while it was extended", reservationId);
+                throw new IllegalStateException("Only RESERVED reservations can be extended");
+            }
+            log.info("Reservation has expired");
+            throw new ReservationExpiredException(reservationId);
+        }
+
+        LocalDateTime heldUntil = expiresAt.isAfter(inventoryReservation.getExpiresAt())
+                ? expiresAt : inventoryReservation.getExpiresAt();
+        applicationEventPublisher.publishEvent(ReservationExpiryEvent.scheduled(Map.of(reservationId, heldUntil)));
+        return new ReservationHoldDTO(reservationId, heldUntil);
+    }
 }
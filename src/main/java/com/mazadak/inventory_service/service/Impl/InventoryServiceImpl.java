@@ -1,26 +1,39 @@
 package com.mazadak.inventory_service.service.Impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
 import com.mazadak.common.exception.shared.ResourceNotFoundException;
 import com.mazadak.inventory_service.dto.event.InventoryDeletedEvent;
 import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
 import com.mazadak.inventory_service.dto.request.UpdateInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.dto.response.ProductAvailabilityDTO;
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import com.mazadak.inventory_service.event.OutboxEventWrittenEvent;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
 import com.mazadak.inventory_service.mapper.InventoryMapper;
 import com.mazadak.inventory_service.model.Inventory;
 import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
 import com.mazadak.inventory_service.repository.InventoryRepository;
 import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
 import com.mazadak.inventory_service.service.InventoryService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.cache.InventoryReadCache;
+import com.mazadak.inventory_service.service.cache.InventoryReadModel;
+import com.mazadak.inventory_service.service.cache.LiveProductFilter;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @Service
@@ -30,8 +43,14 @@ public class InventoryServiceImpl implements InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final InventoryMapper inventoryMapper;
-    private final ObjectMapper objectMapper;
+    private final OutboxPayloadCodecs outboxPayloadCodecs;
     private final OutboxEventRepository outboxEventRepository;
+    private final IdempotencyService idempotencyService;
+    private final InventoryShardService inventoryShardService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final InventoryReadCache inventoryReadCache;
+    private final LiveProductFilter liveProductFilter;
+    private final InventoryReadModel inventoryReadModel;
 
     public Inventory findInventoryByProductId(UUID productId) {
         log.info("Finding inventory for product {}", productId);
@@ -58,28 +77,35 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     @Transactional
     public InventoryDTO addInventory(UUID idempotencyKey, AddInventoryRequest request) {
-        log.info("Adding inventory for product {}", request.productId());
-        Optional<Inventory> existing = inventoryRepository.findByIdempotencyKey(idempotencyKey);
-        if (existing.isPresent()) {
-            log.info("request has been processed");
-            return inventoryMapper.toInventoryDTO(existing.get());
-        }
+        return idempotencyService.execute(idempotencyKey, IdempotentOperation.ADD_INVENTORY, request,
+                new TypeReference<InventoryDTO>() {}, () -> addQuantity(request));
+    }
 
+    private InventoryDTO addQuantity(AddInventoryRequest request) {
+        log.info("Adding inventory for product {}", request.productId());
         Inventory inventory = findOrCreateInventory(request.productId());
 
-            if (inventory.isDeleted()) {
+        boolean readded = inventory.isDeleted();
+            if (readded) {
                 inventory.setDeleted(false);
                 inventory.setTotalQuantity(0);
                 inventory.getReservations().clear();
                 inventory.setReservedQuantity(0);
             }
+        applicationEventPublisher.publishEvent(new StockFreedEvent(List.of(request.productId())));
+
+        // the shards of a deleted product still hold its old stock
+        if (inventory.isSharded() && readded) {
+            return inventoryShardService.resetShardedQuantities(inventory, request.quantity());
+        }
+        if (inventory.isSharded()) {
+            InventoryDTO sharded = inventoryShardService.lockShardedInventory(inventory);
+            return inventoryShardService.setShardedTotalQuantity(inventory, sharded.totalQuantity() + request.quantity());
+        }
 
         log.info("Updating total quantity");
         inventory.setTotalQuantity(inventory.getTotalQuantity() + request.quantity());
 
-        log.info("Updating idempotency key");
-        inventory.setIdempotencyKey(idempotencyKey);
-
         log.info("Saving inventory");
         return inventoryMapper.toInventoryDTO(inventoryRepository.save(inventory));
     }
@@ -87,11 +113,20 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public InventoryDTO getInventory(UUID productId) {
+        return inventoryReadModel.getInventory(productId, id -> inventoryReadCache.getInventory(id, this::loadInventory));
+    }
+
+    private InventoryDTO loadInventory(UUID productId) {
         log.info("Getting inventory for product {}", productId);
-        return inventoryMapper.toInventoryDTO(findInventoryByProductId(productId));
+        Inventory inventory = findInventoryByProductId(productId);
+        if (inventory.isSharded()) {
+            return inventoryShardService.getShardedInventory(inventory);
+        }
+        return inventoryMapper.toInventoryDTO(inventory);
     }
 
     @Override
+    @Transactional
     public InventoryDTO reduceQuantity(UUID productId, int quantity) {
         log.info("Reducing quantity for product {}", productId);
         Inventory inventory = inventoryRepository.findByProductId(productId).
@@ -99,6 +134,15 @@ public class InventoryServiceImpl implements InventoryService {
                     log.error("Inventory Not Found");
                     return new ResourceNotFoundException("Inventory", "productId", productId.toString());
                 });
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(List.of(productId)));
+
+        if (inventory.isSharded()) {
+            InventoryDTO sharded = inventoryShardService.lockShardedInventory(inventory);
+            if (quantity > sharded.totalQuantity()) {
+                throw new IllegalArgumentException("Not enough inventory");
+            }
+            return inventoryShardService.setShardedTotalQuantity(inventory, sharded.totalQuantity() - quantity);
+        }
 
         log.info("Reducing quantity");
         inventory.reduceQuantity(quantity);
@@ -118,15 +162,18 @@ public class InventoryServiceImpl implements InventoryService {
                    return new ResourceNotFoundException("Inventory", "productId", productId.toString());
                 });
         inventory.setDeleted(true);
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(List.of(productId)));
         try {
             var deletedEvent = new InventoryDeletedEvent(productId);
             var outboxEvent = new OutboxEvent(
                     "Inventory",
+                    productId.toString(),
                     "InventoryDeleted",
-                    objectMapper.writeValueAsString(deletedEvent)
+                    outboxPayloadCodecs.encode(deletedEvent)
             );
             outboxEventRepository.save(outboxEvent);
-        } catch (JsonProcessingException e) {
+            applicationEventPublisher.publishEvent(new OutboxEventWrittenEvent(outboxEvent));
+        } catch (IOException e) {
             log.error("Failed to serialize InventoryDeletedEvent for inventory with product {}", productId, e);
         }
 
@@ -135,10 +182,40 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public Boolean existsByProductId(UUID productId) {
+        return inventoryReadModel.exists(productId, id -> liveProductFilter.exists(id,
+                unknown -> inventoryReadCache.exists(unknown, this::loadExists)));
+    }
+
+    private Boolean loadExists(UUID productId) {
         log.info("Checking if inventory exists for product {}", productId);
         return inventoryRepository.existsByProductIdAndDeletedFalse(productId);
     }
 
+    @Override
+    @Transactional
+    public void streamAvailability(Collection<UUID> productIds, Consumer<ProductAvailabilityDTO> sink) {
+        log.info("Getting availability of {} products", productIds.size());
+        Set<UUID> notFound = new LinkedHashSet<>(productIds);
+        List<Inventory> sharded = new ArrayList<>();
+        try (Stream<Inventory> inventories = inventoryRepository.streamByProductIdIn(notFound.toArray(UUID[]::new))) {
+            inventories.forEach(inventory -> {
+                notFound.remove(inventory.getProductId());
+                if (inventory.isDeleted()) {
+                    sink.accept(ProductAvailabilityDTO.deleted(inventory.getProductId()));
+                } else if (inventory.isSharded()) {
+                    sharded.add(inventory);
+                } else {
+                    sink.accept(ProductAvailabilityDTO.found(inventoryMapper.toInventoryDTO(inventory)));
+                }
+            });
+        }
+        if (!sharded.isEmpty()) {
+            inventoryShardService.getShardedInventories(sharded).values()
+                    .forEach(inventory -> sink.accept(ProductAvailabilityDTO.found(inventory)));
+        }
+        notFound.forEach(productId -> sink.accept(ProductAvailabilityDTO.notFound(productId)));
+    }
+
     @Override
     public void restoreInventory(UUID productId) {
         var inventory = inventoryRepository.findByProductId(productId)
@@ -146,9 +223,21 @@ public class InventoryServiceImpl implements InventoryService {
 
         inventory.setDeleted(false);
         inventoryRepository.save(inventory);
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(List.of(productId)));
     }
 
     @Override
+    @Transactional
+    public void setReservationTtl(UUID productId, Integer minutes) {
+        log.info("Setting reservation TTL of product {} to {} minutes", productId, minutes);
+        if (inventoryRepository.updateReservationTtl(productId, minutes) == 0) {
+            log.error("Inventory Not Found");
+            throw new ResourceNotFoundException("Inventory", "productId", productId.toString());
+        }
+    }
+
+    @Override
+    @Transactional
     public InventoryDTO updateInventory(UUID productId, UpdateInventoryRequest request) {
         int quantity = request.quantity();
         log.info("Updating inventory for product {} to {} ", productId, quantity);
@@ -157,6 +246,18 @@ public class InventoryServiceImpl implements InventoryService {
                     log.error("Inventory Not Found");
                     return new ResourceNotFoundException("Inventory", "productId", productId.toString());
                 });
+        applicationEventPublisher.publishEvent(new InventoryChangedEvent(List.of(productId)));
+        if (inventory.isSharded()) {
+            InventoryDTO sharded = inventoryShardService.lockShardedInventory(inventory);
+            if (quantity < sharded.reservedQuantity()) {
+                log.error("Not enough inventory");
+                throw new NotEnoughStockException(productId, quantity, sharded.totalQuantity() - sharded.reservedQuantity());
+            }
+            if (quantity > sharded.totalQuantity()) {
+                applicationEventPublisher.publishEvent(new StockFreedEvent(List.of(productId)));
+            }
+            return inventoryShardService.setShardedTotalQuantity(inventory, quantity);
+        }
         int availableQuantity = inventory.getTotalQuantity() - inventory.getReservedQuantity();
         if (quantity < inventory.getReservedQuantity()) {
             log.error("Not enough inventory");
@@ -166,6 +267,9 @@ public class InventoryServiceImpl implements InventoryService {
                     availableQuantity
             );
         }
+        if (quantity > inventory.getTotalQuantity()) {
+            applicationEventPublisher.publishEvent(new StockFreedEvent(List.of(productId)));
+        }
         log.info("Updating total quantity to {}", quantity);
         inventory.setTotalQuantity(quantity);
         inventoryRepository.save(inventory);
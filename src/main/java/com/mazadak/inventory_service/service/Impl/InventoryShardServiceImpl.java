@@ -0,0 +1,260 @@
+package com.mazadak.inventory_service.service.Impl;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.common.exception.shared.ResourceNotFoundException;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.model.InventoryShard;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryShardServiceImpl implements InventoryShardService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository inventoryShardRepository;
+
+    @Value("${app.inventory.concurrency.max-attempts:5}")
+    private int maxAttempts;
+
+    @Override
+    @Transactional
+    public InventoryDTO shardInventory(UUID productId, int shardCount) {
+        log.info("Sharding inventory of product {} into {} shards", productId, shardCount);
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> shards = inventoryShardRepository.lockByInventory(inventory);
+
+        int totalQuantity = inventory.getTotalQuantity();
+        int reservedQuantity = inventory.getReservedQuantity();
+        for (InventoryShard shard : shards) {
+            totalQuantity += shard.getTotalQuantity();
+            reservedQuantity += shard.getReservedQuantity();
+        }
+
+        log.info("Resizing shards from {} to {}", shards.size(), shardCount);
+        List<InventoryShard> resizedShards = new ArrayList<>();
+        List<InventoryShard> droppedShards = new ArrayList<>();
+        for (InventoryShard shard : shards) {
+            (shard.getShardIndex() < shardCount ? resizedShards : droppedShards).add(shard);
+        }
+        for (int shardIndex = resizedShards.size(); shardIndex < shardCount; shardIndex++) {
+            resizedShards.add(InventoryShard.builder().inventory(inventory).shardIndex(shardIndex).build());
+        }
+        inventoryShardRepository.deleteAll(droppedShards);
+        spread(resizedShards, totalQuantity, reservedQuantity);
+        inventoryShardRepository.saveAll(resizedShards);
+
+        // the row keeps no stock of its own while sharded, so a stale unsharded write cannot oversell
+        inventory.setTotalQuantity(0);
+        inventory.setReservedQuantity(0);
+        inventory.setShardCount(shardCount);
+        inventoryRepository.save(inventory);
+        return new InventoryDTO(productId, totalQuantity, reservedQuantity);
+    }
+
+    @Override
+    @Transactional
+    public InventoryDTO mergeShards(UUID productId) {
+        log.info("Merging inventory shards of product {}", productId);
+        Inventory inventory = lockInventory(productId);
+        if (!inventory.isSharded()) {
+            log.info("Inventory of product {} is not sharded", productId);
+            return new InventoryDTO(productId, inventory.getTotalQuantity(), inventory.getReservedQuantity());
+        }
+
+        List<InventoryShard> shards = inventoryShardRepository.lockByInventory(inventory);
+        int totalQuantity = 0;
+        int reservedQuantity = 0;
+        for (InventoryShard shard : shards) {
+            totalQuantity += shard.getTotalQuantity();
+            reservedQuantity += shard.getReservedQuantity();
+        }
+        inventoryShardRepository.deleteAll(shards);
+
+        inventory.setTotalQuantity(totalQuantity);
+        inventory.setReservedQuantity(reservedQuantity);
+        inventory.setShardCount(0);
+        inventoryRepository.save(inventory);
+        return new InventoryDTO(productId, totalQuantity, reservedQuantity);
+    }
+
+    @Override
+    public InventoryDTO getShardedInventory(Inventory inventory) {
+        return inventoryShardRepository.sumByInventory(inventory)
+                .orElseGet(() -> new InventoryDTO(inventory.getProductId(), 0, 0));
+    }
+
+    @Override
+    public Map<UUID, InventoryDTO> getShardedInventories(Collection<Inventory> inventories) {
+        Map<UUID, InventoryDTO> sums = new HashMap<>();
+        for (Inventory inventory : inventories) {
+            sums.put(inventory.getProductId(), new InventoryDTO(inventory.getProductId(), 0, 0));
+        }
+        for (InventoryDTO sum : inventoryShardRepository.sumByInventoryIn(inventories)) {
+            sums.put(sum.productId(), sum);
+        }
+        return sums;
+    }
+
+    @Override
+    public InventoryDTO lockShardedInventory(Inventory inventory) {
+        int totalQuantity = 0;
+        int reservedQuantity = 0;
+        for (InventoryShard shard : inventoryShardRepository.lockByInventory(inventory)) {
+            totalQuantity += shard.getTotalQuantity();
+            reservedQuantity += shard.getReservedQuantity();
+        }
+        return new InventoryDTO(inventory.getProductId(), totalQuantity, reservedQuantity);
+    }
+
+    @Override
+    public InventoryDTO setShardedTotalQuantity(Inventory inventory, int totalQuantity) {
+        log.info("Setting total quantity of sharded product {} to {}", inventory.getProductId(), totalQuantity);
+        List<InventoryShard> shards = inventoryShardRepository.lockByInventory(inventory);
+        int reservedQuantity = 0;
+        for (InventoryShard shard : shards) {
+            reservedQuantity += shard.getReservedQuantity();
+        }
+        if (totalQuantity < reservedQuantity) {
+            throw new IllegalStateException("Total quantity cannot be lower than the reserved quantity");
+        }
+        spread(shards, totalQuantity, reservedQuantity);
+        inventoryShardRepository.saveAll(shards);
+        return new InventoryDTO(inventory.getProductId(), totalQuantity, reservedQuantity);
+    }
+
+    @Override
+    public InventoryDTO resetShardedQuantities(Inventory inventory, int totalQuantity) {
+        log.info("Resetting shards of product {} to a total quantity of {}", inventory.getProductId(), totalQuantity);
+        List<InventoryShard> shards = inventoryShardRepository.lockByInventory(inventory);
+        spread(shards, totalQuantity, 0);
+        inventoryShardRepository.saveAll(shards);
+        return new InventoryDTO(inventory.getProductId(), totalQuantity, 0);
+    }
+
+    @Override
+    public Map<UUID, Integer> reserve(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities) {
+        Map<UUID, Integer> shardIndexes = new HashMap<>();
+        for (Map.Entry<UUID, Integer> requested : new TreeMap<>(requestedQuantities).entrySet()) {
+            UUID productId = requested.getKey();
+            int quantity = requested.getValue();
+            Inventory inventory = inventories.get(productId);
+
+            int startIndex = ThreadLocalRandom.current().nextInt(inventory.getShardCount());
+            Integer shardIndex = onAnyShard(inventory, startIndex, index ->
+                    inventoryShardRepository.reserveStock(inventory.getInventoryId(), index, quantity) > 0);
+            if (shardIndex == null) {
+                log.info("No shard of product {} has {} available", productId, quantity);
+                release(inventories, shardIndexes, requestedQuantities);
+                InventoryDTO sharded = getShardedInventory(inventory);
+                throw new NotEnoughStockException(productId, quantity, sharded.totalQuantity() - sharded.reservedQuantity());
+            }
+            shardIndexes.put(productId, shardIndex);
+        }
+        return shardIndexes;
+    }
+
+    @Override
+    public Map<UUID, Integer> reserveAvailable(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities,
+                                               Map<UUID, Integer> minimumQuantities, Map<UUID, Integer> shardIndexes) {
+        Map<UUID, Integer> grantedQuantities = new HashMap<>();
+        Map<UUID, Integer> grantedShardIndexes = new HashMap<>();
+        for (Map.Entry<UUID, Integer> requested : new TreeMap<>(requestedQuantities).entrySet()) {
+            UUID productId = requested.getKey();
+            int quantity = requested.getValue();
+            int minimumQuantity = minimumQuantities.get(productId);
+            Inventory inventory = inventories.get(productId);
+
+            // when no shard covers the whole quantity, ask for what the fullest shard has left until one accepts it,
+            // granting nothing of the product once the attempts run out
+            int startIndex = ThreadLocalRandom.current().nextInt(inventory.getShardCount());
+            int grantedQuantity = quantity;
+            Integer shardIndex = null;
+            for (int attempt = 1; attempt <= maxAttempts && grantedQuantity > 0 && grantedQuantity >= minimumQuantity; attempt++) {
+                int attemptedQuantity = grantedQuantity;
+                shardIndex = onAnyShard(inventory, startIndex, index ->
+                        inventoryShardRepository.reserveStock(inventory.getInventoryId(), index, attemptedQuantity) > 0);
+                if (shardIndex != null) {
+                    break;
+                }
+                grantedQuantity = Math.min(quantity, inventoryShardRepository.findMaxAvailableQuantity(inventory.getInventoryId()));
+            }
+            if ((shardIndex != null ? grantedQuantity : 0) < minimumQuantity) {
+                log.info("No shard of product {} has {} available", productId, minimumQuantity);
+                release(inventories, grantedShardIndexes, grantedQuantities);
+                throw new NotEnoughStockException(productId, quantity, grantedQuantity);
+            }
+            if (shardIndex != null) {
+                grantedQuantities.put(productId, grantedQuantity);
+                grantedShardIndexes.put(productId, shardIndex);
+            } else {
+                grantedQuantities.put(productId, 0);
+            }
+        }
+        shardIndexes.putAll(grantedShardIndexes);
+        return grantedQuantities;
+    }
+
+    @Override
+    public void release(Map<UUID, Inventory> inventories, Map<UUID, Integer> shardIndexes, Map<UUID, Integer> quantities) {
+        shardIndexes.forEach((productId, shardIndex) -> inventoryShardRepository.releaseReservedStock(
+                inventories.get(productId).getInventoryId(), shardIndex, quantities.get(productId)));
+    }
+
+    @Override
+    public boolean releaseReservedStock(Inventory inventory, Integer shardIndex, int quantity) {
+        return onAnyShard(inventory, shardIndex == null ? 0 : shardIndex, index ->
+                inventoryShardRepository.releaseReservedStock(inventory.getInventoryId(), index, quantity) > 0) != null;
+    }
+
+    @Override
+    public boolean commitReservedStock(Inventory inventory, Integer shardIndex, int quantity) {
+        return onAnyShard(inventory, shardIndex == null ? 0 : shardIndex, index ->
+                inventoryShardRepository.commitReservedStock(inventory.getInventoryId(), index, quantity) > 0) != null;
+    }
+
+    private Inventory lockInventory(UUID productId) {
+        return inventoryRepository.lockByProductId(productId)
+                .orElseThrow(() -> {
+                    log.error("Inventory Not Found");
+                    return new ResourceNotFoundException("Inventory", "productId", productId.toString());
+                });
+    }
+
+    // tries the shards in turn starting at startIndex, a reshard may have moved the stock off the preferred one
+    private static Integer onAnyShard(Inventory inventory, int startIndex, IntPredicate applied) {
+        int shardCount = inventory.getShardCount();
+        for (int i = 0; i < shardCount; i++) {
+            int shardIndex = (startIndex + i) % shardCount;
+            if (applied.test(shardIndex)) {
+                return shardIndex;
+            }
+        }
+        return null;
+    }
+
+    private static void spread(List<InventoryShard> shards, int totalQuantity, int reservedQuantity) {
+        int shardCount = shards.size();
+        int availableQuantity = totalQuantity - reservedQuantity;
+        for (InventoryShard shard : shards) {
+            int shardIndex = shard.getShardIndex();
+            int shardReserved = reservedQuantity / shardCount + (shardIndex < reservedQuantity % shardCount ? 1 : 0);
+            int shardAvailable = availableQuantity / shardCount + (shardIndex < availableQuantity % shardCount ? 1 : 0);
+            shard.setReservedQuantity(shardReserved);
+            shard.setTotalQuantity(shardReserved + shardAvailable);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.mazadak.inventory_service.service;
 import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
 import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
 import com.mazadak.inventory_service.model.InventoryReservation;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,10 +15,26 @@ public interface InventoryReservationService {
 
     List<UUID> reserveInventory(UUID idempotencyKey, ReserveInventoryRequest request);
 
+    /**
+     * Reserves the request according to its fill policy and reports the quantity granted for every item.
+     */
+    ReservationResultDTO reserveAvailableInventory(UUID idempotencyKey, ReserveInventoryRequest request);
+
     List<InventoryReservationDTO> releaseReservation(UUID idempotencyKey, List<UUID> reservationIds);
 
     List<InventoryReservationDTO> confirmReservation(UUID idempotencyKey, ConfirmReservationRequest request);
 
     InventoryReservationDTO getReservation(UUID reservationId);
 
+    /**
+     * Returns when the reservation last changed, read without loading it.
+     */
+    LocalDateTime getReservationUpdatedAt(UUID reservationId);
+
+    /**
+     * Holds a reservation that has not expired yet for {@code minutes} from now, capped at the maximum hold counted
+     * from when it was made. Never brings the expiry forward.
+     */
+    ReservationHoldDTO extendReservation(UUID reservationId, int minutes);
+
 }
@@ -3,9 +3,12 @@ package com.mazadak.inventory_service.service;
 import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
 import com.mazadak.inventory_service.dto.request.UpdateInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.dto.response.ProductAvailabilityDTO;
 import com.mazadak.inventory_service.model.Inventory;
 
+import java.util.Collection;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface InventoryService {
 
@@ -24,4 +27,15 @@ public interface InventoryService {
     Boolean existsByProductId(UUID productId);
 
     void restoreInventory(UUID productId);
+
+    /**
+     * Hands the availability of every given product to {@code sink} as it is read, live products first and the
+     * products without an inventory last.
+     */
+    void streamAvailability(Collection<UUID> productIds, Consumer<ProductAvailabilityDTO> sink);
+
+    /**
+     * Sets how long new reservations of the product are held, {@code null} restoring the default.
+     */
+    void setReservationTtl(UUID productId, Integer minutes);
 }
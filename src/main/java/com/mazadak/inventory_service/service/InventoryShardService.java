@@ -0,0 +1,68 @@
+package com.mazadak.inventory_service.service;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.model.Inventory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public interface InventoryShardService {
+
+    /**
+     * Splits the product's stock evenly over {@code shardCount} shards. On an already sharded product this
+     * rebalances the stock, growing or shrinking the number of shards as needed.
+     */
+    InventoryDTO shardInventory(UUID productId, int shardCount);
+
+    /**
+     * Moves the stock of every shard back onto the inventory row and drops the shards.
+     */
+    InventoryDTO mergeShards(UUID productId);
+
+    InventoryDTO getShardedInventory(Inventory inventory);
+
+    /**
+     * Same as {@link #getShardedInventory} for many inventories at once, keyed by product id.
+     */
+    Map<UUID, InventoryDTO> getShardedInventories(Collection<Inventory> inventories);
+
+    /**
+     * Write-locks every shard of the inventory until the transaction ends and returns their sums.
+     */
+    InventoryDTO lockShardedInventory(Inventory inventory);
+
+    /**
+     * Sets the product's total quantity, spreading it evenly over its shards.
+     */
+    InventoryDTO setShardedTotalQuantity(Inventory inventory, int totalQuantity);
+
+    /**
+     * Same as {@link #setShardedTotalQuantity} but drops the reserved quantities of the shards, for a deleted
+     * product that is added again.
+     */
+    InventoryDTO resetShardedQuantities(Inventory inventory, int totalQuantity);
+
+    /**
+     * Reserves every requested quantity on one shard of its product, or none of them.
+     * Returns the shard used for every product.
+     */
+    Map<UUID, Integer> reserve(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities);
+
+    /**
+     * Reserves as much of every requested quantity as one shard of its product has left, but no less than its
+     * minimum, and returns the quantity granted for every product. The shard used is put in {@code shardIndexes}
+     * for every product that was granted anything.
+     */
+    Map<UUID, Integer> reserveAvailable(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities,
+                                        Map<UUID, Integer> minimumQuantities, Map<UUID, Integer> shardIndexes);
+
+    /**
+     * Hands back quantities reserved by {@link #reserve} or {@link #reserveAvailable}.
+     */
+    void release(Map<UUID, Inventory> inventories, Map<UUID, Integer> shardIndexes, Map<UUID, Integer> quantities);
+
+    boolean releaseReservedStock(Inventory inventory, Integer shardIndex, int quantity);
+
+    boolean commitReservedStock(Inventory inventory, Integer shardIndex, int quantity);
+}
@@ -0,0 +1,134 @@
+package com.mazadak.inventory_service.service.admission;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.event.StockObservedEvent;
+import com.mazadak.inventory_service.model.enums.FillPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects reservation requests that certainly cannot be satisfied before they open a transaction, using a snapshot
+ * of the available quantity last read for every product. The snapshot only ever errs on the high side: a product
+ * whose stock is freed on this replica becomes unknown until it is read again, and a reading older than that is
+ * ignored. Readings expire after {@code app.inventory.admission.ttl-ms}, which bounds how long stock freed on
+ * another replica can be missed. Everything the snapshot cannot rule out goes to the database as before.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.admission.enabled", havingValue = "true")
+@Slf4j
+public class ReservationAdmissionFilter {
+
+    private static final int UNKNOWN = -1;
+
+    private final long ttlNanos;
+    private final Map<UUID, Level> levels = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public ReservationAdmissionFilter(@Value("${app.inventory.admission.ttl-ms:2000}") long ttlMillis,
+                                      MeterRegistry meterRegistry) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.hits = Counter.builder("inventory.admission.requests")
+                .description("Reservation requests checked against the availability snapshot")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("inventory.admission.requests")
+                .description("Reservation requests checked against the availability snapshot")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("inventory.admission.snapshot.size", levels, Map::size)
+                .description("Products in the availability snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws {@link NotEnoughStockException} when the snapshot shows the request cannot be granted under its fill
+     * policy, and returns otherwise.
+     */
+    public void admit(ReserveInventoryRequest request) {
+        FillPolicy fillPolicy = request.fillPolicyOrDefault();
+        Map<UUID, Integer> requiredQuantities = new HashMap<>();
+        Map<UUID, Integer> requestedQuantities = new HashMap<>();
+        for (reserveItemDTO item : request.items()) {
+            requestedQuantities.merge(item.productId(), item.quantity(), Integer::sum);
+            requiredQuantities.merge(item.productId(), item.requiredQuantity(fillPolicy), Integer::sum);
+        }
+
+        long now = System.nanoTime();
+        boolean anyAvailable = false;
+        for (Map.Entry<UUID, Integer> requested : requestedQuantities.entrySet()) {
+            UUID productId = requested.getKey();
+            int availableQuantity = availableQuantity(productId, now);
+            if (availableQuantity == UNKNOWN || availableQuantity > 0) {
+                anyAvailable = true;
+            }
+            if (availableQuantity != UNKNOWN && availableQuantity < requiredQuantities.get(productId)) {
+                reject(productId, requested.getValue(), availableQuantity);
+            }
+        }
+        if (!anyAvailable && !requestedQuantities.isEmpty()) {
+            UUID productId = requestedQuantities.keySet().iterator().next();
+            reject(productId, requestedQuantities.get(productId), 0);
+        }
+        misses.increment();
+    }
+
+    @EventListener
+    public void onStockObserved(StockObservedEvent event) {
+        event.availableQuantities().forEach((productId, availableQuantity) ->
+                levels.compute(productId, (id, level) -> level != null && level.observedAt() - event.observedAtNanos() > 0
+                        ? level
+                        : new Level(availableQuantity, event.observedAtNanos())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockFreed(StockFreedEvent event) {
+        long now = System.nanoTime();
+        for (UUID productId : event.productIds()) {
+            levels.put(productId, new Level(UNKNOWN, now));
+        }
+    }
+
+    /**
+     * Drops readings that have expired, so products nobody asks for any more do not stay in the snapshot.
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int before = levels.size();
+        levels.values().removeIf(level -> now - level.observedAt() > ttlNanos);
+        return before - levels.size();
+    }
+
+    private int availableQuantity(UUID productId, long now) {
+        Level level = levels.get(productId);
+        if (level == null || now - level.observedAt() > ttlNanos) {
+            return UNKNOWN;
+        }
+        return level.availableQuantity();
+    }
+
+    private void reject(UUID productId, int requestedQuantity, int availableQuantity) {
+        hits.increment();
+        log.info("Rejecting reservation of {} of product {} from the availability snapshot", requestedQuantity, productId);
+        throw new NotEnoughStockException(productId, requestedQuantity, availableQuantity);
+    }
+
+    private record Level(int availableQuantity, long observedAt) {
+    }
+}
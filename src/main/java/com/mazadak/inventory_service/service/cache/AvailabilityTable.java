@@ -0,0 +1,260 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash table of the {@code (total, reserved, deleted)} state of every product, keyed by the two
+ * longs of the product id and probed linearly. Everything lives in three primitive arrays, 28 bytes a slot, so
+ * there is no boxing and no object per entry. Slots are never removed: a deleted product keeps its slot, and a
+ * product whose state is unknown is marked stale until it is read again.
+ * <p>
+ * Writes are serialized. Reads are optimistic and only retry under the read lock when they raced a write.
+ */
+public final class AvailabilityTable {
+
+    public static final int ABSENT = 0;
+    public static final int LIVE = 1;
+    public static final int DELETED = 2;
+    public static final int STALE = 3;
+
+    private static final int STATE_BITS = 2;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private final StampedLock lock = new StampedLock();
+    private Slots slots;
+    private int size;
+
+    public AvailabilityTable(int expectedSize) {
+        this.slots = new Slots(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(16, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+    }
+
+    /**
+     * Returns the product's quantities, deleted or not, or {@code null} when it is absent or stale.
+     */
+    public InventoryDTO get(UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        Slots current = slots;
+        int slot = current.find(msb, lsb);
+        int state = slot < 0 ? ABSENT : current.meta[slot] & STATE_MASK;
+        int totalQuantity = slot < 0 ? 0 : current.quantities[2 * slot];
+        int reservedQuantity = slot < 0 ? 0 : current.quantities[2 * slot + 1];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = slots;
+                slot = current.find(msb, lsb);
+                state = slot < 0 ? ABSENT : current.meta[slot] & STATE_MASK;
+                totalQuantity = slot < 0 ? 0 : current.quantities[2 * slot];
+                reservedQuantity = slot < 0 ? 0 : current.quantities[2 * slot + 1];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return state == LIVE || state == DELETED ? new InventoryDTO(productId, totalQuantity, reservedQuantity) : null;
+    }
+
+    /**
+     * Returns {@link #ABSENT}, {@link #LIVE}, {@link #DELETED} or {@link #STALE}.
+     */
+    public int state(UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        Slots current = slots;
+        int slot = current.find(msb, lsb);
+        int state = slot < 0 ? ABSENT : current.meta[slot] & STATE_MASK;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slot = slots.find(msb, lsb);
+                state = slot < 0 ? ABSENT : slots.meta[slot] & STATE_MASK;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return state;
+    }
+
+    public void put(UUID productId, int totalQuantity, int reservedQuantity, boolean deleted) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotFor(productId);
+            write(slot, slots.meta[slot] >>> STATE_BITS, totalQuantity, reservedQuantity, deleted);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Same as {@link #put} but leaves a product that already has a slot as it is.
+     */
+    public void putIfAbsent(UUID productId, int totalQuantity, int reservedQuantity, boolean deleted) {
+        long stamp = lock.writeLock();
+        try {
+            if (slots.find(productId.getMostSignificantBits(), productId.getLeastSignificantBits()) < 0) {
+                write(slotFor(productId), 0, totalQuantity, reservedQuantity, deleted);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the product stale and returns its new change stamp.
+     */
+    public int invalidate(UUID productId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotFor(productId);
+            int changes = (slots.meta[slot] >>> STATE_BITS) + 1;
+            slots.meta[slot] = changes << STATE_BITS | STALE;
+            return changes;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the change stamp of the product, -1 when it has no slot.
+     */
+    public int changes(UUID productId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slots.find(productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+            return slot < 0 ? -1 : slots.meta[slot] >>> STATE_BITS;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Same as {@link #put} but only while the product has not been invalidated since its stamp was {@code changes}.
+     * Returns whether the state was written.
+     */
+    public boolean putIfUnchanged(UUID productId, int changes, int totalQuantity, int reservedQuantity,
+                                  boolean deleted) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.find(productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+            if (slot < 0 ? changes != -1 : slots.meta[slot] >>> STATE_BITS != changes) {
+                return false;
+            }
+            if (slot < 0) {
+                slot = slotFor(productId);
+            }
+            write(slot, Math.max(changes, 0), totalQuantity, reservedQuantity, deleted);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long sizeInBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) slots.keys.length * Long.BYTES + (long) slots.quantities.length * Integer.BYTES
+                    + (long) slots.meta.length * Integer.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void write(int slot, int changes, int totalQuantity, int reservedQuantity, boolean deleted) {
+        slots.quantities[2 * slot] = totalQuantity;
+        slots.quantities[2 * slot + 1] = reservedQuantity;
+        slots.meta[slot] = changes << STATE_BITS | (deleted ? DELETED : LIVE);
+    }
+
+    // the slot holding the product, claimed and growing the table first when it has none; write lock held
+    private int slotFor(UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        int slot = slots.find(msb, lsb);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size + 1 > slots.meta.length * LOAD_FACTOR) {
+            slots = slots.grow();
+        }
+        slot = slots.claim(msb, lsb);
+        size++;
+        return slot;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long z = msb ^ Long.rotateLeft(lsb, 32);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    // meta is 0 for an empty slot; a claimed slot always has a state
+    private static final class Slots {
+
+        private final long[] keys;
+        private final int[] quantities;
+        private final int[] meta;
+        private final int mask;
+
+        Slots(int capacity) {
+            this.keys = new long[2 * capacity];
+            this.quantities = new int[2 * capacity];
+            this.meta = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int find(long msb, long lsb) {
+            for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+                if (meta[slot] == 0) {
+                    return -1;
+                }
+                if (keys[2 * slot] == msb && keys[2 * slot + 1] == lsb) {
+                    return slot;
+                }
+            }
+        }
+
+        int claim(long msb, long lsb) {
+            int slot = hash(msb, lsb) & mask;
+            while (meta[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[2 * slot] = msb;
+            keys[2 * slot + 1] = lsb;
+            meta[slot] = STALE;
+            return slot;
+        }
+
+        Slots grow() {
+            Slots grown = new Slots(meta.length * 2);
+            for (int slot = 0; slot < meta.length; slot++) {
+                if (meta[slot] != 0) {
+                    int moved = grown.claim(keys[2 * slot], keys[2 * slot + 1]);
+                    grown.quantities[2 * moved] = quantities[2 * slot];
+                    grown.quantities[2 * moved + 1] = quantities[2 * slot + 1];
+                    grown.meta[moved] = meta[slot];
+                }
+            }
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.mazadak.inventory_service.service.cache;
+
+import java.util.UUID;
+
+/**
+ * The columns of an inventory row the read model keeps, read without materialising the entity.
+ */
+public record InventoryAvailabilityRow(UUID productId, int totalQuantity, int reservedQuantity, boolean deleted,
+                                       int shardCount) {
+
+    public boolean sharded() {
+        return shardCount > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.mazadak.inventory_service.service.cache;
+
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@RemoteApplicationEventScan(basePackageClasses = InventoryCacheInvalidationEvent.class)
+public class InventoryCacheConfiguration {
+}
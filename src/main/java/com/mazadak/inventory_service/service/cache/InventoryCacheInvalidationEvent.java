@@ -0,0 +1,25 @@
+package com.mazadak.inventory_service.service.cache;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tells every replica, through the Spring Cloud Bus, to drop its cached reads of the given products.
+ */
+@Getter
+@NoArgsConstructor
+public class InventoryCacheInvalidationEvent extends RemoteApplicationEvent {
+
+    private List<UUID> productIds;
+
+    public InventoryCacheInvalidationEvent(Object source, String originService, Destination destination,
+                                           List<UUID> productIds) {
+        super(source, originService, destination);
+        this.productIds = productIds;
+    }
+}
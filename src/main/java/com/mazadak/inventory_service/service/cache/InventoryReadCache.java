@@ -0,0 +1,92 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of inventory lookups, bounded in size and expiring entries after {@code ttl-seconds}. Every
+ * committed change of a product drops its entries here and, over the Spring Cloud Bus, on every other replica;
+ * the TTL bounds how stale a replica that missed a broadcast can get.
+ */
+@Component
+@Slf4j
+public class InventoryReadCache {
+
+    private final Cache<UUID, InventoryDTO> inventories;
+    private final Cache<UUID, Boolean> existence;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BusProperties busProperties;
+    private final Destination.Factory destinationFactory;
+
+    public InventoryReadCache(@Value("${app.inventory.cache.max-size:100000}") long maxSize,
+                              @Value("${app.inventory.cache.ttl-seconds:30}") long ttlSeconds,
+                              ApplicationEventPublisher applicationEventPublisher,
+                              BusProperties busProperties,
+                              Destination.Factory destinationFactory,
+                              MeterRegistry meterRegistry) {
+        this.inventories = CaffeineCacheMetrics.monitor(meterRegistry, cache(maxSize, ttlSeconds), "inventory");
+        this.existence = CaffeineCacheMetrics.monitor(meterRegistry, cache(maxSize, ttlSeconds), "inventory-exists");
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.busProperties = busProperties;
+        this.destinationFactory = destinationFactory;
+    }
+
+    private static <V> Cache<UUID, V> cache(long maxSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public InventoryDTO getInventory(UUID productId, Function<UUID, InventoryDTO> loader) {
+        return inventories.get(productId, loader);
+    }
+
+    public Boolean exists(UUID productId, Function<UUID, Boolean> loader) {
+        return existence.get(productId, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        broadcast(event.productIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockFreed(StockFreedEvent event) {
+        broadcast(event.productIds());
+    }
+
+    // addressed to every replica and also delivered to this one's own listener, so local and remote entries are
+    // dropped the same way
+    private void broadcast(Collection<UUID> productIds) {
+        applicationEventPublisher.publishEvent(new InventoryCacheInvalidationEvent(
+                this, busProperties.getId(), destinationFactory.getDestination(null), List.copyOf(productIds)));
+    }
+
+    @EventListener
+    public void onInvalidation(InventoryCacheInvalidationEvent event) {
+        log.debug("Dropping cached inventory of {} products", event.getProductIds().size());
+        inventories.invalidateAll(event.getProductIds());
+        existence.invalidateAll(event.getProductIds());
+    }
+}
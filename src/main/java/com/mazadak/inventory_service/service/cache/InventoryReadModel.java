@@ -0,0 +1,262 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-process replica of the quantities of every product, held in an {@link AvailabilityTable} so the hottest
+ * reads are answered without a query or an entity. Disabled unless {@code app.inventory.read-model.enabled}; until
+ * the bulk load that starts once the application is ready completes, every read goes to the loader.
+ * <p>
+ * Every change committed on any replica reaches {@link #onInvalidation} through the cache invalidation broadcast,
+ * which marks its products stale, so reads of them go to the loader, and queues them to be read back in batches.
+ * A full reload every {@code reload-interval-ms} repairs products whose invalidation was lost.
+ */
+@Component
+@Slf4j
+public class InventoryReadModel {
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository inventoryShardRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int expectedProducts;
+    private final long reloadIntervalMs;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-read-model");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter hits;
+    private final Counter misses;
+    private volatile AvailabilityTable current;
+    private AvailabilityTable building;
+    private final Set<UUID> invalidatedWhileBuilding = new HashSet<>();
+
+    public InventoryReadModel(InventoryRepository inventoryRepository,
+                              InventoryShardRepository inventoryShardRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.inventory.read-model.enabled:false}") boolean enabled,
+                              @Value("${app.inventory.read-model.expected-products:1000000}") int expectedProducts,
+                              @Value("${app.inventory.read-model.reload-interval-ms:3600000}") long reloadIntervalMs,
+                              MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryShardRepository = inventoryShardRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedProducts = expectedProducts;
+        this.reloadIntervalMs = reloadIntervalMs;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("inventory.read-model.products", this, model -> model.measure(AvailabilityTable::size))
+                .description("Products held by the inventory read model")
+                .register(meterRegistry);
+        Gauge.builder("inventory.read-model.bytes", this, model -> model.measure(AvailabilityTable::sizeInBytes))
+                .description("Memory held by the inventory read model")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.read-model.lookups")
+                .description("Inventory reads answered by the read model (hit) or passed to the database (miss)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private double measure(Function<AvailabilityTable, Number> metric) {
+        AvailabilityTable table = current;
+        return table == null ? Double.NaN : metric.apply(table).doubleValue();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            loader.scheduleWithFixedDelay(this::reload, 0, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    public InventoryDTO getInventory(UUID productId, Function<UUID, InventoryDTO> loader) {
+        AvailabilityTable table = current;
+        InventoryDTO inventory = table == null ? null : table.get(productId);
+        if (inventory == null) {
+            if (table != null) {
+                misses.increment();
+            }
+            return loader.apply(productId);
+        }
+        hits.increment();
+        return inventory;
+    }
+
+    public Boolean exists(UUID productId, Function<UUID, Boolean> loader) {
+        AvailabilityTable table = current;
+        if (table == null) {
+            return loader.apply(productId);
+        }
+        int state = table.state(productId);
+        if (state == AvailabilityTable.STALE) {
+            misses.increment();
+            return loader.apply(productId);
+        }
+        hits.increment();
+        return state == AvailabilityTable.LIVE;
+    }
+
+    @EventListener
+    public void onInvalidation(InventoryCacheInvalidationEvent event) {
+        invalidate(event.getProductIds());
+    }
+
+    synchronized void invalidate(Collection<UUID> productIds) {
+        if (current == null && building == null) {
+            return;
+        }
+        for (UUID productId : productIds) {
+            if (current != null) {
+                current.invalidate(productId);
+            }
+            // the load may have read this product already, it is read again once the load is swapped in
+            if (building != null) {
+                building.invalidate(productId);
+                invalidatedWhileBuilding.add(productId);
+            }
+        }
+        if (current != null) {
+            pending.addAll(productIds);
+            if (refreshScheduled.compareAndSet(false, true)) {
+                loader.execute(this::refresh);
+            }
+        }
+    }
+
+    void reload() {
+        long begin = System.nanoTime();
+        AvailabilityTable previous = current;
+        AvailabilityTable next = new AvailabilityTable(Math.max(expectedProducts, previous == null ? 0 : previous.size()));
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            List<UUID> sharded = new ArrayList<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<InventoryAvailabilityRow> rows = inventoryRepository.streamAvailability()) {
+                    rows.forEach(row -> {
+                        if (row.sharded()) {
+                            sharded.add(row.productId());
+                        } else {
+                            // a product invalidated meanwhile already has a stale slot and keeps it
+                            next.putIfAbsent(row.productId(), row.totalQuantity(), row.reservedQuantity(), row.deleted());
+                        }
+                    });
+                }
+            });
+            for (int from = 0; from < sharded.size(); from += REFRESH_BATCH_SIZE) {
+                List<UUID> batch = sharded.subList(from, Math.min(from + REFRESH_BATCH_SIZE, sharded.size()));
+                for (InventoryAvailabilityRow row : read(batch)) {
+                    next.putIfAbsent(row.productId(), row.totalQuantity(), row.reservedQuantity(), row.deleted());
+                }
+            }
+            synchronized (this) {
+                current = next;
+                pending.addAll(invalidatedWhileBuilding);
+            }
+            log.info("Loaded {} products into the inventory read model, {} bytes, in {} ms", next.size(),
+                    next.sizeInBytes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load the inventory read model, keeping the previous one", e);
+        } finally {
+            synchronized (this) {
+                building = null;
+                invalidatedWhileBuilding.clear();
+            }
+        }
+        refresh();
+    }
+
+    // reads back stale products in batches; runs on the loader thread only
+    void refresh() {
+        refreshScheduled.set(false);
+        AvailabilityTable table = current;
+        if (table == null) {
+            return;
+        }
+        List<UUID> batch = new ArrayList<>(REFRESH_BATCH_SIZE);
+        Iterator<UUID> productIds = pending.iterator();
+        while (productIds.hasNext()) {
+            batch.add(productIds.next());
+            productIds.remove();
+            if (batch.size() == REFRESH_BATCH_SIZE || !productIds.hasNext()) {
+                refresh(table, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void refresh(AvailabilityTable table, List<UUID> productIds) {
+        Map<UUID, Integer> changes = new HashMap<>();
+        for (UUID productId : productIds) {
+            changes.put(productId, table.changes(productId));
+        }
+        try {
+            // a product invalidated again while this runs stays stale, its new invalidation queued it once more
+            for (InventoryAvailabilityRow row : read(productIds)) {
+                table.putIfUnchanged(row.productId(), changes.get(row.productId()), row.totalQuantity(),
+                        row.reservedQuantity(), row.deleted());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh {} products of the inventory read model, they stay stale", productIds.size(), e);
+        }
+    }
+
+    // the rows of the given products, with the shard sums in place of the row quantities of sharded ones
+    private List<InventoryAvailabilityRow> read(Collection<UUID> productIds) {
+        List<InventoryAvailabilityRow> rows = inventoryRepository.findAvailabilityByProductIdIn(productIds);
+        List<UUID> sharded = rows.stream().filter(InventoryAvailabilityRow::sharded)
+                .map(InventoryAvailabilityRow::productId).toList();
+        if (sharded.isEmpty()) {
+            return rows;
+        }
+        Map<UUID, InventoryDTO> sums = new HashMap<>();
+        for (InventoryDTO sum : inventoryShardRepository.sumByProductIdIn(sharded)) {
+            sums.put(sum.productId(), sum);
+        }
+        return rows.stream()
+                .map(row -> !row.sharded() ? row : new InventoryAvailabilityRow(row.productId(),
+                        sums.containsKey(row.productId()) ? sums.get(row.productId()).totalQuantity() : 0,
+                        sums.containsKey(row.productId()) ? sums.get(row.productId()).reservedQuantity() : 0,
+                        row.deleted(), row.shardCount()))
+                .toList();
+    }
+}
@@ -0,0 +1,178 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the products that have a live inventory, answering existence checks for unknown products without
+ * a query. It is built from a streaming scan once the application is ready and rebuilt every
+ * {@code rebuild-interval-ms}; until the first build completes every check goes to the database.
+ * <p>
+ * A product is added as soon as a transaction on this replica creates or restores it, before it commits, and when
+ * the cache invalidation of a change committed on another replica arrives over the bus. A Bloom filter cannot
+ * forget, so deleted products keep answering "maybe" until the next rebuild drops them; that costs a query, never
+ * a wrong answer.
+ */
+@Component
+@Slf4j
+public class LiveProductFilter {
+
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long initialCapacity;
+    private final double fpp;
+    private final long rebuildIntervalMs;
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-product-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+    private volatile ScalableBloomFilter current;
+    private volatile ScalableBloomFilter building;
+
+    public LiveProductFilter(InventoryRepository inventoryRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.inventory.exists-filter.initial-capacity:100000}") long initialCapacity,
+                             @Value("${app.inventory.exists-filter.fpp:0.001}") double fpp,
+                             @Value("${app.inventory.exists-filter.rebuild-interval-ms:600000}") long rebuildIntervalMs,
+                             MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.initialCapacity = initialCapacity;
+        this.fpp = fpp;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.negatives = lookups(meterRegistry, "negative");
+        this.positives = lookups(meterRegistry, "positive");
+        this.falsePositives = lookups(meterRegistry, "false-positive");
+        Gauge.builder("inventory.exists.filter.bytes", this, filter -> filter.measure(ScalableBloomFilter::sizeInBytes))
+                .description("Memory held by the live product filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("inventory.exists.filter.products", this, filter -> filter.measure(ScalableBloomFilter::size))
+                .description("Products added to the live product filter since it was last built")
+                .register(meterRegistry);
+        Gauge.builder("inventory.exists.filter.fpp", this, filter -> filter.measure(ScalableBloomFilter::expectedFpp))
+                .description("False-positive probability implied by the bits set in the live product filter")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.exists.filter.lookups")
+                .description("Existence checks answered by the live product filter, by result; the observed "
+                        + "false-positive rate is false-positive / (false-positive + negative)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private double measure(Function<ScalableBloomFilter, Number> metric) {
+        ScalableBloomFilter filter = current;
+        return filter == null ? Double.NaN : metric.apply(filter).doubleValue();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Returns false without calling {@code loader} when the product certainly has no live inventory.
+     */
+    public Boolean exists(UUID productId, Function<UUID, Boolean> loader) {
+        ScalableBloomFilter filter = current;
+        if (filter == null) {
+            return loader.apply(productId);
+        }
+        if (!filter.mightContain(productId)) {
+            negatives.increment();
+            return false;
+        }
+        Boolean exists = loader.apply(productId);
+        (Boolean.TRUE.equals(exists) ? positives : falsePositives).increment();
+        return exists;
+    }
+
+    // synchronous, so a product is in the filter before the transaction creating it commits
+    @EventListener
+    public void onStockFreed(StockFreedEvent event) {
+        add(event.productIds());
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        add(event.productIds());
+    }
+
+    @EventListener
+    public void onInvalidation(InventoryCacheInvalidationEvent event) {
+        add(event.getProductIds());
+    }
+
+    private synchronized void add(Collection<UUID> productIds) {
+        for (UUID productId : productIds) {
+            if (current != null) {
+                current.put(productId);
+            }
+            // a rebuild may have read past this product already
+            if (building != null) {
+                building.put(productId);
+            }
+        }
+    }
+
+    void rebuild() {
+        long begin = System.nanoTime();
+        ScalableBloomFilter previous = current;
+        ScalableBloomFilter next = new ScalableBloomFilter(
+                Math.max(initialCapacity, previous == null ? 0 : previous.size()), fpp);
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UUID> productIds = inventoryRepository.streamLiveProductIds()) {
+                    productIds.forEach(next::put);
+                }
+            });
+            synchronized (this) {
+                current = next;
+            }
+            log.info("Built live product filter of {} products, {} bytes in {} stages, in {} ms", next.size(),
+                    next.sizeInBytes(), next.stageCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild the live product filter, keeping the previous one", e);
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mazadak.inventory_service.service.cache;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of UUIDs that grows instead of degrading: once a stage holds the number of ids it was sized for, a
+ * new stage of twice the capacity and half the false-positive probability takes the next ones, so the overall
+ * probability stays below twice that of the first stage however many ids are added. Writes are serialized, reads
+ * take no lock.
+ */
+final class ScalableBloomFilter {
+
+    private final double fpp;
+    private volatile Stage[] stages;
+    private long size;
+
+    /**
+     * @param capacity ids the first stage is sized for
+     * @param fpp      false-positive probability the filter stays below
+     */
+    ScalableBloomFilter(long capacity, double fpp) {
+        this.fpp = fpp;
+        this.stages = new Stage[]{new Stage(capacity, fpp / 2)};
+    }
+
+    boolean mightContain(UUID id) {
+        long h1 = hash1(id);
+        long h2 = hash2(id);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the id was new to the filter.
+     */
+    synchronized boolean put(UUID id) {
+        if (mightContain(id)) {
+            return false;
+        }
+        Stage last = stages[stages.length - 1];
+        if (last.size >= last.capacity) {
+            last = new Stage(last.capacity * 2, last.fpp / 2);
+            Stage[] grown = Arrays.copyOf(stages, stages.length + 1);
+            grown[grown.length - 1] = last;
+            stages = grown;
+        }
+        last.put(hash1(id), hash2(id));
+        size++;
+        return true;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    double targetFpp() {
+        return fpp;
+    }
+
+    /**
+     * The false-positive probability implied by the bits currently set in every stage.
+     */
+    synchronized double expectedFpp() {
+        double none = 1;
+        for (Stage stage : stages) {
+            none *= 1 - stage.expectedFpp();
+        }
+        return 1 - none;
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.bits.length() * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    int stageCount() {
+        return stages.length;
+    }
+
+    // Kirsch-Mitzenmacher: k probes derived from two independent 64-bit hashes of the id
+    private static long hash1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+    }
+
+    private static long hash2(UUID id) {
+        return mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L * id.getMostSignificantBits()) | 1;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double fpp;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+        private long size;
+        private long bitsSet;
+
+        Stage(long capacity, double fpp) {
+            this.capacity = Math.max(1, capacity);
+            this.fpp = fpp;
+            long optimalBits = (long) Math.ceil(-this.capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = Math.toIntExact(Math.max(1, (optimalBits + 63) / 64));
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / this.capacity * Math.log(2)));
+        }
+
+        boolean mightContain(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++, combined += h2) {
+                long index = Long.remainderUnsigned(combined, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++, combined += h2) {
+                long index = Long.remainderUnsigned(combined, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current = bits.get(word);
+                if ((current & mask) == 0) {
+                    bits.set(word, current | mask);
+                    bitsSet++;
+                }
+            }
+            size++;
+        }
+
+        double expectedFpp() {
+            return Math.pow((double) bitsSet / bitCount, hashes);
+        }
+    }
+}
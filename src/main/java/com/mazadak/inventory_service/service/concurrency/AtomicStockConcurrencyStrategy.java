@@ -0,0 +1,107 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Reads the inventory rows without locking them and reserves with one guarded {@code UPDATE} per product,
+ * so the database decides availability and nothing has to be retried. Products are updated in productId
+ * order; if one of them is short, the ones already reserved by the request are handed back.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.concurrency.strategy", havingValue = "atomic")
+@Slf4j
+public class AtomicStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final InventoryRepository inventoryRepository;
+    private final int maxAttempts;
+    private final Timer lockWait;
+
+    public AtomicStockConcurrencyStrategy(InventoryRepository inventoryRepository,
+                                          @Value("${app.inventory.concurrency.max-attempts:5}") int maxAttempts,
+                                          MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.maxAttempts = maxAttempts;
+        this.lockWait = Timer.builder("inventory.concurrency.lock.wait")
+                .description("Time spent acquiring inventory row locks")
+                .tag("strategy", "atomic")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> mutation) {
+        return mutation.get();
+    }
+
+    @Override
+    public List<Inventory> loadInventories(Collection<UUID> productIds) {
+        return inventoryRepository.findUnshardedByProductIdIn(productIds);
+    }
+
+    @Override
+    public void reserve(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities) {
+        Map<UUID, Integer> reserved = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Integer> requested : new TreeMap<>(requestedQuantities).entrySet()) {
+            UUID productId = requested.getKey();
+            int quantity = requested.getValue();
+            Inventory inventory = inventories.get(productId);
+            if (inventory == null || lockWait.record(() -> inventoryRepository.reserveStock(inventory.getInventoryId(), quantity)) == 0) {
+                reserved.forEach((reservedProductId, reservedQuantity) -> inventoryRepository.releaseReservedStock(
+                        inventories.get(reservedProductId).getInventoryId(), reservedQuantity));
+                // the loaded row predates the failed update, so report what the update actually found
+                int availableQuantity = inventory == null ? 0
+                        : inventoryRepository.findAvailableQuantity(inventory.getInventoryId());
+                throw new NotEnoughStockException(productId, quantity, availableQuantity);
+            }
+            reserved.put(productId, quantity);
+        }
+    }
+
+    // the loaded rows are not locked, so a failed update re-reads the current availability and asks for that instead;
+    // a product still losing the race after the last attempt is granted nothing
+    @Override
+    public Map<UUID, Integer> reserveAvailable(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities,
+                                               Map<UUID, Integer> minimumQuantities) {
+        Map<UUID, Integer> granted = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Integer> requested : new TreeMap<>(requestedQuantities).entrySet()) {
+            UUID productId = requested.getKey();
+            int quantity = requested.getValue();
+            int minimumQuantity = minimumQuantities.get(productId);
+            Inventory inventory = inventories.get(productId);
+            int availableQuantity = inventory == null ? 0 : inventory.getTotalQuantity() - inventory.getReservedQuantity();
+            int grantedQuantity = Math.min(quantity, availableQuantity);
+            boolean reserved = false;
+            for (int attempt = 1; attempt <= maxAttempts && grantedQuantity > 0 && grantedQuantity >= minimumQuantity; attempt++) {
+                int attemptedQuantity = grantedQuantity;
+                if (lockWait.record(() -> inventoryRepository.reserveStock(inventory.getInventoryId(), attemptedQuantity)) > 0) {
+                    reserved = true;
+                    break;
+                }
+                grantedQuantity = Math.min(quantity, inventoryRepository.findAvailableQuantity(inventory.getInventoryId()));
+            }
+            if (!reserved) {
+                log.info("Granting nothing of product {} after asking for {}", productId, grantedQuantity);
+            }
+            if ((reserved ? grantedQuantity : 0) < minimumQuantity) {
+                granted.forEach((grantedProductId, grantedAmount) -> {
+                    if (grantedAmount > 0) {
+                        inventoryRepository.releaseReservedStock(inventories.get(grantedProductId).getInventoryId(), grantedAmount);
+                    }
+                });
+                throw new NotEnoughStockException(productId, quantity, grantedQuantity);
+            }
+            granted.put(productId, reserved ? grantedQuantity : 0);
+        }
+        return granted;
+    }
+}
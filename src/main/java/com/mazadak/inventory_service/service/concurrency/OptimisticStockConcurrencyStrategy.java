@@ -0,0 +1,47 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Reads the inventory rows without locking them and relies on {@link Inventory#getVersion()} to reject a commit
+ * that raced with another writer. The whole mutation is then retried with bounded jittered backoff.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.concurrency.strategy", havingValue = "optimistic")
+public class OptimisticStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockConflictRetrier retrier;
+
+    public OptimisticStockConcurrencyStrategy(InventoryRepository inventoryRepository,
+                                              @Value("${app.inventory.concurrency.max-attempts:5}") int maxAttempts,
+                                              @Value("${app.inventory.concurrency.backoff-ms:5}") long backoffMillis,
+                                              MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.retrier = new StockConflictRetrier("optimistic", maxAttempts, backoffMillis,
+                e -> e instanceof OptimisticLockingFailureException || e instanceof OptimisticLockException,
+                meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> mutation) {
+        return retrier.execute(mutation);
+    }
+
+    @Override
+    public List<Inventory> loadInventories(Collection<UUID> productIds) {
+        return inventoryRepository.findUnshardedByProductIdIn(productIds);
+    }
+}
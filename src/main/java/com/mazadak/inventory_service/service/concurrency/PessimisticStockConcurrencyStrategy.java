@@ -0,0 +1,57 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Write-locks the inventory rows before checking them. By default a locked row is waited for; with
+ * {@code app.inventory.concurrency.nowait} the lock is taken with {@code NOWAIT} and the mutation is retried
+ * with jittered backoff instead, so no connection sits blocked behind a hot row.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.concurrency.strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final InventoryRepository inventoryRepository;
+    private final boolean nowait;
+    private final StockConflictRetrier retrier;
+    private final Timer lockWait;
+
+    public PessimisticStockConcurrencyStrategy(InventoryRepository inventoryRepository,
+                                               @Value("${app.inventory.concurrency.nowait:false}") boolean nowait,
+                                               @Value("${app.inventory.concurrency.max-attempts:5}") int maxAttempts,
+                                               @Value("${app.inventory.concurrency.backoff-ms:5}") long backoffMillis,
+                                               MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.nowait = nowait;
+        this.retrier = new StockConflictRetrier("pessimistic", maxAttempts, backoffMillis,
+                PessimisticLockingFailureException.class::isInstance, meterRegistry);
+        this.lockWait = Timer.builder("inventory.concurrency.lock.wait")
+                .description("Time spent acquiring inventory row locks")
+                .tag("strategy", "pessimistic")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> mutation) {
+        return nowait ? retrier.execute(mutation) : mutation.get();
+    }
+
+    @Override
+    public List<Inventory> loadInventories(Collection<UUID> productIds) {
+        return lockWait.record(() -> nowait
+                ? inventoryRepository.lockUnshardedByProductIdInNowait(productIds)
+                : inventoryRepository.lockUnshardedByProductIdIn(productIds));
+    }
+}
@@ -0,0 +1,73 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.model.Inventory;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Decides how concurrent reservations of the same stock are kept from overwriting each other.
+ * The implementation is chosen per deployment with {@code app.inventory.concurrency.strategy}.
+ */
+public interface StockConcurrencyStrategy {
+
+    /**
+     * Runs a whole stock mutation, including its transaction, retrying it while the strategy reports a conflict.
+     */
+    <T> T execute(Supplier<T> mutation);
+
+    /**
+     * Loads the unsharded inventories of the given products inside the current transaction.
+     */
+    List<Inventory> loadInventories(Collection<UUID> productIds);
+
+    /**
+     * Reserves every requested quantity or none of them, throwing {@link NotEnoughStockException} for the first
+     * product that is short. The default checks and updates the loaded entities in memory.
+     */
+    default void reserve(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities) {
+        requestedQuantities.forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            int availableQuantity = inventory == null ? 0 : inventory.getTotalQuantity() - inventory.getReservedQuantity();
+            if (availableQuantity < quantity) {
+                throw new NotEnoughStockException(productId, quantity, availableQuantity);
+            }
+        });
+
+        requestedQuantities.forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
+        });
+    }
+
+    /**
+     * Reserves as much of every requested quantity as is available, but no less than its minimum, and returns
+     * the quantity granted for every product. Throws {@link NotEnoughStockException}, reserving nothing, for the
+     * first product that cannot cover its minimum.
+     */
+    default Map<UUID, Integer> reserveAvailable(Map<UUID, Inventory> inventories, Map<UUID, Integer> requestedQuantities,
+                                                Map<UUID, Integer> minimumQuantities) {
+        Map<UUID, Integer> grantedQuantities = new LinkedHashMap<>();
+        requestedQuantities.forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            int availableQuantity = inventory == null ? 0 : inventory.getTotalQuantity() - inventory.getReservedQuantity();
+            if (availableQuantity < minimumQuantities.get(productId)) {
+                throw new NotEnoughStockException(productId, quantity, availableQuantity);
+            }
+            grantedQuantities.put(productId, Math.min(quantity, availableQuantity));
+        });
+
+        grantedQuantities.forEach((productId, quantity) -> {
+            if (quantity > 0) {
+                Inventory inventory = inventories.get(productId);
+                inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
+            }
+        });
+        return grantedQuantities;
+    }
+}
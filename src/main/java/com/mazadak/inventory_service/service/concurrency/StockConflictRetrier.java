@@ -0,0 +1,72 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry with full-jitter exponential backoff, shared by the strategies that detect conflicts
+ * instead of waiting them out.
+ */
+@Slf4j
+class StockConflictRetrier {
+
+    private final String strategy;
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final Predicate<RuntimeException> isConflict;
+    private final Counter retries;
+    private final Counter exhausted;
+    private final DistributionSummary attempts;
+
+    StockConflictRetrier(String strategy, int maxAttempts, long backoffMillis,
+                         Predicate<RuntimeException> isConflict, MeterRegistry meterRegistry) {
+        this.strategy = strategy;
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+        this.isConflict = isConflict;
+        this.retries = Counter.builder("inventory.concurrency.retries")
+                .description("Stock mutations retried after a concurrency conflict")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("inventory.concurrency.retries.exhausted")
+                .description("Stock mutations that still conflicted after the last attempt")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+        this.attempts = DistributionSummary.builder("inventory.concurrency.attempts")
+                .description("Attempts needed per stock mutation")
+                .tag("strategy", strategy)
+                .register(meterRegistry);
+    }
+
+    <T> T execute(Supplier<T> mutation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = mutation.get();
+                attempts.record(attempt);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict.test(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    log.error("Stock mutation still conflicting after {} {} attempts", attempt, strategy);
+                    exhausted.increment();
+                    attempts.record(attempt);
+                    throw e;
+                }
+                log.info("Stock mutation conflicted on attempt {}, retrying", attempt);
+                retries.increment();
+                long ceiling = backoffNanos << Math.min(attempt - 1, 10);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            }
+        }
+    }
+}
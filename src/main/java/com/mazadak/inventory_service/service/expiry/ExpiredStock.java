@@ -0,0 +1,13 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import java.util.UUID;
+
+/**
+ * Reserved quantity held by a chunk of expired reservations on one inventory row, or on one shard of it.
+ */
+public record ExpiredStock(UUID inventoryId, UUID productId, int shardCount, Integer shardIndex, int quantity) {
+
+    public boolean isSharded() {
+        return shardCount > 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Splits reservation expiry between the live replicas. Every replica holds a membership lock, and each expiry
+ * partition is owned by whoever holds its lock, so no two replicas ever sweep the same partition. On every
+ * {@link #rebalance()} a replica gives up partitions above its fair share and takes free ones up to it, which
+ * moves the work around as pods come and go; a pod that dies loses its locks with its database session, and a pod
+ * whose session was replaced takes its locks again from scratch. Only works on Postgres.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reservation.expiry-partitions.enabled", havingValue = "true")
+@Slf4j
+public class ExpiryPartitionCoordinator {
+
+    static final int MEMBER_NAMESPACE = 0x52455331;
+    static final int PARTITION_NAMESPACE = 0x52455332;
+
+    private final PartitionLocks partitionLocks;
+    private final int partitionCount;
+    private final TreeSet<Integer> ownedPartitions = new TreeSet<>();
+    private boolean member;
+
+    @Autowired
+    public ExpiryPartitionCoordinator(DataSourceProperties dataSourceProperties,
+                                      @Value("${app.reservation.expiry-partitions.count:16}") int partitionCount) {
+        this(new PostgresAdvisoryPartitionLocks(dataSourceProperties), partitionCount);
+    }
+
+    ExpiryPartitionCoordinator(PartitionLocks partitionLocks, int partitionCount) {
+        this.partitionLocks = partitionLocks;
+        this.partitionCount = partitionCount;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Brings the partitions owned by this replica to its fair share and returns them.
+     */
+    public synchronized Set<Integer> rebalance() {
+        try {
+            if (partitionLocks.connect()) {
+                // a new session holds none of the locks this replica thought it owned
+                ownedPartitions.clear();
+                member = false;
+            }
+            join();
+            int members = Math.max(1, partitionLocks.countHeld(MEMBER_NAMESPACE));
+            int fairShare = (partitionCount + members - 1) / members;
+
+            while (ownedPartitions.size() > fairShare) {
+                int partition = ownedPartitions.pollLast();
+                partitionLocks.unlock(PARTITION_NAMESPACE, partition);
+            }
+            int start = ThreadLocalRandom.current().nextInt(partitionCount);
+            for (int i = 0; i < partitionCount && ownedPartitions.size() < fairShare; i++) {
+                int partition = (start + i) % partitionCount;
+                if (!ownedPartitions.contains(partition) && partitionLocks.tryLock(PARTITION_NAMESPACE, partition)) {
+                    ownedPartitions.add(partition);
+                }
+            }
+            log.debug("Owning expiry partitions {} of {} as one of {} replicas", ownedPartitions, partitionCount, members);
+            return Collections.unmodifiableSet(new TreeSet<>(ownedPartitions));
+        } catch (RuntimeException e) {
+            log.error("Lost the expiry partition locks, starting over on the next rebalance", e);
+            leave();
+            return Set.of();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void leave() {
+        ownedPartitions.clear();
+        member = false;
+        partitionLocks.close();
+    }
+
+    private void join() {
+        while (!member) {
+            member = partitionLocks.tryLock(MEMBER_NAMESPACE, ThreadLocalRandom.current().nextInt());
+        }
+    }
+}
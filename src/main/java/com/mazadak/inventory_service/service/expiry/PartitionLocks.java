@@ -0,0 +1,27 @@
+package com.mazadak.inventory_service.service.expiry;
+
+/**
+ * Exclusive locks owned by this replica until they are unlocked or the replica goes away.
+ */
+interface PartitionLocks {
+
+    /**
+     * Makes sure the session holding the locks is alive, opening a new one when it is not. Returns {@code true}
+     * when a new session was opened, in which case every lock held before is gone.
+     */
+    boolean connect();
+
+    boolean tryLock(int namespace, int key);
+
+    void unlock(int namespace, int key);
+
+    /**
+     * Counts the locks currently held in the namespace, by any replica.
+     */
+    int countHeld(int namespace);
+
+    /**
+     * Gives up every lock held by this replica.
+     */
+    void close();
+}
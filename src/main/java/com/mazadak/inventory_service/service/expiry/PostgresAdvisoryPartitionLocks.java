@@ -0,0 +1,101 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Session-level Postgres advisory locks held on one connection opened next to the pool rather than borrowed from
+ * it, so they live exactly as long as this replica's session does: if the pod dies, the database drops its locks
+ * with the connection.
+ */
+class PostgresAdvisoryPartitionLocks implements PartitionLocks {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSourceProperties dataSourceProperties;
+    private Connection connection;
+
+    PostgresAdvisoryPartitionLocks(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @Override
+    public boolean connect() {
+        try {
+            if (connection != null && connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return false;
+            }
+            close();
+            connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+            connection.setAutoCommit(true);
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open the advisory lock session", e);
+        }
+    }
+
+    @Override
+    public boolean tryLock(int namespace, int key) {
+        return queryBoolean("SELECT pg_try_advisory_lock(?, ?)", namespace, key);
+    }
+
+    @Override
+    public void unlock(int namespace, int key) {
+        queryBoolean("SELECT pg_advisory_unlock(?, ?)", namespace, key);
+    }
+
+    @Override
+    public int countHeld(int namespace) {
+        try (PreparedStatement statement = connection().prepareStatement("""
+                SELECT count(*) FROM pg_locks
+                WHERE locktype = 'advisory' AND objsubid = 2 AND granted AND classid::bigint = ?
+                """)) {
+            statement.setLong(1, namespace);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not count advisory locks", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // the session is gone either way
+            }
+            connection = null;
+        }
+    }
+
+    private boolean queryBoolean(String sql, int namespace, int key) {
+        try (PreparedStatement statement = connection().prepareStatement(sql)) {
+            statement.setInt(1, namespace);
+            statement.setInt(2, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Advisory lock call failed", e);
+        }
+    }
+
+    // never reconnects on its own, since a new session would silently hold none of the locks
+    private Connection connection() {
+        if (connection == null) {
+            throw new IllegalStateException("No advisory lock session");
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ReservationDeadline(UUID reservationId, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,153 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import com.mazadak.inventory_service.event.ReservationExpiryEvent;
+import com.mazadak.inventory_service.model.enums.ReservationStatus;
+import com.mazadak.inventory_service.repository.InventoryReservationRepository;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Expires reservations within a tick of their {@code expiresAt} instead of waiting for the next table scan.
+ * Pending reservations are loaded into a {@link TimingWheel} a page at a time once the application is ready, and
+ * kept in step by the reservations created, confirmed and released on this replica. Anything the wheel misses, such
+ * as reservations created on other replicas, is left to the regular sweep of {@code ReservationExpirationScheduler}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reservation.expiry-wheel.enabled", havingValue = "true")
+@Slf4j
+public class ReservationExpiryWheel {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final InventoryReservationRepository inventoryReservationRepository;
+    private final InventoryReservationServiceImpl inventoryReservationService;
+    private final long tickMillis;
+    private final int batchSize;
+    private final int loadPageSize;
+    private final TimingWheel<UUID> wheel;
+    private final Timer expiryLag;
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    public ReservationExpiryWheel(InventoryReservationRepository inventoryReservationRepository,
+                                  InventoryReservationServiceImpl inventoryReservationService,
+                                  @Value("${app.reservation.expiry-wheel.tick-ms:10}") long tickMillis,
+                                  @Value("${app.reservation.expiry-wheel.wheel-size:512}") int wheelSize,
+                                  @Value("${app.reservation.expiry-wheel.batch-size:100}") int batchSize,
+                                  @Value("${app.reservation.expiry-wheel.load-page-size:1000}") int loadPageSize,
+                                  MeterRegistry meterRegistry) {
+        this.inventoryReservationRepository = inventoryReservationRepository;
+        this.inventoryReservationService = inventoryReservationService;
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        this.loadPageSize = loadPageSize;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, 4, System.currentTimeMillis());
+        this.expiryLag = Timer.builder("inventory.reservation.expiry.lag")
+                .description("Time from a reservation's expiresAt to its release")
+                .register(meterRegistry);
+        Gauge.builder("inventory.reservation.expiry.wheel.size", this, ReservationExpiryWheel::size)
+                .description("Reservations waiting in the expiry wheel")
+                .register(meterRegistry);
+        this.ticker = new Thread(this::run, "reservation-expiry-wheel");
+        this.ticker.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // the ticker starts first so deadlines already due do not wait for the rest of the pages
+        ticker.start();
+        int loaded = 0;
+        List<ReservationDeadline> deadlines;
+        UUID afterId = new UUID(0, 0);
+        do {
+            deadlines = inventoryReservationRepository.findDeadlinesByStatus(ReservationStatus.RESERVED, afterId,
+                    PageRequest.of(0, loadPageSize));
+            synchronized (wheel) {
+                for (ReservationDeadline deadline : deadlines) {
+                    wheel.schedule(deadline.reservationId(), toMillis(deadline.expiresAt()));
+                }
+            }
+            loaded += deadlines.size();
+            if (!deadlines.isEmpty()) {
+                afterId = deadlines.get(deadlines.size() - 1).reservationId();
+            }
+        } while (deadlines.size() == loadPageSize);
+        log.info("Loaded {} pending reservations into the expiry wheel", loaded);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationExpiry(ReservationExpiryEvent event) {
+        synchronized (wheel) {
+            event.scheduled().forEach((reservationId, expiresAt) -> wheel.schedule(reservationId, toMillis(expiresAt)));
+            event.closed().forEach(wheel::cancel);
+        }
+    }
+
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(tickMillis));
+            List<UUID> expired = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            synchronized (wheel) {
+                wheel.advance(now, (reservationId, deadline) -> {
+                    expired.add(reservationId);
+                    expiryLag.record(now - deadline, TimeUnit.MILLISECONDS);
+                });
+            }
+            for (int from = 0; from < expired.size(); from += batchSize) {
+                expire(expired.subList(from, Math.min(from + batchSize, expired.size())));
+            }
+        }
+    }
+
+    private void expire(List<UUID> reservationIds) {
+        try {
+            inventoryReservationService.expireReservations(reservationIds);
+        } catch (RuntimeException e) {
+            log.warn("Expiring a batch of {} reservations failed, expiring them one at a time", reservationIds.size(), e);
+            for (UUID reservationId : reservationIds) {
+                try {
+                    inventoryReservationService.expireReservations(List.of(reservationId));
+                } catch (RuntimeException ex) {
+                    // left to the sweep
+                    log.error("Failed to expire reservation ID: {}", reservationId, ex);
+                }
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
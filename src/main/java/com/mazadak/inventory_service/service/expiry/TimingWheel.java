@@ -0,0 +1,121 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hierarchical timing wheel: level 0 has one slot per tick, and every level above has slots as wide as the whole
+ * level below it. Scheduling and cancelling are O(1); entries of a higher level slot are cascaded down when the
+ * wheel reaches it, and fire at most one tick after their deadline. Cancelled or rescheduled entries are dropped
+ * lazily when their slot comes up. Not thread-safe.
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] spans;
+    private final List<Entry<K>>[][] slots;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private long currentTime;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.spans = new long[levels + 1];
+        this.slots = new List[levels][wheelSize];
+        long span = tickMillis;
+        for (int level = 0; level <= levels; level++) {
+            spans[level] = span;
+            span = Math.multiplyExact(span, wheelSize);
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules {@code key} to fire at {@code deadlineMillis}, replacing any deadline it already had.
+     * A deadline in the past fires on the next advance.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        long deadline = Math.max(deadlineMillis, currentTime);
+        deadlines.put(key, deadline);
+        insert(new Entry<>(key, deadline));
+    }
+
+    public void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and passes every entry that came due, with its deadline, to
+     * {@code expired}. Returns the number of entries that fired.
+     */
+    public int advance(long nowMillis, ObjLongConsumer<K> expired) {
+        int fired = 0;
+        while (currentTime + tickMillis <= nowMillis) {
+            for (int level = slots.length - 1; level > 0; level--) {
+                if (currentTime % spans[level] == 0) {
+                    cascade(level);
+                }
+            }
+            List<Entry<K>> due = takeSlot(0, slotIndex(0, currentTime));
+            if (due != null) {
+                for (Entry<K> entry : due) {
+                    if (deadlines.remove(entry.key(), entry.deadline())) {
+                        expired.accept(entry.key(), entry.deadline());
+                        fired++;
+                    }
+                }
+            }
+            currentTime += tickMillis;
+        }
+        return fired;
+    }
+
+    private void cascade(int level) {
+        List<Entry<K>> entries = takeSlot(level, slotIndex(level, currentTime));
+        if (entries == null) {
+            return;
+        }
+        for (Entry<K> entry : entries) {
+            if (Long.valueOf(entry.deadline()).equals(deadlines.get(entry.key()))) {
+                insert(entry);
+            }
+        }
+    }
+
+    private void insert(Entry<K> entry) {
+        long delay = entry.deadline() - currentTime;
+        int level = 0;
+        while (level < slots.length - 1 && delay >= spans[level + 1]) {
+            level++;
+        }
+        // beyond the top level the entry waits in the farthest slot and is cascaded again from there
+        long deadline = Math.min(entry.deadline(), currentTime + spans[level + 1] - spans[level]);
+        int index = slotIndex(level, deadline);
+        if (slots[level][index] == null) {
+            slots[level][index] = new ArrayList<>();
+        }
+        slots[level][index].add(entry);
+    }
+
+    private List<Entry<K>> takeSlot(int level, int index) {
+        List<Entry<K>> entries = slots[level][index];
+        slots[level][index] = null;
+        return entries;
+    }
+
+    private int slotIndex(int level, long time) {
+        return (int) Math.floorMod(time / spans[level], (long) wheelSize);
+    }
+
+    private record Entry<K>(K key, long deadline) {
+    }
+}
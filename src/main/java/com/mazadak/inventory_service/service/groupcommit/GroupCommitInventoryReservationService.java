@@ -0,0 +1,249 @@
+package com.mazadak.inventory_service.service.groupcommit;
+
+import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import com.mazadak.inventory_service.service.InventoryReservationService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent reservation requests for up to a short window and applies each group in a single
+ * transaction, so a burst of reservations pays for one commit instead of one per request. Every caller
+ * still gets its own reservation ids or its own exception. Product mailboxes already serialize writes
+ * per product, so this mode is only active when they are disabled.
+ * <p>
+ * Requests are spread over {@code lanes} committers by the hash of the lowest product id of their cart, so
+ * groups of unrelated products commit in parallel while requests for the same product still share groups.
+ * On shutdown the lanes stop taking requests and commit what is already queued; a commit in flight is
+ * never interrupted.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${app.inventory.group-commit.enabled:false} and !${app.inventory.mailbox.enabled:false}")
+@Slf4j
+public class GroupCommitInventoryReservationService implements InventoryReservationService {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final InventoryReservationServiceImpl inventoryReservationService;
+    private final long windowNanos;
+    private final int maxGroupSize;
+    private final long shutdownTimeoutMillis;
+    private final DistributionSummary groupSize;
+    private final Lane[] lanes;
+
+    public GroupCommitInventoryReservationService(InventoryReservationServiceImpl inventoryReservationService,
+                                                  @Value("${app.inventory.group-commit.window-ms:2}") long windowMillis,
+                                                  @Value("${app.inventory.group-commit.max-size:256}") int maxGroupSize,
+                                                  @Value("${app.inventory.group-commit.lanes:4}") int lanes,
+                                                  @Value("${app.inventory.group-commit.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                                                  MeterRegistry meterRegistry) {
+        this.inventoryReservationService = inventoryReservationService;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxGroupSize = maxGroupSize;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.groupSize = DistributionSummary.builder("inventory.reservation.group.size")
+                .description("Reservation requests applied per group commit")
+                .register(meterRegistry);
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i);
+        }
+        log.info("Started reservation group commit with {} lanes, a {} ms window and up to {} requests", lanes,
+                windowMillis, maxGroupSize);
+    }
+
+    @Override
+    public List<UUID> reserveInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        Submission submission = new Submission(new PendingReservation(idempotencyKey, request), new CompletableFuture<>());
+        laneOf(request).submit(submission);
+        try {
+            return submission.result().join().getOrThrow();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    // callers of this one need the per-item grants back, so it is not batched with the others
+    @Override
+    public ReservationResultDTO reserveAvailableInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        return inventoryReservationService.reserveAvailableInventory(idempotencyKey, request);
+    }
+
+    @Override
+    public List<InventoryReservationDTO> releaseReservation(UUID idempotencyKey, List<UUID> reservationIds) {
+        return inventoryReservationService.releaseReservation(idempotencyKey, reservationIds);
+    }
+
+    @Override
+    public List<InventoryReservationDTO> confirmReservation(UUID idempotencyKey, ConfirmReservationRequest request) {
+        return inventoryReservationService.confirmReservation(idempotencyKey, request);
+    }
+
+    @Override
+    public InventoryReservationDTO getReservation(UUID reservationId) {
+        return inventoryReservationService.getReservation(reservationId);
+    }
+
+    @Override
+    public LocalDateTime getReservationUpdatedAt(UUID reservationId) {
+        return inventoryReservationService.getReservationUpdatedAt(reservationId);
+    }
+
+    @Override
+    public ReservationHoldDTO extendReservation(UUID reservationId, int minutes) {
+        return inventoryReservationService.extendReservation(reservationId, minutes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        for (Lane lane : lanes) {
+            lane.awaitTermination(deadline);
+        }
+    }
+
+    private Lane laneOf(ReserveInventoryRequest request) {
+        UUID lowest = request.items().stream().map(reserveItemDTO::productId).min(UUID::compareTo).orElse(null);
+        return lanes[lowest == null ? 0 : Math.floorMod(lowest.hashCode(), lanes.length)];
+    }
+
+    private void commit(List<Submission> group) {
+        groupSize.record(group.size());
+        List<PendingReservation> pendingReservations = new ArrayList<>();
+        for (Submission submission : group) {
+            pendingReservations.add(submission.pendingReservation());
+        }
+
+        List<ReservationOutcome> outcomes;
+        try {
+            outcomes = inventoryReservationService.reserveInventoryGroup(pendingReservations);
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} reservations failed, applying them one by one", group.size(), e);
+            group.forEach(this::commitAlone);
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result().complete(outcomes.get(i));
+        }
+    }
+
+    private void commitAlone(Submission submission) {
+        PendingReservation pendingReservation = submission.pendingReservation();
+        try {
+            submission.result().complete(ReservationOutcome.reserved(inventoryReservationService
+                    .reserveInventory(pendingReservation.idempotencyKey(), pendingReservation.request())));
+        } catch (RuntimeException e) {
+            submission.result().complete(ReservationOutcome.failed(e));
+        }
+    }
+
+    private final class Lane {
+
+        private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+        private final Thread committer;
+        private volatile boolean accepting = true;
+
+        Lane(int index) {
+            this.committer = new Thread(this::run, "inventory-group-commit-" + index);
+            this.committer.setDaemon(true);
+            this.committer.start();
+        }
+
+        // synchronized with close so nothing is queued once the committer may have seen the lane closed and empty
+        synchronized void submit(Submission submission) {
+            if (!accepting) {
+                throw new IllegalStateException("Reservation group commit is shutting down");
+            }
+            queue.add(submission);
+        }
+
+        synchronized void close() {
+            accepting = false;
+        }
+
+        void awaitTermination(long deadline) {
+            try {
+                committer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (committer.isAlive()) {
+                log.warn("Reservation group commit lane {} did not drain in time", committer.getName());
+            }
+            // fail whatever is still queued so no caller waits forever
+            List<Submission> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.forEach(submission -> submission.result()
+                    .completeExceptionally(new IllegalStateException("Reservation group commit is shutting down")));
+        }
+
+        private void run() {
+            while (accepting || !queue.isEmpty()) {
+                List<Submission> group;
+                try {
+                    group = nextGroup();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+            }
+        }
+
+        private List<Submission> nextGroup() throws InterruptedException {
+            List<Submission> group = new ArrayList<>();
+            // polled rather than taken so the lane notices when it is closed
+            Submission first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return group;
+            }
+            group.add(first);
+            long deadline = System.nanoTime() + windowNanos;
+            while (group.size() < maxGroupSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    queue.drainTo(group, maxGroupSize - group.size());
+                    break;
+                }
+                Submission submission = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (submission == null) {
+                    break;
+                }
+                group.add(submission);
+            }
+            return group;
+        }
+    }
+
+    private record Submission(PendingReservation pendingReservation, CompletableFuture<ReservationOutcome> result) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.mazadak.inventory_service.service.groupcommit;
+
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+
+import java.util.UUID;
+
+public record PendingReservation(UUID idempotencyKey, ReserveInventoryRequest request) {
+}
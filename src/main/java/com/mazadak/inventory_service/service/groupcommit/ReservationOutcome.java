@@ -0,0 +1,25 @@
+package com.mazadak.inventory_service.service.groupcommit;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of one request of a group commit: either its reservation ids or the exception its caller gets.
+ */
+public record ReservationOutcome(List<UUID> reservationIds, RuntimeException failure) {
+
+    public static ReservationOutcome reserved(List<UUID> reservationIds) {
+        return new ReservationOutcome(reservationIds, null);
+    }
+
+    public static ReservationOutcome failed(RuntimeException failure) {
+        return new ReservationOutcome(null, failure);
+    }
+
+    public List<UUID> getOrThrow() {
+        if (failure != null) {
+            throw failure;
+        }
+        return reservationIds;
+    }
+}
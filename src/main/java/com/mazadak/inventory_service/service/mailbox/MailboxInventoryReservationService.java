@@ -0,0 +1,85 @@
+package com.mazadak.inventory_service.service.mailbox;
+
+import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.repository.InventoryReservationRepository;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import com.mazadak.inventory_service.service.InventoryReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Routes reservation mutations through the product mailboxes before they open their transaction.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.inventory.mailbox.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class MailboxInventoryReservationService implements InventoryReservationService {
+
+    private final InventoryReservationServiceImpl inventoryReservationService;
+    private final InventoryReservationRepository inventoryReservationRepository;
+    private final ProductMailboxExecutor productMailboxExecutor;
+
+    @Override
+    public List<UUID> reserveInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        return productMailboxExecutor.execute(productIdsOf(request),
+                () -> inventoryReservationService.reserveInventory(idempotencyKey, request));
+    }
+
+    @Override
+    public ReservationResultDTO reserveAvailableInventory(UUID idempotencyKey, ReserveInventoryRequest request) {
+        return productMailboxExecutor.execute(productIdsOf(request),
+                () -> inventoryReservationService.reserveAvailableInventory(idempotencyKey, request));
+    }
+
+    @Override
+    public List<InventoryReservationDTO> releaseReservation(UUID idempotencyKey, List<UUID> reservationIds) {
+        List<UUID> productIds = inventoryReservationRepository.findProductIdsByReservationIds(reservationIds);
+        return productMailboxExecutor.execute(productIds,
+                () -> inventoryReservationService.releaseReservation(idempotencyKey, reservationIds));
+    }
+
+    @Override
+    public List<InventoryReservationDTO> confirmReservation(UUID idempotencyKey, ConfirmReservationRequest request) {
+        List<UUID> productIds = inventoryReservationRepository.findProductIdsByReservationIds(request.reservationIds());
+        return productMailboxExecutor.execute(productIds,
+                () -> inventoryReservationService.confirmReservation(idempotencyKey, request));
+    }
+
+    @Override
+    public InventoryReservationDTO getReservation(UUID reservationId) {
+        return inventoryReservationService.getReservation(reservationId);
+    }
+
+    @Override
+    public LocalDateTime getReservationUpdatedAt(UUID reservationId) {
+        return inventoryReservationService.getReservationUpdatedAt(reservationId);
+    }
+
+    @Override
+    public ReservationHoldDTO extendReservation(UUID reservationId, int minutes) {
+        return inventoryReservationService.extendReservation(reservationId, minutes);
+    }
+
+    private static List<UUID> productIdsOf(ReserveInventoryRequest request) {
+        List<UUID> productIds = new ArrayList<>();
+        for (reserveItemDTO item : request.items()) {
+            productIds.add(item.productId());
+        }
+        return productIds;
+    }
+}
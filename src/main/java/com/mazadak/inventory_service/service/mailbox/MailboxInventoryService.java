@@ -0,0 +1,90 @@
+package com.mazadak.inventory_service.service.mailbox;
+
+import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
+import com.mazadak.inventory_service.dto.request.UpdateInventoryRequest;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.dto.response.ProductAvailabilityDTO;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.service.Impl.InventoryServiceImpl;
+import com.mazadak.inventory_service.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Routes inventory mutations through the product mailboxes before they open their transaction.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.inventory.mailbox.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MailboxInventoryService implements InventoryService {
+
+    private final InventoryServiceImpl inventoryService;
+    private final ProductMailboxExecutor productMailboxExecutor;
+
+    @Override
+    public Inventory findOrCreateInventory(UUID productId) {
+        return inventoryService.findOrCreateInventory(productId);
+    }
+
+    @Override
+    public InventoryDTO getInventory(UUID productId) {
+        return inventoryService.getInventory(productId);
+    }
+
+    @Override
+    public InventoryDTO addInventory(UUID idempotencyKey, AddInventoryRequest request) {
+        return productMailboxExecutor.execute(request.productId(),
+                () -> inventoryService.addInventory(idempotencyKey, request));
+    }
+
+    @Override
+    public InventoryDTO reduceQuantity(UUID productId, int quantity) {
+        return productMailboxExecutor.execute(productId, () -> inventoryService.reduceQuantity(productId, quantity));
+    }
+
+    @Override
+    public InventoryDTO updateInventory(UUID productId, UpdateInventoryRequest request) {
+        return productMailboxExecutor.execute(productId, () -> inventoryService.updateInventory(productId, request));
+    }
+
+    @Override
+    public void deleteInventory(UUID productId) {
+        productMailboxExecutor.execute(productId, () -> {
+            inventoryService.deleteInventory(productId);
+            return null;
+        });
+    }
+
+    @Override
+    public Boolean existsByProductId(UUID productId) {
+        return inventoryService.existsByProductId(productId);
+    }
+
+    @Override
+    public void streamAvailability(Collection<UUID> productIds, Consumer<ProductAvailabilityDTO> sink) {
+        inventoryService.streamAvailability(productIds, sink);
+    }
+
+    @Override
+    public void restoreInventory(UUID productId) {
+        productMailboxExecutor.execute(productId, () -> {
+            inventoryService.restoreInventory(productId);
+            return null;
+        });
+    }
+
+    @Override
+    public void setReservationTtl(UUID productId, Integer minutes) {
+        productMailboxExecutor.execute(productId, () -> {
+            inventoryService.setReservationTtl(productId, minutes);
+            return null;
+        });
+    }
+}
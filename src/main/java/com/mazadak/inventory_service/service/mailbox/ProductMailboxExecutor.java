@@ -0,0 +1,234 @@
+package com.mazadak.inventory_service.service.mailbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs every mutation of a product on one of N striped single-writer mailboxes, so updates to the
+ * same product are applied one at a time by a single thread instead of queueing on the row lock.
+ * Multi-product work parks all the involved mailboxes, in stripe order, and runs on the caller's thread.
+ * <p>
+ * Work submitted from a thread that already holds every mailbox it needs, its own mailbox thread or the mailboxes
+ * it parked, runs inline. Multi-product work from a thread holding only some of them is rejected: waiting for the
+ * others while holding one could deadlock with the mailboxes it waits for.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.mailbox.enabled", havingValue = "true")
+@Slf4j
+public class ProductMailboxExecutor {
+
+    private final Mailbox[] mailboxes;
+    private final Timer waitTimer;
+    // stripes whose mailboxes the current thread has parked to run multi-product work
+    private final ThreadLocal<Set<Integer>> parkedStripes = ThreadLocal.withInitial(HashSet::new);
+
+    public ProductMailboxExecutor(@Value("${app.inventory.mailbox.stripes:16}") int stripes,
+                                  MeterRegistry meterRegistry) {
+        this.mailboxes = new Mailbox[stripes];
+        for (int i = 0; i < stripes; i++) {
+            mailboxes[i] = new Mailbox(i);
+        }
+        this.waitTimer = Timer.builder("inventory.mailbox.wait")
+                .description("Time a mutation waits in its product mailbox before it runs")
+                .register(meterRegistry);
+        Gauge.builder("inventory.mailbox.queue.depth", this, ProductMailboxExecutor::queueDepth)
+                .description("Mutations waiting in product mailboxes")
+                .register(meterRegistry);
+        log.info("Started {} product mailboxes", stripes);
+    }
+
+    public <T> T execute(UUID productId, Supplier<T> action) {
+        int stripe = stripeOf(productId);
+        Mailbox mailbox = mailboxes[stripe];
+        if (holds(stripe)) {
+            return action.get();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        mailbox.submit(() -> {
+            waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                result.complete(action.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return await(result);
+    }
+
+    public <T> T execute(Collection<UUID> productIds, Supplier<T> action) {
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (UUID productId : productIds) {
+            stripes.add(stripeOf(productId));
+        }
+        if (stripes.isEmpty()) {
+            return action.get();
+        }
+        if (stripes.stream().allMatch(this::holds)) {
+            return action.get();
+        }
+        if (holdsAny()) {
+            throw new IllegalStateException("Multi-product work cannot run from a product mailbox holding only some "
+                    + "of its products");
+        }
+        if (stripes.size() == 1) {
+            return execute(productIds.iterator().next(), action);
+        }
+
+        // park the mailboxes in ascending stripe order so overlapping carts cannot deadlock
+        CountDownLatch done = new CountDownLatch(1);
+        long enqueuedAt = System.nanoTime();
+        Set<Integer> parkedByCaller = parkedStripes.get();
+        try {
+            for (int stripe : stripes) {
+                CountDownLatch parked = new CountDownLatch(1);
+                mailboxes[stripe].submit(() -> {
+                    parked.countDown();
+                    awaitUninterruptibly(done);
+                });
+                await(parked);
+                parkedByCaller.add(stripe);
+            }
+            waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            return action.get();
+        } finally {
+            parkedByCaller.clear();
+            done.countDown();
+        }
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (Mailbox mailbox : mailboxes) {
+            depth += mailbox.depth.get();
+        }
+        return depth;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Mailbox mailbox : mailboxes) {
+            mailbox.stop();
+        }
+    }
+
+    private boolean holds(int stripe) {
+        return mailboxes[stripe].isCurrentThread() || parkedStripes.get().contains(stripe);
+    }
+
+    private boolean holdsAny() {
+        if (!parkedStripes.get().isEmpty()) {
+            return true;
+        }
+        for (Mailbox mailbox : mailboxes) {
+            if (mailbox.isCurrentThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int stripeOf(UUID productId) {
+        return Math.floorMod(productId.hashCode(), mailboxes.length);
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for product mailbox", e);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Mailbox implements Runnable {
+
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Mailbox(int stripe) {
+            this.thread = new Thread(this, "inventory-mailbox-" + stripe);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void submit(Runnable task) {
+            depth.incrementAndGet();
+            queue.offer(task);
+            LockSupport.unpark(thread);
+        }
+
+        boolean isCurrentThread() {
+            return Thread.currentThread() == thread;
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                depth.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.error("Product mailbox task failed", e);
+                }
+            }
+        }
+    }
+}
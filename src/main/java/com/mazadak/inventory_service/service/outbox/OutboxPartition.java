@@ -0,0 +1,9 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * One partition of {@code outbox_events}, holding the events written before {@code end}.
+ */
+record OutboxPartition(String name, LocalDateTime end) {
+}
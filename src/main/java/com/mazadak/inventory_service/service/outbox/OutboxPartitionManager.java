@@ -0,0 +1,85 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code outbox_events} partitioned by day: partitions are created {@code ahead-days} in advance, and once a
+ * partition is older than {@code retention-days} and every event in it has been published, the whole partition is
+ * dropped instead of deleting its rows. A partition still holding unpublished events is kept until the relay has
+ * caught up. Does nothing until {@link OutboxPartitionMigration} has converted the table. Only works on Postgres.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.partitioning.enabled", havingValue = "true")
+@Slf4j
+public class OutboxPartitionManager {
+
+    private final OutboxPartitions partitions;
+    private final int retentionDays;
+    private final int aheadDays;
+
+    // takes the EntityManagerFactory so Hibernate has created or updated the table before it is partitioned
+    @Autowired
+    public OutboxPartitionManager(DataSource dataSource,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${app.outbox.partitioning.retention-days:7}") int retentionDays,
+                                  @Value("${app.outbox.partitioning.ahead-days:3}") int aheadDays) {
+        this(new PostgresOutboxPartitions(dataSource), retentionDays, aheadDays);
+    }
+
+    OutboxPartitionManager(OutboxPartitions partitions, int retentionDays, int aheadDays) {
+        this.partitions = partitions;
+        this.retentionDays = retentionDays;
+        this.aheadDays = aheadDays;
+    }
+
+    @PostConstruct
+    public void init() {
+        maintain();
+    }
+
+    public void maintain() {
+        maintain(LocalDate.now());
+    }
+
+    synchronized void maintain(LocalDate today) {
+        if (!partitions.isPartitioned()) {
+            log.warn("outbox_events is not partitioned, run the outbox partition migration first");
+            return;
+        }
+        List<OutboxPartition> existing = partitions.list();
+        Set<LocalDateTime> ends = existing.stream().map(OutboxPartition::end).collect(Collectors.toSet());
+        for (LocalDate day = today; !day.isAfter(today.plusDays(aheadDays)); day = day.plusDays(1)) {
+            if (!ends.contains(day.plusDays(1).atStartOfDay())) {
+                partitions.create(day);
+                log.info("Created outbox partition for {}", day);
+            }
+        }
+
+        LocalDateTime cutoff = today.minusDays(retentionDays).atStartOfDay();
+        for (OutboxPartition partition : existing) {
+            if (partition.end().isAfter(cutoff)) {
+                continue;
+            }
+            if (partitions.hasUnpublished(partition.name())) {
+                log.warn("Keeping outbox partition {} past retention, it still holds unpublished events",
+                        partition.name());
+                continue;
+            }
+            partitions.drop(partition.name());
+            log.info("Dropped outbox partition {}", partition.name());
+        }
+    }
+}
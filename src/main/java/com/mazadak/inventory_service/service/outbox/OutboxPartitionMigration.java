@@ -0,0 +1,74 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/**
+ * One-time conversion of a plain {@code outbox_events} table into the daily partitioned one the
+ * {@link OutboxPartitionManager} maintains. It rewrites the whole table, so it is run on its own, once, during a
+ * maintenance window: start the service with {@code app.outbox.partitioning.migrate=true} and it converts the table,
+ * creates the partitions {@code ahead-days} out, then exits. Writes past those days fail until the service runs with
+ * {@code app.outbox.partitioning.enabled}, so it is switched on with the same rollout. Running it again does
+ * nothing. Only works on Postgres.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.partitioning.migrate", havingValue = "true")
+@Slf4j
+public class OutboxPartitionMigration implements ApplicationRunner {
+
+    private final OutboxPartitions partitions;
+    private final int aheadDays;
+    private final ConfigurableApplicationContext applicationContext;
+
+    // takes the EntityManagerFactory so Hibernate has created or updated the table before it is partitioned
+    @Autowired
+    public OutboxPartitionMigration(DataSource dataSource,
+                                    EntityManagerFactory entityManagerFactory,
+                                    @Value("${app.outbox.partitioning.ahead-days:3}") int aheadDays,
+                                    ConfigurableApplicationContext applicationContext) {
+        this(new PostgresOutboxPartitions(dataSource), aheadDays, applicationContext);
+    }
+
+    OutboxPartitionMigration(OutboxPartitions partitions, int aheadDays,
+                             ConfigurableApplicationContext applicationContext) {
+        this.partitions = partitions;
+        this.aheadDays = aheadDays;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            migrate(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("Outbox partition migration failed", e);
+            exitCode = 1;
+        }
+        int finalExitCode = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> finalExitCode));
+    }
+
+    boolean migrate(LocalDate firstDay) {
+        if (!partitions.partitionFrom(firstDay)) {
+            log.info("outbox_events is partitioned already");
+            return false;
+        }
+        for (LocalDate day = firstDay; !day.isAfter(firstDay.plusDays(aheadDays)); day = day.plusDays(1)) {
+            partitions.create(day);
+        }
+        log.info("Partitioned outbox_events, earlier rows are kept in a legacy partition ending at {}", firstDay);
+        return true;
+    }
+}
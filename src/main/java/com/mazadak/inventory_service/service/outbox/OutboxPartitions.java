@@ -0,0 +1,29 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The partitions of the {@code outbox_events} table, ranged by {@code created_at} one day each.
+ */
+interface OutboxPartitions {
+
+    boolean isPartitioned();
+
+    /**
+     * Turns a plain {@code outbox_events} table into a partitioned one, keeping its rows in a single partition
+     * that ends at {@code firstDay}. Does nothing and returns {@code false} when the table is partitioned already.
+     */
+    boolean partitionFrom(LocalDate firstDay);
+
+    List<OutboxPartition> list();
+
+    /**
+     * Creates the partition for {@code day} unless it exists.
+     */
+    void create(LocalDate day);
+
+    boolean hasUnpublished(String partition);
+
+    void drop(String partition);
+}
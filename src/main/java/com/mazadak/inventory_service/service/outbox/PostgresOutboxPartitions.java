@@ -0,0 +1,140 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Daily range partitions of {@code outbox_events} in Postgres. The relay only reads unpublished rows, so the
+ * partitioned table carries its {@code (published, created_at, id)} index as a partial one over those rows alone.
+ */
+class PostgresOutboxPartitions implements OutboxPartitions {
+
+    static final int CONVERSION_LOCK = 0x4f555431;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final DataSource dataSource;
+
+    PostgresOutboxPartitions(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT relkind FROM pg_class WHERE oid = 'outbox_events'::regclass")) {
+            resultSet.next();
+            return "p".equals(resultSet.getString(1));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect outbox_events", e);
+        }
+    }
+
+    @Override
+    public boolean partitionFrom(LocalDate firstDay) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                // replicas starting together convert the table once
+                statement.execute("SELECT pg_advisory_xact_lock(" + CONVERSION_LOCK + ")");
+                try (ResultSet resultSet = statement.executeQuery(
+                        "SELECT relkind FROM pg_class WHERE oid = 'outbox_events'::regclass")) {
+                    resultSet.next();
+                    if ("p".equals(resultSet.getString(1))) {
+                        connection.rollback();
+                        return false;
+                    }
+                }
+                statement.execute("ALTER TABLE outbox_events RENAME TO outbox_events_unpartitioned");
+                statement.execute("""
+                        CREATE TABLE outbox_events (
+                            LIKE outbox_events_unpartitioned INCLUDING DEFAULTS,
+                            PRIMARY KEY (id, created_at)
+                        ) PARTITION BY RANGE (created_at)
+                        """);
+                statement.execute("CREATE TABLE outbox_events_legacy PARTITION OF outbox_events"
+                        + " FOR VALUES FROM (MINVALUE) TO ('" + firstDay + "')");
+                statement.execute("INSERT INTO outbox_events SELECT * FROM outbox_events_unpartitioned");
+                statement.execute("DROP TABLE outbox_events_unpartitioned");
+                statement.execute("""
+                        CREATE INDEX idx_outbox_events_published_created_at
+                        ON outbox_events (published, created_at, id) WHERE published = false
+                        """);
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not partition outbox_events", e);
+        }
+    }
+
+    @Override
+    public List<OutboxPartition> list() {
+        List<OutboxPartition> partitions = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("""
+                     SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+                     FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                     WHERE i.inhparent = 'outbox_events'::regclass
+                     """)) {
+            while (resultSet.next()) {
+                Matcher bound = UPPER_BOUND.matcher(resultSet.getString(2));
+                if (bound.find()) {
+                    partitions.add(new OutboxPartition(resultSet.getString(1),
+                            LocalDateTime.parse(bound.group(1).replace(' ', 'T'))));
+                }
+            }
+            return partitions;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not list the outbox_events partitions", e);
+        }
+    }
+
+    @Override
+    public void create(LocalDate day) {
+        execute("CREATE TABLE IF NOT EXISTS outbox_events_p" + day.format(PARTITION_SUFFIX)
+                + " PARTITION OF outbox_events FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+    }
+
+    @Override
+    public boolean hasUnpublished(String partition) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE published = false)");
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getBoolean(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not check partition " + partition, e);
+        }
+    }
+
+    @Override
+    public void drop(String partition) {
+        execute("DROP TABLE IF EXISTS " + partition);
+    }
+
+    private void execute(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Outbox partition statement failed: " + sql, e);
+        }
+    }
+}
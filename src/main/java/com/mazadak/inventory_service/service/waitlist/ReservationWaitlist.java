@@ -0,0 +1,327 @@
+package com.mazadak.inventory_service.service.waitlist;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.common.exception.shared.ResourceNotFoundException;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.dto.response.WaitlistTicketDTO;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.model.WaitlistTicket;
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+import com.mazadak.inventory_service.repository.WaitlistTicketRepository;
+import com.mazadak.inventory_service.service.InventoryReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Queues reservation requests that failed for lack of stock in a bounded FIFO per product and fulfils them,
+ * in order, once stock of that product is freed. Clients poll or long-poll their ticket instead of retrying.
+ * Tickets are kept in the database, so any replica can answer for them and drain their queues, and they
+ * survive restarts. Stock freed on this replica wakes the queue right after commit; a periodic sweep picks
+ * up stock freed elsewhere, expires overdue tickets and completes long polls of tickets finished elsewhere.
+ * A request short of stock holds back the tickets behind it only when it is for that product alone, since a
+ * request for several products may be waiting on another one.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.waitlist.enabled", havingValue = "true")
+@Slf4j
+public class ReservationWaitlist {
+
+    private static final TypeReference<ReserveInventoryRequest> REQUEST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<UUID>> RESERVATION_IDS = new TypeReference<>() {
+    };
+
+    private final InventoryReservationService inventoryReservationService;
+    private final WaitlistTicketRepository waitlistTicketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final long maxWaitSeconds;
+    private final long retentionSeconds;
+    private final Map<UUID, CompletableFuture<WaitlistTicketDTO>> longPolls = new ConcurrentHashMap<>();
+    private final ExecutorService drainer;
+    private final Counter queued;
+    private final Counter fulfilled;
+    private final Counter expired;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public ReservationWaitlist(InventoryReservationService inventoryReservationService,
+                               WaitlistTicketRepository waitlistTicketRepository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${app.inventory.waitlist.capacity:1000}") int capacity,
+                               @Value("${app.inventory.waitlist.max-wait-seconds:120}") long maxWaitSeconds,
+                               @Value("${app.inventory.waitlist.retention-seconds:300}") long retentionSeconds,
+                               MeterRegistry meterRegistry) {
+        this.inventoryReservationService = inventoryReservationService;
+        this.waitlistTicketRepository = waitlistTicketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.maxWaitSeconds = maxWaitSeconds;
+        this.retentionSeconds = retentionSeconds;
+        this.drainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-waitlist");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queued = counter(meterRegistry, "queued");
+        this.fulfilled = counter(meterRegistry, "fulfilled");
+        this.expired = counter(meterRegistry, "expired");
+        this.failed = counter(meterRegistry, "failed");
+        this.rejected = counter(meterRegistry, "rejected");
+        Gauge.builder("inventory.waitlist.depth", this, ReservationWaitlist::depth)
+                .description("Reservation requests waiting for stock")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.waitlist.requests")
+                .description("Waitlisted reservation requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves right away when stock allows, otherwise queues the request until {@code waitSeconds} from now.
+     * A retry with the same idempotency key is answered with the ticket of the first request.
+     * Rethrows {@link NotEnoughStockException} when the queue of one of the products is full; replicas check
+     * the capacity on their own, so concurrent requests may overshoot it slightly.
+     */
+    public WaitlistTicketDTO reserveOrWait(UUID idempotencyKey, ReserveInventoryRequest request, long waitSeconds) {
+        String requestJson = write(request);
+        Optional<WaitlistTicket> existing = findByIdempotencyKey(idempotencyKey, requestJson);
+        if (existing.isPresent()) {
+            log.info("Answering retried waitlist request {} with its ticket", idempotencyKey);
+            return toDTO(existing.get());
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(Math.min(waitSeconds, maxWaitSeconds));
+        Set<UUID> productIds = productIds(request);
+        WaitlistTicket ticket = WaitlistTicket.builder()
+                .idempotencyKey(idempotencyKey)
+                .request(requestJson)
+                .productIds(new HashSet<>(productIds))
+                .expiresAt(expiresAt)
+                .build();
+        try {
+            List<UUID> reservationIds = inventoryReservationService.reserveInventory(idempotencyKey, request);
+            ticket.setStatus(WaitlistStatus.FULFILLED);
+            ticket.setReservationIds(write(reservationIds));
+            return toDTO(saveOnce(ticket)
+                    .orElseGet(() -> findByIdempotencyKey(idempotencyKey, requestJson).orElseThrow()));
+        } catch (NotEnoughStockException e) {
+            for (UUID productId : productIds) {
+                if (waitlistTicketRepository.countByProductIdAndStatus(productId, WaitlistStatus.QUEUED) >= capacity) {
+                    log.info("Waitlist of product {} is full", productId);
+                    rejected.increment();
+                    throw e;
+                }
+            }
+            ticket.setStatus(WaitlistStatus.QUEUED);
+            Optional<WaitlistTicket> queuedTicket = saveOnce(ticket);
+            if (queuedTicket.isEmpty()) {
+                return toDTO(findByIdempotencyKey(idempotencyKey, requestJson).orElseThrow());
+            }
+            WaitlistTicket saved = queuedTicket.get();
+            log.info("Queued reservation request {} until {}", saved.getTicketId(), expiresAt);
+            queued.increment();
+            // stock freed between the failed attempt and queueing would otherwise wait for the next sweep
+            drainer.execute(() -> drain(productIds));
+            return toDTO(saved);
+        }
+    }
+
+    /**
+     * Returns the ticket once it is no longer queued, or as it is after {@code waitSeconds}.
+     */
+    public CompletableFuture<WaitlistTicketDTO> awaitTicket(UUID ticketId, long waitSeconds) {
+        WaitlistTicketDTO current = findTicket(ticketId).orElseThrow(() -> {
+            log.error("Waitlist ticket not found with id: {}", ticketId);
+            return new ResourceNotFoundException("Waitlist ticket", "Id", ticketId.toString());
+        });
+        if (current.status() != WaitlistStatus.QUEUED || waitSeconds <= 0) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return longPolls.computeIfAbsent(ticketId, id -> new CompletableFuture<>()).copy()
+                .completeOnTimeout(current, Math.min(waitSeconds, maxWaitSeconds), TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockFreed(StockFreedEvent event) {
+        drainer.execute(() -> drain(event.productIds()));
+    }
+
+    /**
+     * Expires overdue tickets, retries every queue against stock freed elsewhere, completes long polls of
+     * tickets finished elsewhere and deletes old tickets.
+     */
+    public void sweep() {
+        drainer.execute(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            Integer overdue = transactionTemplate.execute(status ->
+                    waitlistTicketRepository.expireOverdue(WaitlistStatus.QUEUED, WaitlistStatus.EXPIRED, now));
+            if (overdue != null && overdue > 0) {
+                log.info("Expired {} waitlisted reservation requests", overdue);
+                expired.increment(overdue);
+            }
+            drain(waitlistTicketRepository.findProductIdsByStatus(WaitlistStatus.QUEUED));
+            for (UUID ticketId : List.copyOf(longPolls.keySet())) {
+                Optional<WaitlistTicketDTO> ticket = findTicket(ticketId);
+                if (ticket.isEmpty() || ticket.get().status() != WaitlistStatus.QUEUED) {
+                    CompletableFuture<WaitlistTicketDTO> longPoll = longPolls.remove(ticketId);
+                    ticket.ifPresentOrElse(longPoll::complete, () -> longPoll.cancel(false));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> waitlistTicketRepository.deleteAll(
+                    waitlistTicketRepository.findByStatusNotAndExpiresAtBefore(WaitlistStatus.QUEUED,
+                            now.minusSeconds(retentionSeconds), PageRequest.of(0, capacity))));
+        });
+    }
+
+    public long depth() {
+        return waitlistTicketRepository.countByStatus(WaitlistStatus.QUEUED);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    // runs on the drainer thread; replicas draining the same queue are kept apart by the ticket row locks
+    void drain(Collection<UUID> productIds) {
+        for (UUID productId : productIds) {
+            List<UUID> ticketIds = waitlistTicketRepository.findTicketIdsByProductIdAndStatus(productId,
+                    WaitlistStatus.QUEUED, PageRequest.of(0, capacity));
+            for (UUID ticketId : ticketIds) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> fulfil(ticketId)))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // returns whether the tickets behind this one must keep waiting
+    private boolean fulfil(UUID ticketId) {
+        Optional<WaitlistTicket> locked = waitlistTicketRepository.lockByTicketId(ticketId);
+        if (locked.isEmpty()) {
+            // another replica is draining this queue
+            return true;
+        }
+        WaitlistTicket ticket = locked.get();
+        if (ticket.getStatus() != WaitlistStatus.QUEUED) {
+            return false;
+        }
+        if (ticket.getExpiresAt().isBefore(LocalDateTime.now())) {
+            finish(ticket, WaitlistStatus.EXPIRED, null);
+            return false;
+        }
+        ReserveInventoryRequest request = read(ticket.getRequest(), REQUEST);
+        try {
+            finish(ticket, WaitlistStatus.FULFILLED,
+                    inventoryReservationService.reserveInventory(ticket.getIdempotencyKey(), request));
+            return false;
+        } catch (NotEnoughStockException e) {
+            return productIds(request).size() == 1;
+        } catch (RuntimeException e) {
+            log.error("Failed to fulfil waitlisted reservation request {}", ticketId, e);
+            finish(ticket, WaitlistStatus.FAILED, null);
+            return false;
+        }
+    }
+
+    private void finish(WaitlistTicket ticket, WaitlistStatus status, List<UUID> reservationIds) {
+        ticket.setStatus(status);
+        ticket.setReservationIds(reservationIds == null ? null : write(reservationIds));
+        log.info("Waitlisted reservation request {} {}", ticket.getTicketId(), status);
+        switch (status) {
+            case FULFILLED -> fulfilled.increment();
+            case EXPIRED -> expired.increment();
+            default -> failed.increment();
+        }
+        WaitlistTicketDTO finished = toDTO(ticket);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                CompletableFuture<WaitlistTicketDTO> longPoll = longPolls.remove(finished.ticketId());
+                if (longPoll != null) {
+                    longPoll.complete(finished);
+                }
+            }
+        });
+    }
+
+    // the ticket of the key; a key reused for a different request is rejected like the idempotency service does
+    private Optional<WaitlistTicket> findByIdempotencyKey(UUID idempotencyKey, String requestJson) {
+        return waitlistTicketRepository.findByIdempotencyKey(idempotencyKey).map(ticket -> {
+            if (!ticket.getRequest().equals(requestJson)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different request");
+            }
+            return ticket;
+        });
+    }
+
+    // empty when a concurrent request with the same key saved its ticket first
+    private Optional<WaitlistTicket> saveOnce(WaitlistTicket ticket) {
+        try {
+            return Optional.of(waitlistTicketRepository.save(ticket));
+        } catch (DataIntegrityViolationException e) {
+            log.info("Waitlist request {} was ticketed by a concurrent request", ticket.getIdempotencyKey());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<WaitlistTicketDTO> findTicket(UUID ticketId) {
+        return waitlistTicketRepository.findById(ticketId).map(this::toDTO);
+    }
+
+    private WaitlistTicketDTO toDTO(WaitlistTicket ticket) {
+        List<UUID> reservationIds = ticket.getReservationIds() == null ? null
+                : read(ticket.getReservationIds(), RESERVATION_IDS);
+        return new WaitlistTicketDTO(ticket.getTicketId(), ticket.getStatus(), ticket.getExpiresAt(), reservationIds);
+    }
+
+    private static Set<UUID> productIds(ReserveInventoryRequest request) {
+        Set<UUID> productIds = new LinkedHashSet<>();
+        for (reserveItemDTO item : request.items()) {
+            productIds.add(item.productId());
+        }
+        return productIds;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize waitlist ticket", e);
+        }
+    }
+
+    private <T> T read(String value, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize waitlist ticket", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.service.cache.AvailabilityTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holds 10M products in the read model's {@link AvailabilityTable} and in a {@code ConcurrentHashMap<UUID,
+ * InventoryDTO>}, comparing load time, retained heap, lookup latency and the garbage collections the lookups cause.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Inventory Read Model Benchmark")
+class InventoryReadModelBenchmark {
+
+    private static final int PRODUCTS = 10_000_000;
+    private static final int LOOKUPS = 20_000_000;
+
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+
+    @Test
+    @DisplayName("Load, heap and lookup cost with 10M products")
+    void reportLookupCost() {
+        Random random = new Random(7);
+        mostSignificantBits = new long[PRODUCTS];
+        leastSignificantBits = new long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            mostSignificantBits[i] = random.nextLong();
+            leastSignificantBits[i] = random.nextLong();
+        }
+
+        // first round warms up the JIT, the second one is reported
+        for (int round = 0; round < 2; round++) {
+            System.out.printf("%22s %10s %10s %12s %12s %8s %8s%n",
+                    "structure", "load ms", "heap MB", "get ns/op", "exists ns/op", "gcs", "gc ms");
+            table();
+            concurrentHashMap();
+        }
+    }
+
+    private void table() {
+        long heapBefore = usedHeap();
+        long begin = System.nanoTime();
+        AvailabilityTable table = new AvailabilityTable(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            table.put(productId(i), i & 1023, i & 15, false);
+        }
+        long loaded = System.nanoTime();
+        long heap = usedHeap() - heapBefore;
+
+        long[] gcBefore = gcs();
+        long getBegin = System.nanoTime();
+        long sum = 0;
+        for (int i = 0, index = 0; i < LOOKUPS; i++, index = next(index)) {
+            sum += table.get(productId(index)).totalQuantity();
+        }
+        long getEnd = System.nanoTime();
+        int found = 0;
+        for (int i = 0, index = 0; i < LOOKUPS; i++, index = next(index)) {
+            found += table.state(productId(index)) == AvailabilityTable.LIVE ? 1 : 0;
+        }
+        long existsEnd = System.nanoTime();
+        long[] gcAfter = gcs();
+
+        report("primitive table", begin, loaded, heap, getBegin, getEnd, existsEnd, gcBefore, gcAfter);
+        assertThat(sum).isPositive();
+        assertThat(found).isEqualTo(LOOKUPS);
+    }
+
+    private void concurrentHashMap() {
+        long heapBefore = usedHeap();
+        long begin = System.nanoTime();
+        Map<UUID, InventoryDTO> map = new ConcurrentHashMap<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            UUID productId = productId(i);
+            map.put(productId, new InventoryDTO(productId, i & 1023, i & 15));
+        }
+        long loaded = System.nanoTime();
+        long heap = usedHeap() - heapBefore;
+
+        long[] gcBefore = gcs();
+        long getBegin = System.nanoTime();
+        long sum = 0;
+        for (int i = 0, index = 0; i < LOOKUPS; i++, index = next(index)) {
+            sum += map.get(productId(index)).totalQuantity();
+        }
+        long getEnd = System.nanoTime();
+        int found = 0;
+        for (int i = 0, index = 0; i < LOOKUPS; i++, index = next(index)) {
+            found += map.containsKey(productId(index)) ? 1 : 0;
+        }
+        long existsEnd = System.nanoTime();
+        long[] gcAfter = gcs();
+
+        report("ConcurrentHashMap", begin, loaded, heap, getBegin, getEnd, existsEnd, gcBefore, gcAfter);
+        assertThat(sum).isPositive();
+        assertThat(found).isEqualTo(LOOKUPS);
+    }
+
+    private UUID productId(int index) {
+        return new UUID(mostSignificantBits[index], leastSignificantBits[index]);
+    }
+
+    // a full-period walk over the products in pseudo-random order, so lookups miss the CPU caches like real ones
+    private static int next(int index) {
+        return (int) ((index * 1_103_515_241L + 12_343) % PRODUCTS);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] gcs() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    private static void report(String structure, long begin, long loaded, long heap, long getBegin, long getEnd,
+                               long existsEnd, long[] gcBefore, long[] gcAfter) {
+        System.out.printf("%22s %10.0f %10.0f %12.1f %12.1f %8d %8d%n", structure, (loaded - begin) / 1e6,
+                heap / (1024.0 * 1024.0), (double) (getEnd - getBegin) / LOOKUPS,
+                (double) (existsEnd - getEnd) / LOOKUPS, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+}
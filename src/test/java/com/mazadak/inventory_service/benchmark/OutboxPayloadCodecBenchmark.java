@@ -0,0 +1,96 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.dto.event.InventoryDeletedEvent;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.dto.response.ReservedItemDTO;
+import com.mazadak.inventory_service.event.codec.EncodedPayload;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encodes and decodes a small event (an inventory deletion) and a large one (a 50-item reservation result) with
+ * every outbox payload codec, reporting the stored size and the encode and decode rates. Compression is forced for
+ * every payload here, so the small event shows what the {@code compress-min-bytes} threshold avoids.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Outbox Payload Codec Benchmark")
+class OutboxPayloadCodecBenchmark {
+
+    private static final String[] CODECS = {"json", "smile", "json-gzip", "smile-gzip"};
+    private static final int EVENTS = 2_000;
+    private static final int ROUNDS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Payload size and encode/decode rate per codec")
+    void reportSizeAndThroughput() throws IOException {
+        Random random = new Random(7);
+        List<Object> small = new ArrayList<>();
+        List<Object> large = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            small.add(new InventoryDeletedEvent(new UUID(random.nextLong(), random.nextLong())));
+            large.add(reservation(random, 50));
+        }
+
+        // first round warms up the JIT, the second one is reported
+        for (int round = 0; round < 2; round++) {
+            System.out.printf("%8s %12s %12s %14s %14s%n", "event", "codec", "bytes", "encode/s", "decode/s");
+            for (String codec : CODECS) {
+                measure("small", codec, small, InventoryDeletedEvent.class);
+                measure("large", codec, large, ReservationResultDTO.class);
+            }
+        }
+    }
+
+    private void measure(String name, String codec, List<Object> events, Class<?> type) throws IOException {
+        OutboxPayloadCodecs codecs = new OutboxPayloadCodecs(objectMapper, codec, 0);
+        EncodedPayload[] encoded = new EncodedPayload[events.size()];
+        long begin = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < events.size(); i++) {
+                encoded[i] = codecs.encode(events.get(i));
+            }
+        }
+        long encodedAt = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (EncodedPayload payload : encoded) {
+                codecs.get(payload.codecId()).decode(payload.bytes(), type);
+            }
+        }
+        long decodedAt = System.nanoTime();
+
+        long bytes = 0;
+        for (EncodedPayload payload : encoded) {
+            bytes += payload.bytes().length;
+        }
+        double operations = (double) ROUNDS * events.size();
+        System.out.printf("%8s %12s %12d %14.0f %14.0f%n", name, codec, bytes / events.size(),
+                operations / ((encodedAt - begin) / 1e9), operations / ((decodedAt - encodedAt) / 1e9));
+        assertThat(codecs.get(encoded[0].codecId()).decode(encoded[0].bytes(), type)).isEqualTo(events.get(0));
+    }
+
+    private static ReservationResultDTO reservation(Random random, int items) {
+        List<UUID> reservationIds = new ArrayList<>();
+        List<ReservedItemDTO> reservedItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            UUID reservationId = new UUID(random.nextLong(), random.nextLong());
+            reservationIds.add(reservationId);
+            reservedItems.add(new ReservedItemDTO(new UUID(random.nextLong(), random.nextLong()),
+                    1 + random.nextInt(5), 1 + random.nextInt(5), reservationId));
+        }
+        return new ReservationResultDTO(reservationIds, reservedItems);
+    }
+}
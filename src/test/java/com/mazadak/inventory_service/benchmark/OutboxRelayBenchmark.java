@@ -0,0 +1,136 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.config.JpaTestConfiguration;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
+import com.mazadak.inventory_service.event.publisher.OutboxPublisher;
+import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drains a 1M-event outbox backlog with the batched relay, against a broker that takes {@code SEND_LATENCY_NANOS}
+ * per send, and compares it with loading every pending event and saving each one after sending it.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = "logging.level.com.mazadak.inventory_service=warn")
+@ActiveProfiles("test")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Outbox Relay Benchmark")
+class OutboxRelayBenchmark {
+
+    private static final int BACKLOG = 1_000_000;
+    private static final int LEGACY_BACKLOG = 20_000;
+    private static final int AGGREGATES = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final long SEND_LATENCY_NANOS = 50_000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final StreamBridge streamBridge = mock(StreamBridge.class, withSettings().stubOnly());
+
+    @Test
+    @DisplayName("Sustained events per second while draining the backlog")
+    void reportSustainedThroughput() {
+        when(streamBridge.send(anyString(), any())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(SEND_LATENCY_NANOS);
+            return true;
+        });
+        System.out.printf("%28s %10s %12s %12s%n", "relay", "events", "events/s", "p99 batch ms");
+
+        seed(LEGACY_BACKLOG);
+        legacy();
+        outboxEventRepository.deleteAllInBatch();
+
+        seed(BACKLOG);
+        int drained = relay(1, BACKLOG / 10);
+        drained += relay(16, BACKLOG / 5);
+        drained += relay(64, BACKLOG - drained);
+        assertThat(drained).isEqualTo(BACKLOG);
+        assertThat(outboxEventRepository.findByPublishedFalse()).isEmpty();
+        outboxEventRepository.deleteAllInBatch();
+    }
+
+    // the publisher this relay replaced: every pending event in one go, one save per event
+    private void legacy() {
+        long begin = System.nanoTime();
+        List<OutboxEvent> events = outboxEventRepository.findByPublishedFalse();
+        for (OutboxEvent event : events) {
+            streamBridge.send("inventoryDeleted-out-0", event.getPayload());
+            event.setPublished(true);
+            outboxEventRepository.save(event);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%28s %10d %12.0f %12s%n", "load all, save each", events.size(), events.size() / seconds, "-");
+    }
+
+    private int relay(int maxInFlight, int events) {
+        OutboxPublisher outboxPublisher = new OutboxPublisher(outboxEventRepository, streamBridge,
+                new OutboxPayloadCodecs(new ObjectMapper(), "json", 512), transactionTemplate,
+                BATCH_SIZE, maxInFlight, Integer.MAX_VALUE, 0, 3, 200, 30000, new SimpleMeterRegistry());
+        List<Long> batchNanos = new ArrayList<>();
+        int published = 0;
+        long begin = System.nanoTime();
+        while (published < events) {
+            long batchBegin = System.nanoTime();
+            OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+            batchNanos.add(System.nanoTime() - batchBegin);
+            published += result.published();
+            if (result.claimed() == 0) {
+                break;
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        outboxPublisher.shutdown();
+
+        batchNanos.sort(null);
+        long p99 = batchNanos.get((int) Math.ceil(0.99 * batchNanos.size()) - 1);
+        System.out.printf("%28s %10d %12.0f %12.2f%n", "batched, in flight " + maxInFlight, published,
+                published / seconds, p99 / 1e6);
+        return published;
+    }
+
+    private void seed(int events) {
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery("""
+                INSERT INTO outbox_events (id, aggregate_type, aggregate_id, event_type, payload_codec, encoded_payload,
+                                           published, created_at, updated_at)
+                SELECT RANDOM_UUID(), 'Inventory', CONCAT('product-', MOD(X, :aggregates)), 'InventoryDeleted',
+                       0, STRINGTOUTF8(CONCAT('{"productId":"', X, '"}')), FALSE,
+                       DATEADD('MICROSECOND', X, TIMESTAMP '2026-01-01 00:00:00'), CURRENT_TIMESTAMP
+                FROM SYSTEM_RANGE(1, :events)
+                """)
+                .setParameter("aggregates", AGGREGATES)
+                .setParameter("events", events)
+                .executeUpdate());
+    }
+}
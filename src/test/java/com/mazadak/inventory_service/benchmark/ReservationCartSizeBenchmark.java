@@ -0,0 +1,111 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.mazadak.inventory_service.config.JpaTestConfiguration;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.mapper.InventoryReservationMapperImpl;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.service.Impl.IdempotencyServiceImpl;
+import com.mazadak.inventory_service.service.concurrency.PessimisticStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import com.mazadak.inventory_service.service.Impl.InventoryShardServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reports JDBC statements and latency per {@code reserveInventory} call as the cart grows.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+        "logging.level.com.mazadak.inventory_service=warn"
+})
+@ActiveProfiles("test")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import({InventoryReservationServiceImpl.class, InventoryReservationMapperImpl.class, IdempotencyServiceImpl.class,
+        PessimisticStockConcurrencyStrategy.class, InventoryShardServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Reservation Cart Size Benchmark")
+class ReservationCartSizeBenchmark {
+
+    private static final int[] CART_SIZES = {1, 5, 10, 30, 50};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    @Autowired
+    private InventoryReservationServiceImpl inventoryReservationService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Statement count stays constant as the cart grows")
+    void reportStatementsAndLatencyByCartSize() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Set<Long> statementsPerCall = new HashSet<>();
+
+        System.out.printf("%10s %15s %15s%n", "cart size", "statements", "avg latency ms");
+        for (int cartSize : CART_SIZES) {
+            ReserveInventoryRequest request = new ReserveInventoryRequest(createCart(cartSize), UUID.randomUUID());
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                inventoryReservationService.reserveInventory(UUID.randomUUID(), request);
+            }
+
+            statistics.clear();
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                inventoryReservationService.reserveInventory(UUID.randomUUID(), request);
+            }
+            double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ITERATIONS;
+            long statements = statistics.getPrepareStatementCount() / MEASURED_ITERATIONS;
+
+            statementsPerCall.add(statements);
+            System.out.printf("%10d %15d %15.3f%n", cartSize, statements, averageMillis);
+        }
+
+        assertThat(statementsPerCall).hasSize(1);
+    }
+
+    private List<reserveItemDTO> createCart(int cartSize) {
+        List<Inventory> inventories = new ArrayList<>();
+        for (int i = 0; i < cartSize; i++) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(UUID.randomUUID());
+            inventory.setTotalQuantity(1_000_000);
+            inventory.setReservedQuantity(0);
+            inventories.add(inventory);
+        }
+
+        List<reserveItemDTO> items = new ArrayList<>();
+        for (Inventory inventory : inventoryRepository.saveAll(inventories)) {
+            items.add(new reserveItemDTO(inventory.getProductId(), 1));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,172 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.mazadak.inventory_service.config.JpaTestConfiguration;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.mapper.InventoryReservationMapper;
+import com.mazadak.inventory_service.mapper.InventoryReservationMapperImpl;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryReservationRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.Impl.IdempotencyServiceImpl;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import com.mazadak.inventory_service.service.Impl.InventoryShardServiceImpl;
+import com.mazadak.inventory_service.service.concurrency.AtomicStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.OptimisticStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.PessimisticStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.StockConcurrencyStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and tail latency of the stock concurrency strategies as contention grows,
+ * from every thread reserving the same product to threads spread over many products.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = "logging.level.com.mazadak.inventory_service=warn")
+@ActiveProfiles("test")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import({InventoryReservationMapperImpl.class, IdempotencyServiceImpl.class, InventoryShardServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Stock Concurrency Strategy Benchmark")
+class StockConcurrencyStrategyBenchmark {
+
+    private static final String[] STRATEGIES = {"pessimistic", "pessimistic-nowait", "optimistic", "atomic"};
+    private static final int[] HOT_PRODUCTS = {1, 4, 64};
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS = 2_000;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryReservationRepository inventoryReservationRepository;
+
+    @Autowired
+    private InventoryReservationMapper inventoryReservationMapper;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private InventoryShardService inventoryShardService;
+
+    @Test
+    @DisplayName("Throughput and tail latency by strategy and contention")
+    void reportThroughputAndLatencyByStrategyAndContention() throws Exception {
+        System.out.printf("%20s %10s %12s %10s %10s %10s %10s%n",
+                "strategy", "products", "reserve/s", "p50 ms", "p99 ms", "max ms", "failed");
+        for (int hotProducts : HOT_PRODUCTS) {
+            for (String strategy : STRATEGIES) {
+                run(strategy, hotProducts);
+            }
+        }
+    }
+
+    private void run(String strategy, int hotProducts) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockConcurrencyStrategy stockConcurrencyStrategy = switch (strategy) {
+            case "pessimistic" -> new PessimisticStockConcurrencyStrategy(inventoryRepository, false, 1, 1, meterRegistry);
+            case "pessimistic-nowait" -> new PessimisticStockConcurrencyStrategy(inventoryRepository, true, 50, 1, meterRegistry);
+            case "optimistic" -> new OptimisticStockConcurrencyStrategy(inventoryRepository, 50, 1, meterRegistry);
+            default -> new AtomicStockConcurrencyStrategy(inventoryRepository, 5, meterRegistry);
+        };
+        InventoryReservationServiceImpl reservationService = new InventoryReservationServiceImpl(inventoryRepository,
+                inventoryReservationRepository, inventoryReservationMapper, idempotencyService, inventoryShardService,
+                stockConcurrencyStrategy, transactionTemplate, applicationEventPublisher);
+        List<UUID> productIds = createProducts(hotProducts);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] latencies = new long[RESERVATIONS];
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            int index = i;
+            UUID productId = productIds.get(i % hotProducts);
+            futures.add(executor.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                try {
+                    reservationService.reserveInventory(UUID.randomUUID(), new ReserveInventoryRequest(
+                            List.of(new reserveItemDTO(productId, 1)), UUID.randomUUID()));
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                } finally {
+                    latencies[index] = System.nanoTime() - begin;
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int failed = 0;
+        for (Future<Boolean> future : futures) {
+            if (!future.get(120, TimeUnit.SECONDS)) {
+                failed++;
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%20s %10d %12.0f %10.2f %10.2f %10.2f %10d%n", strategy, hotProducts,
+                RESERVATIONS / seconds, millis(latencies, 0.50), millis(latencies, 0.99),
+                latencies[RESERVATIONS - 1] / 1e6, failed);
+
+        int reserved = 0;
+        for (Inventory inventory : inventoryRepository.findUnshardedByProductIdIn(productIds)) {
+            reserved += inventory.getReservedQuantity();
+        }
+        assertThat(reserved).isEqualTo(RESERVATIONS - failed);
+    }
+
+    private static double millis(long[] sortedLatencies, double percentile) {
+        return sortedLatencies[(int) Math.ceil(percentile * sortedLatencies.length) - 1] / 1e6;
+    }
+
+    private List<UUID> createProducts(int count) {
+        List<Inventory> inventories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(UUID.randomUUID());
+            inventory.setTotalQuantity(1_000_000);
+            inventory.setReservedQuantity(0);
+            inventories.add(inventory);
+        }
+
+        List<UUID> productIds = new ArrayList<>();
+        for (Inventory inventory : inventoryRepository.saveAll(inventories)) {
+            productIds.add(inventory.getProductId());
+        }
+        return productIds;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mazadak.inventory_service.benchmark;
+
+import com.mazadak.inventory_service.service.expiry.TimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Schedules 1M pending reservations spread over a 15 minute expiry window, then replays the window on a virtual
+ * clock, comparing the expiry wheel with a priority queue and with scanning every pending reservation on each
+ * poll the way the table sweep does. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Timing Wheel Benchmark")
+class TimingWheelBenchmark {
+
+    private static final int RESERVATIONS = 1_000_000;
+    private static final long WINDOW_MILLIS = 15 * 60 * 1000;
+    private static final long TICK_MILLIS = 10;
+    private static final long SCAN_INTERVAL_MILLIS = 60_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Scheduling and expiry cost with 1M pending reservations")
+    void reportSchedulingAndExpiryCost() {
+        UUID[] keys = new UUID[RESERVATIONS];
+        long[] deadlines = new long[RESERVATIONS];
+        Random random = new Random(7);
+        for (int i = 0; i < RESERVATIONS; i++) {
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+            deadlines[i] = START + 1 + (long) (random.nextDouble() * WINDOW_MILLIS);
+        }
+
+        // first round warms up the JIT, the second one is reported
+        for (int round = 0; round < 2; round++) {
+            System.out.printf("%16s %14s %14s %14s %14s%n", "structure", "schedule ms", "expire ms", "max lag ms", "fired");
+            wheel(keys, deadlines);
+            priorityQueue(keys, deadlines);
+            scan(deadlines);
+        }
+    }
+
+    private void wheel(UUID[] keys, long[] deadlines) {
+        TimingWheel<UUID> wheel = new TimingWheel<>(TICK_MILLIS, 512, 4, START);
+        long begin = System.nanoTime();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            wheel.schedule(keys[i], deadlines[i]);
+        }
+        long scheduled = System.nanoTime();
+
+        long[] maxLag = new long[1];
+        int fired = 0;
+        for (long now = START; now <= START + WINDOW_MILLIS + TICK_MILLIS; now += TICK_MILLIS) {
+            long clock = now;
+            fired += wheel.advance(now, (key, deadline) -> maxLag[0] = Math.max(maxLag[0], clock - deadline));
+        }
+        report("timing wheel", begin, scheduled, System.nanoTime(), maxLag[0], fired);
+        assertThat(fired).isEqualTo(RESERVATIONS);
+    }
+
+    private void priorityQueue(UUID[] keys, long[] deadlines) {
+        record Pending(UUID key, long deadline) {
+        }
+        PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> Long.compare(a.deadline(), b.deadline()));
+        Map<UUID, Long> index = new HashMap<>(); // same lazy cancellation as the wheel
+        long begin = System.nanoTime();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            index.put(keys[i], deadlines[i]);
+            queue.add(new Pending(keys[i], deadlines[i]));
+        }
+        long scheduled = System.nanoTime();
+
+        long maxLag = 0;
+        int fired = 0;
+        for (long now = START; now <= START + WINDOW_MILLIS + TICK_MILLIS; now += TICK_MILLIS) {
+            while (!queue.isEmpty() && queue.peek().deadline() <= now) {
+                Pending pending = queue.poll();
+                if (index.remove(pending.key(), pending.deadline())) {
+                    maxLag = Math.max(maxLag, now - pending.deadline());
+                    fired++;
+                }
+            }
+        }
+        report("priority queue", begin, scheduled, System.nanoTime(), maxLag, fired);
+        assertThat(fired).isEqualTo(RESERVATIONS);
+    }
+
+    // the table sweep: every poll looks at every pending reservation, and expiry waits for the next poll
+    private void scan(long[] deadlines) {
+        boolean[] expired = new boolean[RESERVATIONS];
+        long begin = System.nanoTime();
+        long maxLag = 0;
+        int fired = 0;
+        for (long now = START + SCAN_INTERVAL_MILLIS; now <= START + WINDOW_MILLIS + SCAN_INTERVAL_MILLIS; now += SCAN_INTERVAL_MILLIS) {
+            for (int i = 0; i < RESERVATIONS; i++) {
+                if (!expired[i] && deadlines[i] <= now) {
+                    expired[i] = true;
+                    maxLag = Math.max(maxLag, now - deadlines[i]);
+                    fired++;
+                }
+            }
+        }
+        report("table scan", begin, begin, System.nanoTime(), maxLag, fired);
+        assertThat(fired).isEqualTo(RESERVATIONS);
+    }
+
+    private static void report(String structure, long begin, long scheduled, long end, long maxLag, int fired) {
+        System.out.printf("%16s %14.1f %14.1f %14d %14d%n", structure, (scheduled - begin) / 1e6,
+                (end - scheduled) / 1e6, maxLag, fired);
+    }
+}
@@ -0,0 +1,28 @@
+package com.mazadak.inventory_service.config;
+
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Entry point for {@code @DataJpaTest} slices. The application class scans every component,
+ * so JPA tests point at this configuration and import the beans they exercise.
+ */
+@Configuration
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EntityScan(basePackageClasses = Inventory.class)
+@EnableJpaRepositories(basePackageClasses = InventoryRepository.class)
+public class JpaTestConfiguration {
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
@@ -0,0 +1,75 @@
+package com.mazadak.inventory_service.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.dto.response.ReservedItemDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("OutboxPayloadCodecs Tests")
+class OutboxPayloadCodecsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static ReservationResultDTO reservation(int items) {
+        List<UUID> reservationIds = new ArrayList<>();
+        List<ReservedItemDTO> reservedItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            UUID reservationId = UUID.randomUUID();
+            reservationIds.add(reservationId);
+            reservedItems.add(new ReservedItemDTO(UUID.randomUUID(), 2, 2, reservationId));
+        }
+        return new ReservationResultDTO(reservationIds, reservedItems);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "smile", "json-gzip", "smile-gzip"})
+    @DisplayName("Should read back what each codec wrote")
+    void shouldRoundTripEveryCodec(String codec) throws IOException {
+        // Arrange
+        OutboxPayloadCodecs codecs = new OutboxPayloadCodecs(objectMapper, codec, 0);
+        ReservationResultDTO event = reservation(20);
+
+        // Act
+        EncodedPayload payload = codecs.encode(event);
+
+        // Assert
+        assertThat(codecs.get(payload.codecId()).decode(payload.bytes(), ReservationResultDTO.class)).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Should only compress payloads above the threshold")
+    void shouldCompressOnlyAboveThreshold() throws IOException {
+        // Arrange
+        OutboxPayloadCodecs codecs = new OutboxPayloadCodecs(objectMapper, "smile-gzip", 512);
+
+        // Act
+        EncodedPayload small = codecs.encode(reservation(1));
+        EncodedPayload large = codecs.encode(reservation(50));
+
+        // Assert
+        assertThat(small.codecId()).isEqualTo(OutboxPayloadCodecs.SMILE);
+        assertThat(large.codecId()).isEqualTo(OutboxPayloadCodecs.SMILE_GZIP);
+        assertThat(codecs.get(large.codecId()).contentEncoding()).isEqualTo("gzip");
+        assertThat(large.bytes().length).isLessThan(objectMapper.writeValueAsBytes(reservation(50)).length);
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown codec name")
+    void shouldRejectUnknownCodec() {
+        // Act & Assert
+        assertThatThrownBy(() -> new OutboxPayloadCodecs(objectMapper, "avro", 512))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("avro");
+    }
+}
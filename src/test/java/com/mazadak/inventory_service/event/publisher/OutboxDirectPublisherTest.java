@@ -0,0 +1,98 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import com.mazadak.inventory_service.event.codec.EncodedPayload;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
+import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxDirectPublisher Tests")
+class OutboxDirectPublisherTest {
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxDirectPublisher outboxDirectPublisher;
+
+    private OutboxEvent outboxEvent;
+
+    @BeforeEach
+    void setUp() {
+        outboxDirectPublisher = new OutboxDirectPublisher(outboxPublisher, outboxEventRepository, transactionTemplate, 10);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        outboxEvent = new OutboxEvent("Inventory", "a", "InventoryDeleted",
+                new EncodedPayload(OutboxPayloadCodecs.JSON, new byte[]{'{', '}'}));
+        outboxEvent.setId(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxDirectPublisher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should mark an event published once the broker took it")
+    void shouldMarkPublishedAfterSend() {
+        // Arrange
+        when(outboxPublisher.send(outboxEvent)).thenReturn(true);
+
+        // Act
+        outboxDirectPublisher.publish(outboxEvent);
+
+        // Assert
+        verify(outboxEventRepository).markPublished(List.of(outboxEvent.getId()));
+    }
+
+    @Test
+    @DisplayName("Should leave an event to the relay when its send fails")
+    void shouldLeaveEventToRelayWhenSendFails() {
+        // Arrange
+        when(outboxPublisher.send(outboxEvent)).thenReturn(false);
+
+        // Act
+        outboxDirectPublisher.publish(outboxEvent);
+
+        // Assert
+        verify(outboxEventRepository, never()).markPublished(any());
+    }
+
+    @Test
+    @DisplayName("Should leave an event to the relay while an earlier event of its aggregate is unpublished")
+    void shouldLeaveEventToRelayBehindEarlierEvent() {
+        // Arrange
+        when(outboxEventRepository.existsEarlierUnpublished(outboxEvent.getAggregateId(), outboxEvent.getCreatedAt(),
+                outboxEvent.getId())).thenReturn(true);
+
+        // Act
+        outboxDirectPublisher.publish(outboxEvent);
+
+        // Assert
+        verify(outboxPublisher, never()).send(any());
+        verify(outboxEventRepository, never()).markPublished(any());
+    }
+}
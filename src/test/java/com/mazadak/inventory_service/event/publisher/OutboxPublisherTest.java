@@ -0,0 +1,272 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.constant.InventoryMessagingConstants;
+import com.mazadak.inventory_service.event.codec.EncodedPayload;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
+import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxPublisher Tests")
+class OutboxPublisherTest {
+
+    private static final String BINDING = InventoryMessagingConstants.INVENTORY_DELETED_BINDING;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private StreamBridge streamBridge;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboxPublisher outboxPublisher;
+
+    @BeforeEach
+    void setUp() {
+        outboxPublisher = new OutboxPublisher(outboxEventRepository, streamBridge,
+                new OutboxPayloadCodecs(new ObjectMapper(), "json", 512), transactionTemplate, 10, 4, 100, 0, 3, 1, 500,
+                meterRegistry);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(streamBridge.send(anyString(), any())).thenReturn(true);
+        lenient().when(outboxEventRepository.findPendingEvents(any(), any()))
+                .thenReturn(List.of(new PendingEvent(UUID.randomUUID(), null, START)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxPublisher.shutdown();
+    }
+
+    private static OutboxEvent event(String aggregateId, int second) {
+        OutboxEvent event = new OutboxEvent("Inventory", aggregateId, "InventoryDeleted", new EncodedPayload(
+                OutboxPayloadCodecs.JSON, (aggregateId + "-" + second).getBytes(StandardCharsets.UTF_8)));
+        event.setId(UUID.randomUUID());
+        event.setCreatedAt(START.plusSeconds(second));
+        return event;
+    }
+
+    // matches the message carrying the given payload
+    private static Object payload(String payload) {
+        return argThat(message -> message instanceof Message<?> sent
+                && Arrays.equals((byte[]) sent.getPayload(), payload.getBytes(StandardCharsets.UTF_8))
+                && "application/json".equals(sent.getHeaders().get(MessageHeaders.CONTENT_TYPE)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<UUID> acknowledged() {
+        ArgumentCaptor<Collection<UUID>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture());
+        return idsCaptor.getValue();
+    }
+
+    @Test
+    @DisplayName("Should send a claimed batch in aggregate order and acknowledge it in one update")
+    void shouldSendBatchInAggregateOrderAndAcknowledgeOnce() {
+        // Arrange
+        OutboxEvent first = event("a", 1);
+        OutboxEvent other = event("b", 2);
+        OutboxEvent second = event("a", 3);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(first, other, second));
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(3, 3));
+        InOrder inOrder = inOrder(streamBridge);
+        inOrder.verify(streamBridge).send(eq(BINDING), payload("a-1"));
+        inOrder.verify(streamBridge).send(eq(BINDING), payload("a-3"));
+        verify(streamBridge).send(eq(BINDING), payload("b-2"));
+        assertThat(acknowledged()).containsExactlyInAnyOrder(first.getId(), other.getId(), second.getId());
+        verify(outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should hold back the rest of an aggregate after a failed send")
+    void shouldHoldBackRestOfAggregateAfterFailedSend() {
+        // Arrange
+        OutboxEvent failing = event("a", 1);
+        OutboxEvent blocked = event("a", 2);
+        OutboxEvent other = event("b", 3);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(failing, blocked, other));
+        when(streamBridge.send(eq(BINDING), payload("a-1"))).thenThrow(new IllegalStateException("broker down"));
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(3, 1));
+        verify(streamBridge, never()).send(eq(BINDING), payload("a-2"));
+        assertThat(acknowledged()).containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed send and go on with its aggregate once it is delivered")
+    void shouldRetryFailedSendBeforeRestOfAggregate() {
+        // Arrange
+        OutboxEvent flaky = event("a", 1);
+        OutboxEvent next = event("a", 2);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(flaky, next));
+        when(streamBridge.send(eq(BINDING), payload("a-1")))
+                .thenThrow(new IllegalStateException("leader not available"))
+                .thenReturn(true);
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(2, 2));
+        InOrder inOrder = inOrder(streamBridge);
+        inOrder.verify(streamBridge, times(2)).send(eq(BINDING), payload("a-1"));
+        inOrder.verify(streamBridge).send(eq(BINDING), payload("a-2"));
+        assertThat(meterRegistry.get("outbox.relay.send.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("outbox.relay.send.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("outbox.relay.send").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("outbox.relay.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should leave an aggregate whose older events another relay holds for a later batch")
+    void shouldDeferAggregateHeldByAnotherRelay() {
+        // Arrange
+        OutboxEvent held = event("a", 5);
+        OutboxEvent other = event("b", 6);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(held, other));
+        when(outboxEventRepository.findPendingEvents(any(), any())).thenReturn(List.of(
+                new PendingEvent(UUID.randomUUID(), "a", START.plusSeconds(4)),
+                new PendingEvent(held.getId(), "a", held.getCreatedAt()),
+                new PendingEvent(other.getId(), "b", other.getCreatedAt())));
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(2, 1));
+        verify(streamBridge, never()).send(eq(BINDING), payload("a-5"));
+        assertThat(acknowledged()).containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("Should keep relaying full batches until the backlog is drained")
+    void shouldRelayFullBatchesUntilDrained() {
+        // Arrange
+        List<OutboxEvent> fullBatch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            fullBatch.add(event("p" + i, i));
+        }
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any()))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of(event("q", 20)))
+                .thenReturn(List.of());
+
+        // Act
+        outboxPublisher.publishPendingEvents();
+
+        // Assert
+        verify(outboxEventRepository, times(2)).lockUnpublishedEvents(any(), any());
+        verify(outboxEventRepository, times(2)).markPublished(any());
+        verify(streamBridge, times(11)).send(eq(BINDING), any());
+    }
+
+    @Test
+    @DisplayName("Should relay the JSON text of a row written before payloads were encoded")
+    void shouldRelayLegacyPayload() {
+        // Arrange
+        OutboxEvent legacy = new OutboxEvent();
+        legacy.setId(UUID.randomUUID());
+        legacy.setAggregateType("Inventory");
+        legacy.setAggregateId("a");
+        legacy.setEventType("InventoryDeleted");
+        legacy.setLegacyPayload("a-legacy");
+        legacy.setCreatedAt(START);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(legacy));
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(1, 1));
+        verify(streamBridge).send(eq(BINDING), payload("a-legacy"));
+        assertThat(acknowledged()).containsExactly(legacy.getId());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting on a lane at the batch timeout and acknowledge only what was confirmed")
+    void shouldStopWaitingOnLaneAtBatchTimeout() {
+        // Arrange
+        OutboxEvent stuck = event("a", 1);
+        OutboxEvent behindStuck = event("a", 2);
+        OutboxEvent other = event("b", 3);
+        CountDownLatch broker = new CountDownLatch(1);
+        when(streamBridge.send(eq(BINDING), payload("a-1"))).thenAnswer(invocation -> broker.await(5, TimeUnit.SECONDS));
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any()))
+                .thenReturn(List.of(stuck, behindStuck, other));
+
+        // Act
+        OutboxPublisher.BatchResult result = outboxPublisher.relayBatch();
+        broker.countDown();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(3, 1));
+        assertThat(acknowledged()).containsExactly(other.getId());
+        verify(streamBridge, after(200).never()).send(eq(BINDING), payload("a-2"));
+    }
+
+    @Test
+    @DisplayName("Should not retry an event after its lane was given up at the batch timeout")
+    void shouldNotRetryAfterLaneTimedOut() {
+        // Arrange
+        OutboxPublisher slowRetries = new OutboxPublisher(outboxEventRepository, streamBridge,
+                new OutboxPayloadCodecs(new ObjectMapper(), "json", 512), transactionTemplate, 10, 4, 100, 0, 3, 300,
+                100, meterRegistry);
+        OutboxEvent failing = event("a", 1);
+        when(streamBridge.send(eq(BINDING), payload("a-1"))).thenReturn(false);
+        when(outboxEventRepository.lockUnpublishedEvents(any(), any())).thenReturn(List.of(failing));
+
+        // Act
+        OutboxPublisher.BatchResult result = slowRetries.relayBatch();
+
+        // Assert
+        assertThat(result).isEqualTo(new OutboxPublisher.BatchResult(1, 0));
+        verify(streamBridge, after(500).times(1)).send(eq(BINDING), payload("a-1"));
+        slowRetries.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.mazadak.inventory_service.event.publisher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxWakeup Tests")
+class OutboxWakeupTest {
+
+    private static final long DEBOUNCE_MS = 50;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    private final FakeNotifications notifications = new FakeNotifications();
+
+    private OutboxWakeup outboxWakeup;
+
+    @BeforeEach
+    void setUp() {
+        outboxWakeup = new OutboxWakeup(notifications, outboxPublisher, DEBOUNCE_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxWakeup.stop();
+    }
+
+    // notifications raised in memory instead of by a database trigger
+    private static class FakeNotifications implements OutboxNotifications {
+
+        private final BlockingQueue<Boolean> signals = new LinkedBlockingQueue<>();
+
+        void signal() {
+            signals.add(true);
+        }
+
+        @Override
+        public boolean await(long timeoutMillis) {
+            try {
+                return signals.poll(timeoutMillis, TimeUnit.MILLISECONDS) != null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    @DisplayName("Should drain a burst of notifications with a single relay run")
+    void shouldDrainBurstOnce() throws InterruptedException {
+        // Arrange
+        CountDownLatch drained = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            drained.countDown();
+            return null;
+        }).when(outboxPublisher).publishPendingEvents();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            outboxWakeup.requestDrain();
+        }
+
+        // Assert
+        assertThat(drained.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(DEBOUNCE_MS * 3);
+        verify(outboxPublisher, times(1)).publishPendingEvents();
+    }
+
+    @Test
+    @DisplayName("Should catch up on start and relay again for each later notification")
+    void shouldRelayOnStartAndOnNotification() {
+        // Act
+        outboxWakeup.start();
+        verify(outboxPublisher, timeout(1000).times(1)).publishPendingEvents();
+        notifications.signal();
+
+        // Assert
+        verify(outboxPublisher, timeout(1000).times(2)).publishPendingEvents();
+    }
+}
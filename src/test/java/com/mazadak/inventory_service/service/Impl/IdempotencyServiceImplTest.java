@@ -0,0 +1,273 @@
+package com.mazadak.inventory_service.service.Impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.exception.IdempotencyKeyInProgressException;
+import com.mazadak.inventory_service.model.IdempotencyRecord;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
+import com.mazadak.inventory_service.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyService Tests")
+class IdempotencyServiceImplTest {
+
+    private static final TypeReference<InventoryDTO> INVENTORY_DTO = new TypeReference<>() {};
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private UUID idempotencyKey;
+    private AddInventoryRequest request;
+    private InventoryDTO response;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, 60, 100);
+        idempotencyKey = UUID.randomUUID();
+        request = new AddInventoryRequest(UUID.randomUUID(), 5);
+        response = new InventoryDTO(request.productId(), 5, 0);
+        executions = new AtomicInteger();
+    }
+
+    private InventoryDTO execute(AddInventoryRequest request) {
+        return idempotencyService.execute(idempotencyKey, IdempotentOperation.ADD_INVENTORY, request, INVENTORY_DTO,
+                () -> {
+                    executions.incrementAndGet();
+                    return response;
+                });
+    }
+
+    private IdempotencyRecord recordedResponse(AddInventoryRequest request, LocalDateTime expiresAt) {
+        ArgumentCaptor<String> requestHashCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> responseCaptor = ArgumentCaptor.forClass(String.class);
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.claim(eq(idempotencyKey), any(), any(), any())).thenReturn(1);
+        execute(request);
+        verify(idempotencyRecordRepository).claim(eq(idempotencyKey), any(), requestHashCaptor.capture(), any());
+        verify(idempotencyRecordRepository).recordResponse(eq(idempotencyKey), responseCaptor.capture());
+
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .idempotencyKey(idempotencyKey)
+                .operation(IdempotentOperation.ADD_INVENTORY)
+                .requestHash(requestHashCaptor.getValue())
+                .response(responseCaptor.getValue())
+                .expiresAt(expiresAt)
+                .build();
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, 60, 100);
+        executions.set(0);
+        reset(idempotencyRecordRepository);
+        return record;
+    }
+
+    @Test
+    @DisplayName("Should run action without recording when key is null")
+    void shouldRunActionWithoutRecordingWhenKeyIsNull() {
+        // Act
+        InventoryDTO result = idempotencyService.execute(null, IdempotentOperation.ADD_INVENTORY, request,
+                INVENTORY_DTO, () -> response);
+
+        // Assert
+        assertThat(result).isEqualTo(response);
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Should claim the key before running the action and record its response")
+    void shouldRunActionAndRecordResponseForNewKey() throws Exception {
+        // Arrange
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.claim(eq(idempotencyKey), any(), any(), any())).thenReturn(1);
+
+        // Act
+        InventoryDTO result = execute(request);
+
+        // Assert
+        assertThat(result).isEqualTo(response);
+        assertThat(executions.get()).isEqualTo(1);
+
+        ArgumentCaptor<String> requestHashCaptor = ArgumentCaptor.forClass(String.class);
+        InOrder inOrder = inOrder(idempotencyRecordRepository);
+        inOrder.verify(idempotencyRecordRepository).claim(eq(idempotencyKey),
+                eq(IdempotentOperation.ADD_INVENTORY.name()), requestHashCaptor.capture(), any(LocalDateTime.class));
+        inOrder.verify(idempotencyRecordRepository).recordResponse(idempotencyKey,
+                objectMapper.writeValueAsString(response));
+        assertThat(requestHashCaptor.getValue()).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("Should replay the response of a concurrent request that claimed the key first")
+    void shouldReplayResponseOfConcurrentClaim() {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().plusMinutes(5));
+        when(idempotencyRecordRepository.findById(idempotencyKey))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(record));
+        when(idempotencyRecordRepository.claim(eq(idempotencyKey), any(), any(), any())).thenReturn(0);
+
+        // Act
+        InventoryDTO result = execute(request);
+
+        // Assert
+        assertThat(result).isEqualTo(response);
+        assertThat(executions.get()).isZero();
+        verify(idempotencyRecordRepository, never()).recordResponse(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should release the claim when the action fails")
+    void shouldReleaseClaimWhenActionFails() {
+        // Arrange
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.claim(eq(idempotencyKey), any(), any(), any())).thenReturn(1);
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyService.execute(idempotencyKey, IdempotentOperation.ADD_INVENTORY,
+                request, INVENTORY_DTO, () -> { throw new IllegalStateException("failed"); }))
+                .hasMessage("failed");
+        verify(idempotencyRecordRepository).deleteByIdempotencyKey(idempotencyKey);
+        verify(idempotencyRecordRepository, never()).recordResponse(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the recorded response as stored")
+    void shouldFindRecordedResponseAsStored() {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().plusMinutes(5));
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(record));
+
+        // Act
+        Optional<String> recorded = idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.ADD_INVENTORY, request);
+
+        // Assert
+        assertThat(recorded).contains(record.getResponse());
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should replay recorded response and serve later replays from cache")
+    void shouldReplayRecordedResponseFromStoreThenCache() throws Exception {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().plusMinutes(5));
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(record));
+
+        // Act
+        InventoryDTO first = execute(request);
+        InventoryDTO second = execute(request);
+
+        // Assert
+        assertThat(first).isEqualTo(response);
+        assertThat(second).isEqualTo(response);
+        assertThat(objectMapper.writeValueAsString(first)).isEqualTo(record.getResponse());
+        assertThat(executions.get()).isZero();
+        verify(idempotencyRecordRepository, times(1)).findById(idempotencyKey);
+        verify(idempotencyRecordRepository, never()).claim(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().plusMinutes(5));
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(record));
+
+        // Act & Assert
+        assertThatThrownBy(() -> execute(new AddInventoryRequest(request.productId(), 6)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should run action again once the recorded key has expired")
+    void shouldRunActionAgainWhenKeyExpired() {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().minusMinutes(1));
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(record));
+        when(idempotencyRecordRepository.claim(eq(idempotencyKey), any(), any(), any())).thenReturn(1);
+
+        // Act
+        InventoryDTO result = execute(request);
+
+        // Assert
+        assertThat(result).isEqualTo(response);
+        assertThat(executions.get()).isEqualTo(1);
+        InOrder inOrder = inOrder(idempotencyRecordRepository);
+        inOrder.verify(idempotencyRecordRepository).deleteIfExpired(eq(idempotencyKey), any(LocalDateTime.class));
+        inOrder.verify(idempotencyRecordRepository).claim(eq(idempotencyKey), any(), any(), any());
+        inOrder.verify(idempotencyRecordRepository).recordResponse(eq(idempotencyKey), any());
+    }
+
+    @Test
+    @DisplayName("Should find nothing for an expired key without writing")
+    void shouldFindNothingForExpiredKeyWithoutWriting() {
+        // Arrange
+        IdempotencyRecord record = recordedResponse(request, LocalDateTime.now().minusMinutes(1));
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(record));
+
+        // Act
+        Optional<String> recorded = idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.ADD_INVENTORY, request);
+
+        // Assert
+        assertThat(recorded).isEmpty();
+        verify(idempotencyRecordRepository).findById(idempotencyKey);
+        verifyNoMoreInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Should report a key whose first request is still running as in progress")
+    void shouldReportKeyStillInProgress() {
+        // Arrange
+        IdempotencyRecord claimed = IdempotencyRecord.builder()
+                .idempotencyKey(idempotencyKey)
+                .operation(IdempotentOperation.ADD_INVENTORY)
+                .requestHash("hash")
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build();
+        when(idempotencyRecordRepository.findById(idempotencyKey)).thenReturn(Optional.of(claimed));
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyService.findRecordedResponse(idempotencyKey,
+                IdempotentOperation.ADD_INVENTORY, request))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+    }
+
+    @Test
+    @DisplayName("Should delete expired keys")
+    void shouldDeleteExpiredKeys() {
+        // Arrange
+        when(idempotencyRecordRepository.deleteExpired(any(LocalDateTime.class))).thenReturn(3);
+
+        // Act
+        int deleted = idempotencyService.deleteExpiredKeys();
+
+        // Assert
+        assertThat(deleted).isEqualTo(3);
+    }
+}
@@ -0,0 +1,258 @@
+package com.mazadak.inventory_service.service.Impl;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.config.JpaTestConfiguration;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.mapper.InventoryReservationMapper;
+import com.mazadak.inventory_service.mapper.InventoryReservationMapperImpl;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.model.InventoryReservation;
+import com.mazadak.inventory_service.model.enums.ReservationStatus;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryReservationRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.concurrency.AtomicStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.OptimisticStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.PessimisticStockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.concurrency.StockConcurrencyStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Import({InventoryReservationMapperImpl.class, IdempotencyServiceImpl.class, InventoryShardServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("InventoryReservationService Concurrency Tests")
+class InventoryReservationConcurrencyTest {
+
+    private static final int STOCK = 100;
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 400;
+    private static final int SHARDS = 4;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryReservationRepository inventoryReservationRepository;
+
+    @Autowired
+    private InventoryReservationMapper inventoryReservationMapper;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private InventoryShardService inventoryShardService;
+
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = UUID.randomUUID();
+
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setTotalQuantity(STOCK);
+        inventory.setReservedQuantity(0);
+        inventoryRepository.save(inventory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryReservationRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+    }
+
+    private InventoryReservationServiceImpl reservationServiceWith(String strategy) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockConcurrencyStrategy stockConcurrencyStrategy = switch (strategy) {
+            case "pessimistic" -> new PessimisticStockConcurrencyStrategy(inventoryRepository, false, 1, 1, meterRegistry);
+            case "pessimistic-nowait" -> new PessimisticStockConcurrencyStrategy(inventoryRepository, true, 100, 1, meterRegistry);
+            case "optimistic" -> new OptimisticStockConcurrencyStrategy(inventoryRepository, 100, 1, meterRegistry);
+            case "atomic" -> new AtomicStockConcurrencyStrategy(inventoryRepository, 5, meterRegistry);
+            default -> throw new IllegalArgumentException(strategy);
+        };
+        return new InventoryReservationServiceImpl(inventoryRepository, inventoryReservationRepository,
+                inventoryReservationMapper, idempotencyService, inventoryShardService, stockConcurrencyStrategy,
+                transactionTemplate, applicationEventPublisher);
+    }
+
+    private int reservationsTotal() {
+        return inventoryReservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.RESERVED)
+                .mapToInt(InventoryReservation::getQuantity)
+                .sum();
+    }
+
+    // returns the quantity reserved by REQUESTS concurrent reservations of 1 to 3 units
+    private int reserveConcurrently(InventoryReservationServiceImpl inventoryReservationService) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            int quantity = 1 + i % 3;
+            futures.add(executor.submit(() -> {
+                start.await();
+                var request = new ReserveInventoryRequest(
+                        List.of(new reserveItemDTO(productId, quantity)), UUID.randomUUID());
+                try {
+                    inventoryReservationService.reserveInventory(UUID.randomUUID(), request);
+                    reserved.addAndGet(quantity);
+                } catch (NotEnoughStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(rejected.get()).isPositive();
+        return reserved.get();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"pessimistic", "pessimistic-nowait", "optimistic", "atomic"})
+    @DisplayName("Should never oversell a single product under concurrent reservations")
+    void shouldNeverOversellUnderConcurrentReservations(String strategy) throws Exception {
+        // Arrange
+        InventoryReservationServiceImpl inventoryReservationService = reservationServiceWith(strategy);
+
+        // Act
+        int reserved = reserveConcurrently(inventoryReservationService);
+
+        // Assert
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertThat(inventory.getReservedQuantity()).isLessThanOrEqualTo(STOCK);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(reserved);
+        assertThat(reservationsTotal()).isEqualTo(reserved);
+        assertThat(STOCK - inventory.getReservedQuantity()).isLessThan(3); // only a remainder smaller than the largest request is left
+    }
+
+    @Test
+    @DisplayName("Should reserve once for concurrent requests with the same idempotency key")
+    void shouldReserveOnceForConcurrentRequestsWithSameKey() throws Exception {
+        // Arrange
+        InventoryReservationServiceImpl inventoryReservationService = reservationServiceWith("pessimistic");
+        UUID idempotencyKey = UUID.randomUUID();
+        var request = new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 2)), UUID.randomUUID());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return inventoryReservationService.reserveInventory(idempotencyKey, request);
+            }));
+        }
+        start.countDown();
+        List<List<UUID>> responses = new ArrayList<>();
+        for (Future<List<UUID>> future : futures) {
+            responses.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(responses).allSatisfy(response -> assertThat(response).isEqualTo(responses.get(0)));
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getReservedQuantity()).isEqualTo(2);
+        assertThat(reservationsTotal()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should never oversell a sharded product and merge its shards back")
+    void shouldNeverOversellShardedProduct() throws Exception {
+        // Arrange
+        InventoryReservationServiceImpl inventoryReservationService = reservationServiceWith("pessimistic");
+        inventoryShardService.shardInventory(productId, SHARDS);
+
+        // Act
+        int reserved = reserveConcurrently(inventoryReservationService);
+
+        // Assert
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        InventoryDTO sharded = inventoryShardService.getShardedInventory(inventory);
+        assertThat(sharded.totalQuantity()).isEqualTo(STOCK);
+        assertThat(sharded.reservedQuantity()).isEqualTo(reserved);
+        assertThat(reservationsTotal()).isEqualTo(reserved);
+        assertThat(STOCK - reserved).isLessThan(3 * SHARDS); // every shard may keep a remainder of its own
+
+        InventoryDTO merged = inventoryShardService.mergeShards(productId);
+        assertThat(merged).isEqualTo(sharded);
+        assertThat(inventoryShardRepository.count()).isZero();
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getReservedQuantity()).isEqualTo(reserved);
+    }
+
+    @Test
+    @DisplayName("Should expire overdue reservations in chunks and hand their stock back")
+    void shouldExpireOverdueReservationsInChunks() {
+        // Arrange
+        InventoryReservationServiceImpl inventoryReservationService = reservationServiceWith("pessimistic");
+        for (int i = 0; i < 5; i++) {
+            inventoryReservationService.reserveInventory(UUID.randomUUID(), new ReserveInventoryRequest(
+                    List.of(new reserveItemDTO(productId, 3)), UUID.randomUUID()));
+        }
+        List<InventoryReservation> reservations = inventoryReservationRepository.findAll();
+        reservations.forEach(reservation -> reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+        inventoryReservationRepository.saveAll(reservations);
+
+        // Act
+        int firstChunk = inventoryReservationService.expireOverdueReservations(2);
+        int secondChunk = inventoryReservationService.expireOverdueReservations(2);
+        int thirdChunk = inventoryReservationService.expireOverdueReservations(2);
+        int fourthChunk = inventoryReservationService.expireOverdueReservations(2);
+
+        // Assert
+        assertThat(List.of(firstChunk, secondChunk, thirdChunk, fourthChunk)).containsExactly(2, 2, 1, 0);
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow().getReservedQuantity()).isZero();
+        assertThat(inventoryReservationRepository.findAll())
+                .allMatch(reservation -> reservation.getStatus() == ReservationStatus.EXPIRED);
+    }
+}
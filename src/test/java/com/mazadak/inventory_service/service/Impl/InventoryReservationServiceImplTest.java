@@ -7,29 +7,52 @@ import com.mazadak.inventory_service.dto.request.ConfirmReservationRequest;
 import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
 import com.mazadak.inventory_service.dto.request.reserveItemDTO;
 import com.mazadak.inventory_service.dto.response.InventoryReservationDTO;
+import com.mazadak.inventory_service.dto.response.ReservationHoldDTO;
+import com.mazadak.inventory_service.dto.response.ReservationResultDTO;
+import com.mazadak.inventory_service.dto.response.ReservedItemDTO;
+import com.mazadak.inventory_service.event.ReservationExpiryEvent;
 import com.mazadak.inventory_service.mapper.InventoryReservationMapper;
 import com.mazadak.inventory_service.model.Inventory;
 import com.mazadak.inventory_service.model.InventoryReservation;
+import com.mazadak.inventory_service.model.enums.FillPolicy;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
 import com.mazadak.inventory_service.model.enums.ReservationStatus;
 import com.mazadak.inventory_service.repository.InventoryRepository;
 import com.mazadak.inventory_service.repository.InventoryReservationRepository;
-import com.mazadak.inventory_service.service.InventoryService;
+import com.mazadak.inventory_service.service.IdempotencyService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.concurrency.StockConcurrencyStrategy;
+import com.mazadak.inventory_service.service.expiry.ExpiredStock;
+import com.mazadak.inventory_service.service.groupcommit.PendingReservation;
+import com.mazadak.inventory_service.service.groupcommit.ReservationOutcome;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,10 +66,22 @@ class InventoryReservationServiceImplTest {
     private InventoryReservationRepository inventoryReservationRepository;
 
     @Mock
-    private InventoryService inventoryService;
+    private InventoryReservationMapper inventoryReservationMapper;
 
     @Mock
-    private InventoryReservationMapper inventoryReservationMapper;
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private InventoryShardService inventoryShardService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private StockConcurrencyStrategy stockConcurrencyStrategy;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     @InjectMocks
     private InventoryReservationServiceImpl inventoryReservationService;
@@ -55,6 +90,7 @@ class InventoryReservationServiceImplTest {
     private UUID orderId;
     private UUID idempotencyKey;
     private UUID reservationId;
+    private UUID inventoryId;
     private Inventory inventory;
     private InventoryReservation inventoryReservation;
     private InventoryReservationDTO inventoryReservationDTO;
@@ -65,9 +101,10 @@ class InventoryReservationServiceImplTest {
         reservationId = UUID.randomUUID();
         productId = UUID.randomUUID();
         orderId = UUID.randomUUID();
+        inventoryId = UUID.randomUUID();
 
         inventory = new Inventory();
-        inventory.setInventoryId(UUID.randomUUID());
+        inventory.setInventoryId(inventoryId);
         inventory.setProductId(productId);
         inventory.setTotalQuantity(100);
         inventory.setReservedQuantity(20);
@@ -91,6 +128,13 @@ class InventoryReservationServiceImplTest {
                 10,
                 ReservationStatus.RESERVED
         );
+
+        lenient().when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        lenient().when(stockConcurrencyStrategy.execute(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        lenient().when(stockConcurrencyStrategy.loadInventories(any()))
+                .thenAnswer(invocation -> inventoryRepository.lockUnshardedByProductIdIn(invocation.getArgument(0)));
     }
 
     @Nested
@@ -106,15 +150,29 @@ class InventoryReservationServiceImplTest {
             reserveRequest = new ReserveInventoryRequest(List.of(reserveItem), orderId);
         }
 
+        @Test
+        @DisplayName("Should reserve in a transaction of its own rather than join the caller's")
+        void shouldReserveInNewTransaction() {
+            // Arrange
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+            when(inventoryReservationRepository.saveAll(anyList())).thenReturn(List.of(inventoryReservation));
+            ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+            // Act
+            inventoryReservationService.reserveInventory(idempotencyKey, reserveRequest);
+
+            // Assert
+            verify(transactionTemplate.getTransactionManager()).getTransaction(definitionCaptor.capture());
+            assertThat(definitionCaptor.getValue().getPropagationBehavior())
+                    .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+
         @Test
         @DisplayName("Should reserve inventory successfully for single item")
         void shouldReserveInventorySuccessfullyForSingleItem() {
             // Arrange
-            when(inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(productId, idempotencyKey))
-                    .thenReturn(Optional.empty());
-            when(inventoryService.findOrCreateInventory(productId)).thenReturn(inventory);
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
-            when(inventoryReservationRepository.save(any(InventoryReservation.class))).thenReturn(inventoryReservation);
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+            when(inventoryReservationRepository.saveAll(anyList())).thenReturn(List.of(inventoryReservation));
 
             // Act
             List<UUID> result = inventoryReservationService.reserveInventory(idempotencyKey, reserveRequest);
@@ -124,12 +182,13 @@ class InventoryReservationServiceImplTest {
             assertThat(result).hasSize(1);
             assertThat(result.get(0)).isEqualTo(reservationId);
             assertThat(inventory.getReservedQuantity()).isEqualTo(30); // 20 + 10
-            assertThat(inventory.getIdempotencyKey()).isEqualTo(idempotencyKey);
+            verify(inventoryRepository, never()).save(any());
 
-            ArgumentCaptor<InventoryReservation> reservationCaptor = ArgumentCaptor.forClass(InventoryReservation.class);
-            verify(inventoryReservationRepository).save(reservationCaptor.capture());
+            ArgumentCaptor<List<InventoryReservation>> reservationCaptor = ArgumentCaptor.forClass(List.class);
+            verify(inventoryReservationRepository).saveAll(reservationCaptor.capture());
 
-            InventoryReservation savedReservation = reservationCaptor.getValue();
+            InventoryReservation savedReservation = reservationCaptor.getValue().get(0);
+            assertThat(savedReservation.getInventory()).isEqualTo(inventory);
             assertThat(savedReservation.getOrderId()).isEqualTo(orderId);
             assertThat(savedReservation.getQuantity()).isEqualTo(10);
             assertThat(savedReservation.getStatus()).isEqualTo(ReservationStatus.RESERVED);
@@ -137,20 +196,40 @@ class InventoryReservationServiceImplTest {
         }
 
         @Test
-        @DisplayName("Should return null when reservation already exists (idempotency)")
-        void shouldReturnNullWhenReservationAlreadyExists() {
+        @DisplayName("Should hold reservations for the TTL set on the product")
+        void shouldHoldReservationsForProductTtl() {
             // Arrange
-            when(inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(productId, idempotencyKey))
-                    .thenReturn(Optional.of(inventoryReservation));
+            ReflectionTestUtils.setField(inventoryReservationService, "reservationTimeoutMinutes", 15);
+            ReflectionTestUtils.setField(inventoryReservationService, "maxHoldMinutes", 120);
+            inventory.setReservationTtlMinutes(3);
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+            when(inventoryReservationRepository.saveAll(anyList())).thenReturn(List.of(inventoryReservation));
+            LocalDateTime before = LocalDateTime.now();
+
+            // Act
+            inventoryReservationService.reserveInventory(idempotencyKey, reserveRequest);
+
+            // Assert
+            ArgumentCaptor<List<InventoryReservation>> reservationCaptor = ArgumentCaptor.forClass(List.class);
+            verify(inventoryReservationRepository).saveAll(reservationCaptor.capture());
+            assertThat(reservationCaptor.getValue().get(0).getExpiresAt())
+                    .isBetween(before.plusMinutes(3), LocalDateTime.now().plusMinutes(3));
+        }
+
+        @Test
+        @DisplayName("Should replay recorded reservation ids when idempotency key exists")
+        void shouldReplayRecordedReservationIdsWhenIdempotencyKeyExists() {
+            // Arrange
+            doReturn(List.of(reservationId)).when(idempotencyService).execute(
+                    eq(idempotencyKey), eq(IdempotentOperation.RESERVE_INVENTORY), eq(reserveRequest), any(), any());
 
             // Act
             List<UUID> result = inventoryReservationService.reserveInventory(idempotencyKey, reserveRequest);
 
             // Assert
-            assertThat(result).isNull();
-            verify(inventoryService, never()).findOrCreateInventory(any());
-            verify(inventoryRepository, never()).save(any());
-            verify(inventoryReservationRepository, never()).save(any());
+            assertThat(result).containsExactly(reservationId);
+            verify(inventoryRepository, never()).lockUnshardedByProductIdIn(any());
+            verify(inventoryReservationRepository, never()).saveAll(any());
         }
 
         @Test
@@ -162,16 +241,52 @@ class InventoryReservationServiceImplTest {
             reserveItemDTO item = new reserveItemDTO(productId, 10);
             ReserveInventoryRequest request = new ReserveInventoryRequest(List.of(item), orderId);
 
-            when(inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(productId, idempotencyKey))
-                    .thenReturn(Optional.empty());
-            when(inventoryService.findOrCreateInventory(productId)).thenReturn(inventory);
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
 
             // Act & Assert
             assertThatThrownBy(() -> inventoryReservationService.reserveInventory(idempotencyKey, request))
                     .isInstanceOf(NotEnoughStockException.class);
 
-            verify(inventoryRepository, never()).save(any());
-            verify(inventoryReservationRepository, never()).save(any());
+            assertThat(inventory.getReservedQuantity()).isEqualTo(95);
+            verify(inventoryReservationRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should throw exception when product has no inventory")
+        void shouldThrowExceptionWhenProductHasNoInventory() {
+            // Arrange
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of());
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.reserveInventory(idempotencyKey, reserveRequest))
+                    .isInstanceOf(NotEnoughStockException.class);
+
+            verify(inventoryReservationRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should not update any inventory when one of the items is short")
+        void shouldNotUpdateAnyInventoryWhenOneItemIsShort() {
+            // Arrange
+            UUID productId2 = UUID.randomUUID();
+            Inventory inventory2 = new Inventory();
+            inventory2.setInventoryId(UUID.randomUUID());
+            inventory2.setProductId(productId2);
+            inventory2.setTotalQuantity(5);
+            inventory2.setReservedQuantity(5);
+
+            ReserveInventoryRequest request = new ReserveInventoryRequest(
+                    List.of(reserveItem, new reserveItemDTO(productId2, 1)), orderId);
+
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId, productId2)))
+                    .thenReturn(List.of(inventory, inventory2));
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.reserveInventory(idempotencyKey, request))
+                    .isInstanceOf(NotEnoughStockException.class);
+
+            assertThat(inventory.getReservedQuantity()).isEqualTo(20);
+            verify(inventoryReservationRepository, never()).saveAll(any());
         }
 
         @Test
@@ -202,26 +317,168 @@ class InventoryReservationServiceImplTest {
             reserveItemDTO item2 = new reserveItemDTO(productId2, 5);
             ReserveInventoryRequest multiItemRequest = new ReserveInventoryRequest(List.of(item1, item2), orderId);
 
-            when(inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(productId, idempotencyKey))
-                    .thenReturn(Optional.empty());
-            when(inventoryReservationRepository.findByInventory_ProductIdAndIdempotencyKey(productId2, idempotencyKey))
-                    .thenReturn(Optional.empty());
-            when(inventoryService.findOrCreateInventory(productId)).thenReturn(inventory);
-            when(inventoryService.findOrCreateInventory(productId2)).thenReturn(inventory2);
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
-            when(inventoryRepository.save(inventory2)).thenReturn(inventory2);
-            when(inventoryReservationRepository.save(any(InventoryReservation.class)))
-                    .thenReturn(inventoryReservation, reservation2);
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId, productId2)))
+                    .thenReturn(List.of(inventory, inventory2));
+            when(inventoryReservationRepository.saveAll(anyList()))
+                    .thenReturn(List.of(inventoryReservation, reservation2));
 
             // Act
             List<UUID> result = inventoryReservationService.reserveInventory(idempotencyKey, multiItemRequest);
 
             // Assert
             assertThat(result).isNotNull();
-            assertThat(result).hasSize(2);
+            assertThat(result).containsExactly(reservationId, reservationId2);
             assertThat(inventory.getReservedQuantity()).isEqualTo(30);
             assertThat(inventory2.getReservedQuantity()).isEqualTo(15);
-            verify(inventoryReservationRepository, times(2)).save(any(InventoryReservation.class));
+            verify(inventoryRepository).lockUnshardedByProductIdIn(Set.of(productId, productId2));
+            verify(inventoryReservationRepository).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("Should check combined quantity when a product appears on several lines")
+        void shouldCheckCombinedQuantityForRepeatedProduct() {
+            // Arrange
+            inventory.setTotalQuantity(30);
+            inventory.setReservedQuantity(15);
+            ReserveInventoryRequest request = new ReserveInventoryRequest(
+                    List.of(new reserveItemDTO(productId, 10), new reserveItemDTO(productId, 10)), orderId);
+
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.reserveInventory(idempotencyKey, request))
+                    .isInstanceOf(NotEnoughStockException.class);
+
+            verify(inventoryReservationRepository, never()).saveAll(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("ReserveInventoryGroup Tests")
+    class ReserveInventoryGroupTests {
+
+        @Test
+        @DisplayName("Should lock once and give each request of the group its own outcome")
+        void shouldGiveEachRequestOfGroupItsOwnOutcome() {
+            // Arrange
+            inventory.setTotalQuantity(30);
+            inventory.setReservedQuantity(15);
+            PendingReservation first = new PendingReservation(UUID.randomUUID(),
+                    new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 10)), orderId));
+            PendingReservation second = new PendingReservation(UUID.randomUUID(),
+                    new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 10)), UUID.randomUUID()));
+            PendingReservation third = new PendingReservation(UUID.randomUUID(),
+                    new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 5)), UUID.randomUUID()));
+
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+            when(inventoryReservationRepository.saveAll(anyList())).thenReturn(List.of(inventoryReservation));
+
+            // Act
+            List<ReservationOutcome> outcomes =
+                    inventoryReservationService.reserveInventoryGroup(List.of(first, second, third));
+
+            // Assert
+            assertThat(outcomes).hasSize(3);
+            assertThat(outcomes.get(0).getOrThrow()).containsExactly(reservationId);
+            assertThat(outcomes.get(1).failure()).isInstanceOf(NotEnoughStockException.class);
+            assertThat(outcomes.get(2).getOrThrow()).containsExactly(reservationId);
+            assertThat(inventory.getReservedQuantity()).isEqualTo(30); // 15 + 10 + 5
+            verify(inventoryRepository, times(1)).lockUnshardedByProductIdIn(any());
+            verify(inventoryReservationRepository, times(2)).saveAll(anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("ReserveAvailableInventory Tests")
+    class ReserveAvailableInventoryTests {
+
+        private UUID otherProductId;
+        private Inventory otherInventory;
+
+        @BeforeEach
+        void setUp() {
+            inventory.setReservedQuantity(95);
+
+            otherProductId = UUID.randomUUID();
+            otherInventory = new Inventory();
+            otherInventory.setInventoryId(UUID.randomUUID());
+            otherInventory.setProductId(otherProductId);
+            otherInventory.setTotalQuantity(50);
+            otherInventory.setReservedQuantity(0);
+
+            lenient().when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId, otherProductId)))
+                    .thenReturn(List.of(inventory, otherInventory));
+            lenient().when(inventoryReservationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<InventoryReservation> reservations = invocation.getArgument(0);
+                reservations.forEach(reservation -> reservation.setInventoryReservationId(UUID.randomUUID()));
+                return reservations;
+            });
+        }
+
+        @Test
+        @DisplayName("Should grant what is available to short items with PARTIAL")
+        void shouldGrantAvailableQuantityWithPartial() {
+            // Arrange
+            ReserveInventoryRequest request = new ReserveInventoryRequest(List.of(
+                    new reserveItemDTO(productId, 10), new reserveItemDTO(otherProductId, 3)), orderId, FillPolicy.PARTIAL);
+
+            // Act
+            ReservationResultDTO result = inventoryReservationService.reserveAvailableInventory(idempotencyKey, request);
+
+            // Assert
+            assertThat(result.reservationIds()).hasSize(2);
+            assertThat(result.items()).extracting(ReservedItemDTO::grantedQuantity).containsExactly(5, 3);
+            assertThat(result.items()).extracting(ReservedItemDTO::reservationId).containsExactlyElementsOf(result.reservationIds());
+            assertThat(inventory.getReservedQuantity()).isEqualTo(100);
+            assertThat(otherInventory.getReservedQuantity()).isEqualTo(3);
+            verify(idempotencyService).execute(eq(idempotencyKey), eq(IdempotentOperation.RESERVE_AVAILABLE_INVENTORY),
+                    eq(request), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should give every line its minimum before topping up earlier lines")
+        void shouldGiveEveryLineItsMinimumFirst() {
+            // Arrange
+            ReserveInventoryRequest request = new ReserveInventoryRequest(List.of(
+                    new reserveItemDTO(productId, 4, 1), new reserveItemDTO(productId, 4, 2),
+                    new reserveItemDTO(otherProductId, 3)), orderId, FillPolicy.PARTIAL_MIN);
+
+            // Act
+            ReservationResultDTO result = inventoryReservationService.reserveAvailableInventory(idempotencyKey, request);
+
+            // Assert
+            assertThat(result.items()).extracting(ReservedItemDTO::grantedQuantity).containsExactly(3, 2, 3);
+            assertThat(inventory.getReservedQuantity()).isEqualTo(100);
+        }
+
+        @Test
+        @DisplayName("Should reserve nothing when an item cannot get its minimum with PARTIAL_MIN")
+        void shouldReserveNothingWhenMinimumIsNotAvailable() {
+            // Arrange
+            ReserveInventoryRequest request = new ReserveInventoryRequest(List.of(
+                    new reserveItemDTO(otherProductId, 3), new reserveItemDTO(productId, 10, 8)), orderId, FillPolicy.PARTIAL_MIN);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.reserveAvailableInventory(idempotencyKey, request))
+                    .isInstanceOf(NotEnoughStockException.class);
+            assertThat(inventory.getReservedQuantity()).isEqualTo(95);
+            assertThat(otherInventory.getReservedQuantity()).isZero();
+            verify(inventoryReservationRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should fail when nothing at all is available with PARTIAL")
+        void shouldFailWhenNothingIsAvailable() {
+            // Arrange
+            inventory.setReservedQuantity(100);
+            when(inventoryRepository.lockUnshardedByProductIdIn(Set.of(productId))).thenReturn(List.of(inventory));
+            ReserveInventoryRequest request = new ReserveInventoryRequest(
+                    List.of(new reserveItemDTO(productId, 10)), orderId, FillPolicy.PARTIAL);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.reserveAvailableInventory(idempotencyKey, request))
+                    .isInstanceOf(NotEnoughStockException.class);
+            verify(inventoryReservationRepository, never()).saveAll(any());
         }
     }
 
@@ -233,9 +490,8 @@ class InventoryReservationServiceImplTest {
         @DisplayName("Should release single reservation successfully")
         void shouldReleaseSingleReservationSuccessfully() {
             // Arrange
-            inventory.setReservedQuantity(30);
             when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
+            when(inventoryRepository.releaseReservedStock(inventoryId, 10)).thenReturn(1);
             when(inventoryReservationRepository.save(inventoryReservation)).thenReturn(inventoryReservation);
             when(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation))
                     .thenReturn(inventoryReservationDTO);
@@ -247,8 +503,8 @@ class InventoryReservationServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(result).hasSize(1);
-            assertThat(inventory.getReservedQuantity()).isEqualTo(20); // 30 - 10
-            verify(inventoryRepository).save(inventory);
+            assertThat(inventoryReservation.getStatus()).isEqualTo(ReservationStatus.RELEASED);
+            verify(inventoryRepository).releaseReservedStock(inventoryId, 10);
             verify(inventoryReservationRepository).save(inventoryReservation);
         }
 
@@ -265,7 +521,22 @@ class InventoryReservationServiceImplTest {
                     .hasMessageContaining("Reservation")
                     .hasMessageContaining(reservationId.toString());
 
-            verify(inventoryRepository, never()).save(any());
+            verify(inventoryRepository, never()).releaseReservedStock(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should throw exception when reserved quantity is lower than reservation")
+        void shouldThrowExceptionWhenReservedQuantityIsLowerThanReservation() {
+            // Arrange
+            when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
+            when(inventoryRepository.releaseReservedStock(inventoryId, 10)).thenReturn(0);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.releaseReservation(
+                    idempotencyKey, List.of(reservationId)))
+                    .isInstanceOf(IllegalStateException.class);
+
+            verify(inventoryReservationRepository, never()).save(any());
         }
 
         @Test
@@ -286,11 +557,10 @@ class InventoryReservationServiceImplTest {
             InventoryReservationDTO dto2 = new InventoryReservationDTO(
                     reservationId2, productId, 5, ReservationStatus.RELEASED);
 
-            inventory.setReservedQuantity(35);
-
             when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
             when(inventoryReservationRepository.findById(reservationId2)).thenReturn(Optional.of(reservation2));
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
+            when(inventoryRepository.releaseReservedStock(inventoryId, 10)).thenReturn(1);
+            when(inventoryRepository.releaseReservedStock(inventoryId, 5)).thenReturn(1);
             when(inventoryReservationRepository.save(any(InventoryReservation.class)))
                     .thenReturn(inventoryReservation, reservation2);
             when(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation))
@@ -304,11 +574,136 @@ class InventoryReservationServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(result).hasSize(2);
-            assertThat(inventory.getReservedQuantity()).isEqualTo(20); // 35 - 10 - 5
+            verify(inventoryRepository).releaseReservedStock(inventoryId, 10);
+            verify(inventoryRepository).releaseReservedStock(inventoryId, 5);
             verify(inventoryReservationRepository, times(2)).save(any(InventoryReservation.class));
         }
     }
 
+    @Nested
+    @DisplayName("ExpireReservations Tests")
+    class ExpireReservationsTests {
+
+        @Test
+        @DisplayName("Should expire a chunk with one status update and one decrement per inventory")
+        void shouldExpireChunkWithSetBasedUpdates() {
+            // Arrange
+            UUID shardedInventoryId = UUID.randomUUID();
+            Inventory shardedInventory = new Inventory();
+            shardedInventory.setInventoryId(shardedInventoryId);
+            InventoryReservation other = InventoryReservation.builder()
+                    .inventoryReservationId(UUID.randomUUID())
+                    .inventory(inventory)
+                    .quantity(5)
+                    .status(ReservationStatus.RESERVED)
+                    .build();
+            List<UUID> reservationIds = List.of(reservationId, other.getInventoryReservationId());
+            when(inventoryReservationRepository.lockExpiredReservations(eq(ReservationStatus.RESERVED), any(), any()))
+                    .thenReturn(List.of(inventoryReservation, other));
+            when(inventoryReservationRepository.sumStockByReservationIds(reservationIds)).thenReturn(List.of(
+                    new ExpiredStock(inventoryId, productId, 0, null, 10),
+                    new ExpiredStock(inventoryId, productId, 0, 1, 5),
+                    new ExpiredStock(shardedInventoryId, UUID.randomUUID(), 4, 2, 7)));
+            when(inventoryRepository.releaseReservedStock(inventoryId, 15)).thenReturn(1);
+            when(inventoryRepository.getReferenceById(shardedInventoryId)).thenReturn(shardedInventory);
+            when(inventoryShardService.releaseReservedStock(shardedInventory, 2, 7)).thenReturn(true);
+
+            // Act
+            int expired = inventoryReservationService.expireOverdueReservations(100);
+
+            // Assert
+            assertThat(expired).isEqualTo(2);
+            verify(inventoryRepository, times(1)).releaseReservedStock(any(), anyInt());
+            verify(inventoryReservationRepository).updateStatusByReservationIds(reservationIds, ReservationStatus.EXPIRED);
+            verify(inventoryReservationRepository, never()).findById(any());
+            verify(idempotencyService, never()).execute(any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should hand stock back in productId order, shards first")
+        void shouldHandStockBackInProductIdOrder() {
+            // Arrange
+            UUID lowProductId = new UUID(0, 1);
+            UUID highProductId = new UUID(0, 2);
+            UUID lowInventoryId = UUID.randomUUID();
+            UUID highInventoryId = UUID.randomUUID();
+            UUID shardedInventoryId = UUID.randomUUID();
+            Inventory shardedInventory = new Inventory();
+            shardedInventory.setInventoryId(shardedInventoryId);
+            List<UUID> reservationIds = List.of(reservationId);
+            when(inventoryReservationRepository.lockExpiredReservationsIn(eq(reservationIds),
+                    eq(ReservationStatus.RESERVED), any())).thenReturn(List.of(inventoryReservation));
+            when(inventoryReservationRepository.sumStockByReservationIds(reservationIds)).thenReturn(List.of(
+                    new ExpiredStock(highInventoryId, highProductId, 0, null, 3),
+                    new ExpiredStock(shardedInventoryId, new UUID(0, 3), 4, 2, 7),
+                    new ExpiredStock(lowInventoryId, lowProductId, 0, null, 4),
+                    new ExpiredStock(shardedInventoryId, new UUID(0, 3), 4, 0, 6)));
+            when(inventoryRepository.releaseReservedStock(any(), anyInt())).thenReturn(1);
+            when(inventoryRepository.getReferenceById(shardedInventoryId)).thenReturn(shardedInventory);
+            when(inventoryShardService.releaseReservedStock(eq(shardedInventory), any(), anyInt())).thenReturn(true);
+
+            // Act
+            inventoryReservationService.expireReservations(reservationIds);
+
+            // Assert
+            InOrder inOrder = inOrder(inventoryShardService, inventoryRepository);
+            inOrder.verify(inventoryShardService).releaseReservedStock(shardedInventory, 0, 6);
+            inOrder.verify(inventoryShardService).releaseReservedStock(shardedInventory, 2, 7);
+            inOrder.verify(inventoryRepository).releaseReservedStock(lowInventoryId, 4);
+            inOrder.verify(inventoryRepository).releaseReservedStock(highInventoryId, 3);
+        }
+
+        @Test
+        @DisplayName("Should fail the chunk when reserved stock is lower than the expired reservations")
+        void shouldFailChunkWhenReservedStockIsTooLow() {
+            // Arrange
+            List<UUID> reservationIds = List.of(reservationId);
+            when(inventoryReservationRepository.lockExpiredReservationsIn(eq(reservationIds),
+                    eq(ReservationStatus.RESERVED), any())).thenReturn(List.of(inventoryReservation));
+            when(inventoryReservationRepository.sumStockByReservationIds(reservationIds))
+                    .thenReturn(List.of(new ExpiredStock(inventoryId, productId, 0, null, 10)));
+            when(inventoryRepository.releaseReservedStock(inventoryId, 10)).thenReturn(0);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.expireReservations(reservationIds))
+                    .isInstanceOf(IllegalStateException.class);
+            verify(inventoryReservationRepository, never()).updateStatusByReservationIds(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should give reservations without an expiry bucket the bucket of their product")
+        void shouldBackfillMissingExpiryBuckets() {
+            // Arrange
+            when(inventoryReservationRepository.findInventoriesWithoutExpiryBucket(eq(ReservationStatus.RESERVED), any()))
+                    .thenReturn(List.of(inventory))
+                    .thenReturn(List.of());
+            when(inventoryReservationRepository.setMissingExpiryBucket(inventory,
+                    InventoryReservation.expiryBucketOf(productId))).thenReturn(3);
+
+            // Act
+            int backfilled = inventoryReservationService.backfillExpiryBuckets(100);
+
+            // Assert
+            assertThat(backfilled).isEqualTo(3);
+            verify(inventoryReservationRepository, times(2)).findInventoriesWithoutExpiryBucket(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should do nothing when no reservation could be locked")
+        void shouldDoNothingWhenNothingIsLocked() {
+            // Arrange
+            when(inventoryReservationRepository.lockExpiredReservations(eq(ReservationStatus.RESERVED), any(), any()))
+                    .thenReturn(List.of());
+
+            // Act
+            int expired = inventoryReservationService.expireOverdueReservations(100);
+
+            // Assert
+            assertThat(expired).isZero();
+            verifyNoInteractions(inventoryRepository, applicationEventPublisher);
+        }
+    }
+
     @Nested
     @DisplayName("ConfirmReservation Tests")
     class ConfirmReservationTests {
@@ -324,12 +719,8 @@ class InventoryReservationServiceImplTest {
         @DisplayName("Should confirm reservation successfully")
         void shouldConfirmReservationSuccessfully() {
             // Arrange
-            inventory.setTotalQuantity(100);
-            inventory.setReservedQuantity(30);
-            inventoryReservation.setQuantity(10);
-
             when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
+            when(inventoryRepository.commitReservedStock(inventoryId, 10)).thenReturn(1);
             when(inventoryReservationRepository.save(inventoryReservation)).thenReturn(inventoryReservation);
             when(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation))
                     .thenReturn(inventoryReservationDTO);
@@ -341,9 +732,8 @@ class InventoryReservationServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(result).hasSize(1);
-            assertThat(inventory.getTotalQuantity()).isEqualTo(90); // 100 - 10
-            assertThat(inventory.getReservedQuantity()).isEqualTo(20); // 30 - 10
-            verify(inventoryRepository).save(inventory);
+            assertThat(inventoryReservation.getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+            verify(inventoryRepository).commitReservedStock(inventoryId, 10);
             verify(inventoryReservationRepository).save(inventoryReservation);
         }
 
@@ -359,7 +749,7 @@ class InventoryReservationServiceImplTest {
                     .hasMessageContaining("Reservation")
                     .hasMessageContaining(reservationId.toString());
 
-            verify(inventoryRepository, never()).save(any());
+            verify(inventoryRepository, never()).commitReservedStock(any(), anyInt());
         }
 
         @Test
@@ -369,7 +759,7 @@ class InventoryReservationServiceImplTest {
             inventoryReservation.setExpiresAt(LocalDateTime.now().minusMinutes(1)); // Expired
 
             when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
+            when(inventoryRepository.releaseReservedStock(inventoryId, 10)).thenReturn(1);
             when(inventoryReservationRepository.save(inventoryReservation)).thenReturn(inventoryReservation);
             when(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation))
                     .thenReturn(inventoryReservationDTO);
@@ -380,6 +770,7 @@ class InventoryReservationServiceImplTest {
 
             // Verify release was called
             verify(inventoryReservationRepository, times(2)).findById(reservationId);
+            verify(inventoryRepository, never()).commitReservedStock(any(), anyInt());
         }
 
         @Test
@@ -403,12 +794,10 @@ class InventoryReservationServiceImplTest {
             ConfirmReservationRequest multiConfirmRequest = new ConfirmReservationRequest(
                     List.of(reservationId, reservationId2), orderId);
 
-            inventory.setTotalQuantity(100);
-            inventory.setReservedQuantity(40);
-
             when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
             when(inventoryReservationRepository.findById(reservationId2)).thenReturn(Optional.of(reservation2));
-            when(inventoryRepository.save(inventory)).thenReturn(inventory);
+            when(inventoryRepository.commitReservedStock(inventoryId, 10)).thenReturn(1);
+            when(inventoryRepository.commitReservedStock(inventoryId, 15)).thenReturn(1);
             when(inventoryReservationRepository.save(any(InventoryReservation.class)))
                     .thenReturn(inventoryReservation, reservation2);
             when(inventoryReservationMapper.toInventoryReservationDTO(inventoryReservation))
@@ -422,8 +811,8 @@ class InventoryReservationServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(result).hasSize(2);
-            assertThat(inventory.getTotalQuantity()).isEqualTo(75); // 100 - 10 - 15
-            assertThat(inventory.getReservedQuantity()).isEqualTo(15); // 40 - 10 - 15
+            verify(inventoryRepository).commitReservedStock(inventoryId, 10);
+            verify(inventoryRepository).commitReservedStock(inventoryId, 15);
             verify(inventoryReservationRepository, times(2)).save(any(InventoryReservation.class));
         }
 
@@ -467,5 +856,124 @@ class InventoryReservationServiceImplTest {
 
             verify(inventoryReservationMapper, never()).toInventoryReservationDTO(any());
         }
+
+        @Test
+        @DisplayName("Should read the last update without loading the reservation")
+        void shouldReturnUpdatedAtWithoutLoadingReservation() {
+            // Arrange
+            LocalDateTime updatedAt = LocalDateTime.now();
+            when(inventoryReservationRepository.findUpdatedAtById(reservationId)).thenReturn(Optional.of(updatedAt));
+
+            // Act
+            LocalDateTime result = inventoryReservationService.getReservationUpdatedAt(reservationId);
+
+            // Assert
+            assertThat(result).isEqualTo(updatedAt);
+            verify(inventoryReservationRepository, never()).findById(any());
+            verify(inventoryReservationMapper, never()).toInventoryReservationDTO(any());
+        }
+
+        @Test
+        @DisplayName("Should throw exception when the reservation to tag is not found")
+        void shouldThrowExceptionWhenUpdatedAtNotFound() {
+            // Arrange
+            when(inventoryReservationRepository.findUpdatedAtById(reservationId)).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.getReservationUpdatedAt(reservationId))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining(reservationId.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("ExtendReservation Tests")
+    class ExtendReservationTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(inventoryReservationService, "maxHoldMinutes", 60);
+            inventoryReservation.setCreatedAt(LocalDateTime.now());
+            when(inventoryReservationRepository.findById(reservationId)).thenReturn(Optional.of(inventoryReservation));
+        }
+
+        @Test
+        @DisplayName("Should move the expiry with one guarded update and reschedule it")
+        void shouldExtendReservation() {
+            // Arrange
+            when(inventoryReservationRepository.extendReservation(eq(reservationId), eq(ReservationStatus.RESERVED),
+                    any(), any())).thenReturn(1);
+            LocalDateTime before = LocalDateTime.now();
+
+            // Act
+            ReservationHoldDTO result = inventoryReservationService.extendReservation(reservationId, 30);
+
+            // Assert
+            assertThat(result.reservationId()).isEqualTo(reservationId);
+            assertThat(result.expiresAt()).isBetween(before.plusMinutes(30), LocalDateTime.now().plusMinutes(30));
+            verify(applicationEventPublisher).publishEvent(ReservationExpiryEvent.scheduled(
+                    Map.of(reservationId, result.expiresAt())));
+        }
+
+        @Test
+        @DisplayName("Should cap the hold counted from when the reservation was made")
+        void shouldCapHoldFromCreation() {
+            // Arrange
+            LocalDateTime createdAt = LocalDateTime.now().minusMinutes(50);
+            inventoryReservation.setCreatedAt(createdAt);
+            inventoryReservation.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+            when(inventoryReservationRepository.extendReservation(eq(reservationId), eq(ReservationStatus.RESERVED),
+                    any(), any())).thenReturn(1);
+
+            // Act
+            ReservationHoldDTO result = inventoryReservationService.extendReservation(reservationId, 30);
+
+            // Assert
+            assertThat(result.expiresAt()).isEqualTo(createdAt.plusMinutes(60));
+            verify(inventoryReservationRepository).extendReservation(eq(reservationId), eq(ReservationStatus.RESERVED),
+                    any(), eq(createdAt.plusMinutes(60)));
+        }
+
+        @Test
+        @DisplayName("Should keep a later expiry than the one asked for")
+        void shouldKeepLaterExpiry() {
+            // Arrange
+            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(45);
+            inventoryReservation.setExpiresAt(expiresAt);
+            when(inventoryReservationRepository.extendReservation(eq(reservationId), eq(ReservationStatus.RESERVED),
+                    any(), any())).thenReturn(1);
+
+            // Act
+            ReservationHoldDTO result = inventoryReservationService.extendReservation(reservationId, 10);
+
+            // Assert
+            assertThat(result.expiresAt()).isEqualTo(expiresAt);
+        }
+
+        @Test
+        @DisplayName("Should throw exception when reservation already expired")
+        void shouldThrowExceptionWhenReservationAlreadyExpired() {
+            // Arrange
+            inventoryReservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            when(inventoryReservationRepository.extendReservation(any(), any(), any(), any())).thenReturn(0);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.extendReservation(reservationId, 10))
+                    .isInstanceOf(ReservationExpiredException.class);
+            verify(applicationEventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("Should throw exception when reservation is no longer RESERVED")
+        void shouldThrowExceptionWhenReservationNotReserved() {
+            // Arrange
+            inventoryReservation.setStatus(ReservationStatus.CONFIRMED);
+
+            // Act & Assert
+            assertThatThrownBy(() -> inventoryReservationService.extendReservation(reservationId, 10))
+                    .isInstanceOf(IllegalStateException.class);
+            verify(inventoryReservationRepository, never()).extendReservation(any(), any(), any(), any());
+            verify(applicationEventPublisher, never()).publishEvent(any());
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,59 @@
 package com.mazadak.inventory_service.service.Impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
 import com.mazadak.common.exception.shared.ResourceNotFoundException;
 import com.mazadak.inventory_service.dto.event.InventoryDeletedEvent;
 import com.mazadak.inventory_service.dto.request.AddInventoryRequest;
 import com.mazadak.inventory_service.dto.request.UpdateInventoryRequest;
 import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.dto.response.ProductAvailabilityDTO;
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import com.mazadak.inventory_service.event.OutboxEventWrittenEvent;
+import com.mazadak.inventory_service.event.codec.EncodedPayload;
+import com.mazadak.inventory_service.event.codec.OutboxPayloadCodecs;
 import com.mazadak.inventory_service.mapper.InventoryMapper;
 import com.mazadak.inventory_service.model.Inventory;
 import com.mazadak.inventory_service.model.OutboxEvent;
+import com.mazadak.inventory_service.model.enums.IdempotentOperation;
 import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
 import com.mazadak.inventory_service.repository.OutboxEventRepository;
+import com.mazadak.inventory_service.service.IdempotencyService;
+import com.mazadak.inventory_service.service.InventoryShardService;
+import com.mazadak.inventory_service.service.cache.InventoryReadCache;
+import com.mazadak.inventory_service.service.cache.InventoryReadModel;
+import com.mazadak.inventory_service.service.cache.LiveProductFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.PathDestinationFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,11 +67,36 @@ class InventoryServiceImplTest {
     private InventoryMapper inventoryMapper;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private OutboxPayloadCodecs outboxPayloadCodecs;
 
     @Mock
     private OutboxEventRepository outboxEventRepository;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private InventoryShardService inventoryShardService;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private InventoryReadCache inventoryReadCache = new InventoryReadCache(100, 30,
+            mock(ApplicationEventPublisher.class), new BusProperties(), new PathDestinationFactory(),
+            new SimpleMeterRegistry());
+
+    // never started, so it passes every check through to the cache and the repository
+    @Spy
+    private LiveProductFilter liveProductFilter = new LiveProductFilter(mock(InventoryRepository.class),
+            mock(PlatformTransactionManager.class), 100, 0.01, 60_000, new SimpleMeterRegistry());
+
+    // disabled, so it passes every read through
+    @Spy
+    private InventoryReadModel inventoryReadModel = new InventoryReadModel(mock(InventoryRepository.class),
+            mock(InventoryShardRepository.class), mock(PlatformTransactionManager.class), false, 100, 60_000,
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private InventoryServiceImpl inventoryService;
 
@@ -74,6 +123,9 @@ class InventoryServiceImplTest {
                 100,
                 20
         );
+
+        lenient().when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
     }
 
     @Nested
@@ -158,11 +210,11 @@ class InventoryServiceImplTest {
         }
 
         @Test
-        @DisplayName("Should return existing inventory when idempotency key exists")
-        void shouldReturnExistingInventoryWhenIdempotencyKeyExists() {
+        @DisplayName("Should replay recorded response when idempotency key exists")
+        void shouldReplayRecordedResponseWhenIdempotencyKeyExists() {
             // Arrange
-            when(inventoryRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.of(inventory));
-            when(inventoryMapper.toInventoryDTO(inventory)).thenReturn(inventoryDTO);
+            doReturn(inventoryDTO).when(idempotencyService).execute(
+                    eq(idempotencyKey), eq(IdempotentOperation.ADD_INVENTORY), eq(addRequest), any(), any());
 
             // Act
             InventoryDTO result = inventoryService.addInventory(idempotencyKey, addRequest);
@@ -170,7 +222,7 @@ class InventoryServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(result.productId()).isEqualTo(productId);
-            verify(inventoryRepository).findByIdempotencyKey(idempotencyKey);
+            verify(inventoryRepository, never()).findByProductId(any());
             verify(inventoryRepository, never()).save(any());
         }
 
@@ -178,7 +230,6 @@ class InventoryServiceImplTest {
         @DisplayName("Should add inventory to existing product")
         void shouldAddInventoryToExistingProduct() {
             // Arrange
-            when(inventoryRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
             when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
             when(inventoryRepository.save(inventory)).thenReturn(inventory);
             when(inventoryMapper.toInventoryDTO(inventory)).thenReturn(inventoryDTO);
@@ -189,7 +240,6 @@ class InventoryServiceImplTest {
             // Assert
             assertThat(result).isNotNull();
             assertThat(inventory.getTotalQuantity()).isEqualTo(150); // 100 + 50
-            assertThat(inventory.getIdempotencyKey()).isEqualTo(idempotencyKey);
             verify(inventoryRepository).save(inventory);
         }
 
@@ -197,7 +247,6 @@ class InventoryServiceImplTest {
         @DisplayName("Should create new inventory for new product")
         void shouldCreateNewInventoryForNewProduct() {
             // Arrange
-            when(inventoryRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
             when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.empty());
             when(inventoryRepository.save(any(Inventory.class))).thenReturn(inventory);
             when(inventoryMapper.toInventoryDTO(any(Inventory.class))).thenReturn(inventoryDTO);
@@ -212,7 +261,6 @@ class InventoryServiceImplTest {
 
             Inventory savedInventory = inventoryCaptor.getValue();
             assertThat(savedInventory.getProductId()).isEqualTo(productId);
-            assertThat(savedInventory.getIdempotencyKey()).isEqualTo(idempotencyKey);
         }
 
         @Test
@@ -223,7 +271,6 @@ class InventoryServiceImplTest {
             inventory.setTotalQuantity(50);
             inventory.setReservedQuantity(10);
 
-            when(inventoryRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
             when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
             when(inventoryRepository.save(inventory)).thenReturn(inventory);
             when(inventoryMapper.toInventoryDTO(inventory)).thenReturn(inventoryDTO);
@@ -239,6 +286,26 @@ class InventoryServiceImplTest {
             assertThat(inventory.getReservations()).isEmpty();
             verify(inventoryRepository).save(inventory);
         }
+
+        @Test
+        @DisplayName("Should reset the shards of a deleted sharded product that is added again")
+        void shouldResetShardsWhenAddingToDeletedShardedProduct() {
+            // Arrange
+            inventory.setDeleted(true);
+            inventory.setShardCount(4);
+            InventoryDTO reset = new InventoryDTO(productId, 50, 0);
+            when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
+            when(inventoryShardService.resetShardedQuantities(inventory, 50)).thenReturn(reset);
+
+            // Act
+            InventoryDTO result = inventoryService.addInventory(idempotencyKey, addRequest);
+
+            // Assert
+            assertThat(result).isEqualTo(reset);
+            assertThat(inventory.isDeleted()).isFalse();
+            verify(inventoryShardService, never()).lockShardedInventory(any());
+            verify(inventoryShardService, never()).setShardedTotalQuantity(any(), anyInt());
+        }
     }
 
     @Nested
@@ -261,6 +328,23 @@ class InventoryServiceImplTest {
             verify(inventoryMapper).toInventoryDTO(inventory);
         }
 
+        @Test
+        @DisplayName("Should sum the shards of a sharded product")
+        void shouldSumShardsOfShardedProduct() {
+            // Arrange
+            inventory.setShardCount(4);
+            InventoryDTO sharded = new InventoryDTO(productId, 120, 40);
+            when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
+            when(inventoryShardService.getShardedInventory(inventory)).thenReturn(sharded);
+
+            // Act
+            InventoryDTO result = inventoryService.getInventory(productId);
+
+            // Assert
+            assertThat(result).isEqualTo(sharded);
+            verify(inventoryMapper, never()).toInventoryDTO(any());
+        }
+
         @Test
         @DisplayName("Should throw exception when inventory not found")
         void shouldThrowExceptionWhenInventoryNotFound() {
@@ -316,11 +400,12 @@ class InventoryServiceImplTest {
 
         @Test
         @DisplayName("Should soft delete inventory and create outbox event")
-        void shouldSoftDeleteInventoryAndCreateOutboxEvent() throws JsonProcessingException {
+        void shouldSoftDeleteInventoryAndCreateOutboxEvent() throws IOException {
             // Arrange
-            String eventJson = "{\"productId\":\"" + productId + "\"}";
+            byte[] eventJson = ("{\"productId\":\"" + productId + "\"}").getBytes(StandardCharsets.UTF_8);
             when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
-            when(objectMapper.writeValueAsString(any(InventoryDeletedEvent.class))).thenReturn(eventJson);
+            when(outboxPayloadCodecs.encode(any(InventoryDeletedEvent.class)))
+                    .thenReturn(new EncodedPayload(OutboxPayloadCodecs.JSON, eventJson));
             when(inventoryRepository.save(inventory)).thenReturn(inventory);
 
             // Act
@@ -335,7 +420,9 @@ class InventoryServiceImplTest {
             OutboxEvent savedEvent = outboxCaptor.getValue();
             assertThat(savedEvent.getAggregateType()).isEqualTo("Inventory");
             assertThat(savedEvent.getEventType()).isEqualTo("InventoryDeleted");
+            assertThat(savedEvent.getPayloadCodec()).isEqualTo(OutboxPayloadCodecs.JSON);
             assertThat(savedEvent.getPayload()).isEqualTo(eventJson);
+            verify(applicationEventPublisher).publishEvent(new OutboxEventWrittenEvent(savedEvent));
 
             verify(inventoryRepository).save(inventory);
         }
@@ -401,6 +488,43 @@ class InventoryServiceImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("StreamAvailability Tests")
+    class StreamAvailabilityTests {
+
+        @Test
+        @DisplayName("Should report live, sharded, deleted and unknown products from one lookup")
+        void shouldReportEveryRequestedProduct() {
+            // Arrange
+            Inventory deleted = new Inventory();
+            deleted.setProductId(UUID.randomUUID());
+            deleted.setDeleted(true);
+            Inventory sharded = new Inventory();
+            sharded.setProductId(UUID.randomUUID());
+            sharded.setShardCount(2);
+            InventoryDTO shardedDTO = new InventoryDTO(sharded.getProductId(), 40, 10);
+            UUID unknownProductId = UUID.randomUUID();
+            when(inventoryRepository.streamByProductIdIn(any())).thenReturn(Stream.of(inventory, deleted, sharded));
+            when(inventoryMapper.toInventoryDTO(inventory)).thenReturn(inventoryDTO);
+            when(inventoryShardService.getShardedInventories(List.of(sharded)))
+                    .thenReturn(Map.of(sharded.getProductId(), shardedDTO));
+            List<ProductAvailabilityDTO> availabilities = new ArrayList<>();
+
+            // Act
+            inventoryService.streamAvailability(List.of(productId, deleted.getProductId(), sharded.getProductId(),
+                    unknownProductId, productId), availabilities::add);
+
+            // Assert
+            assertThat(availabilities).containsExactly(
+                    ProductAvailabilityDTO.found(inventoryDTO),
+                    ProductAvailabilityDTO.deleted(deleted.getProductId()),
+                    ProductAvailabilityDTO.found(shardedDTO),
+                    ProductAvailabilityDTO.notFound(unknownProductId));
+            verify(inventoryRepository).streamByProductIdIn(
+                    new UUID[]{productId, deleted.getProductId(), sharded.getProductId(), unknownProductId});
+        }
+    }
+
     @Nested
     @DisplayName("RestoreInventory Tests")
     class RestoreInventoryTests {
@@ -418,7 +542,9 @@ class InventoryServiceImplTest {
 
             // Assert
             assertThat(inventory.isDeleted()).isFalse();
-            verify(inventoryRepository).save(inventory);
+            InOrder inOrder = inOrder(inventoryRepository, applicationEventPublisher);
+            inOrder.verify(inventoryRepository).save(inventory);
+            inOrder.verify(applicationEventPublisher).publishEvent(new InventoryChangedEvent(List.of(productId)));
         }
 
         @Test
@@ -0,0 +1,202 @@
+package com.mazadak.inventory_service.service.Impl;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.model.InventoryShard;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InventoryShardService Tests")
+class InventoryShardServiceImplTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryShardRepository inventoryShardRepository;
+
+    @InjectMocks
+    private InventoryShardServiceImpl inventoryShardService;
+
+    private UUID productId;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        productId = UUID.randomUUID();
+        inventory = new Inventory();
+        inventory.setInventoryId(UUID.randomUUID());
+        inventory.setProductId(productId);
+        inventory.setTotalQuantity(103);
+        inventory.setReservedQuantity(10);
+    }
+
+    private static InventoryShard shard(int shardIndex, int totalQuantity, int reservedQuantity) {
+        return InventoryShard.builder()
+                .shardIndex(shardIndex)
+                .totalQuantity(totalQuantity)
+                .reservedQuantity(reservedQuantity)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should spread stock evenly over the shards and empty the inventory row")
+    void shouldSpreadStockEvenlyOverShards() {
+        // Arrange
+        when(inventoryRepository.lockByProductId(productId)).thenReturn(Optional.of(inventory));
+        when(inventoryShardRepository.lockByInventory(inventory)).thenReturn(List.of());
+
+        // Act
+        InventoryDTO result = inventoryShardService.shardInventory(productId, 4);
+
+        // Assert
+        assertThat(result).isEqualTo(new InventoryDTO(productId, 103, 10));
+        assertThat(inventory.getShardCount()).isEqualTo(4);
+        assertThat(inventory.getTotalQuantity()).isZero();
+        assertThat(inventory.getReservedQuantity()).isZero();
+
+        ArgumentCaptor<List<InventoryShard>> shardCaptor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryShardRepository).saveAll(shardCaptor.capture());
+        List<InventoryShard> shards = shardCaptor.getValue();
+        assertThat(shards).extracting(InventoryShard::getReservedQuantity).containsExactly(3, 3, 2, 2);
+        assertThat(shards).extracting(InventoryShard::getTotalQuantity).containsExactly(27, 26, 25, 25);
+    }
+
+    @Test
+    @DisplayName("Should drop the extra shards when shrinking")
+    void shouldDropExtraShardsWhenShrinking() {
+        // Arrange
+        inventory.setShardCount(3);
+        inventory.setTotalQuantity(0);
+        inventory.setReservedQuantity(0);
+        InventoryShard extra = shard(2, 10, 0);
+        when(inventoryRepository.lockByProductId(productId)).thenReturn(Optional.of(inventory));
+        when(inventoryShardRepository.lockByInventory(inventory))
+                .thenReturn(List.of(shard(0, 10, 5), shard(1, 10, 0), extra));
+
+        // Act
+        InventoryDTO result = inventoryShardService.shardInventory(productId, 2);
+
+        // Assert
+        assertThat(result).isEqualTo(new InventoryDTO(productId, 30, 5));
+        verify(inventoryShardRepository).deleteAll(List.of(extra));
+        assertThat(inventory.getShardCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should move the shards back onto the inventory row when merging")
+    void shouldMergeShardsBackOntoInventoryRow() {
+        // Arrange
+        inventory.setShardCount(2);
+        List<InventoryShard> shards = List.of(shard(0, 10, 4), shard(1, 12, 1));
+        when(inventoryRepository.lockByProductId(productId)).thenReturn(Optional.of(inventory));
+        when(inventoryShardRepository.lockByInventory(inventory)).thenReturn(shards);
+
+        // Act
+        InventoryDTO result = inventoryShardService.mergeShards(productId);
+
+        // Assert
+        assertThat(result).isEqualTo(new InventoryDTO(productId, 22, 5));
+        assertThat(inventory.isSharded()).isFalse();
+        assertThat(inventory.getTotalQuantity()).isEqualTo(22);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(5);
+        verify(inventoryShardRepository).deleteAll(shards);
+    }
+
+    @Test
+    @DisplayName("Should drop the old stock of every shard when resetting them")
+    void shouldResetShardedQuantities() {
+        // Arrange
+        inventory.setShardCount(2);
+        List<InventoryShard> shards = List.of(shard(0, 10, 4), shard(1, 12, 1));
+        when(inventoryShardRepository.lockByInventory(inventory)).thenReturn(shards);
+
+        // Act
+        InventoryDTO result = inventoryShardService.resetShardedQuantities(inventory, 7);
+
+        // Assert
+        assertThat(result).isEqualTo(new InventoryDTO(productId, 7, 0));
+        assertThat(shards).extracting(InventoryShard::getTotalQuantity).containsExactly(4, 3);
+        assertThat(shards).extracting(InventoryShard::getReservedQuantity).containsOnly(0);
+        verify(inventoryShardRepository).saveAll(shards);
+    }
+
+    @Test
+    @DisplayName("Should fall back to other shards when the picked one is short")
+    void shouldFallBackToOtherShards() {
+        // Arrange
+        inventory.setShardCount(3);
+        when(inventoryShardRepository.reserveStock(eq(inventory.getInventoryId()), anyInt(), eq(5))).thenReturn(0);
+        when(inventoryShardRepository.reserveStock(inventory.getInventoryId(), 1, 5)).thenReturn(1);
+
+        // Act
+        Map<UUID, Integer> shardIndexes = inventoryShardService.reserve(Map.of(productId, inventory), Map.of(productId, 5));
+
+        // Assert
+        assertThat(shardIndexes).containsEntry(productId, 1);
+    }
+
+    @Test
+    @DisplayName("Should hand back reserved shards when another product is short")
+    void shouldHandBackReservedShardsWhenAnotherProductIsShort() {
+        // Arrange
+        inventory.setShardCount(2);
+        Inventory shortInventory = new Inventory();
+        shortInventory.setInventoryId(UUID.randomUUID());
+        shortInventory.setProductId(new UUID(Long.MAX_VALUE, Long.MAX_VALUE));
+        shortInventory.setShardCount(2);
+        productId = new UUID(0, 1);
+        inventory.setProductId(productId);
+
+        when(inventoryShardRepository.reserveStock(eq(inventory.getInventoryId()), anyInt(), eq(5))).thenReturn(1);
+        when(inventoryShardRepository.reserveStock(eq(shortInventory.getInventoryId()), anyInt(), eq(7))).thenReturn(0);
+        when(inventoryShardRepository.sumByInventory(shortInventory))
+                .thenReturn(Optional.of(new InventoryDTO(shortInventory.getProductId(), 8, 4)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> inventoryShardService.reserve(
+                Map.of(productId, inventory, shortInventory.getProductId(), shortInventory),
+                Map.of(productId, 5, shortInventory.getProductId(), 7)))
+                .isInstanceOf(NotEnoughStockException.class);
+        verify(inventoryShardRepository).releaseReservedStock(eq(inventory.getInventoryId()), anyInt(), eq(5));
+        verify(inventoryShardRepository, never()).releaseReservedStock(eq(shortInventory.getInventoryId()), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should release on another shard when the reservation's shard was rebalanced")
+    void shouldReleaseOnAnotherShardAfterRebalance() {
+        // Arrange
+        inventory.setShardCount(2);
+        when(inventoryShardRepository.releaseReservedStock(inventory.getInventoryId(), 1, 3)).thenReturn(0);
+        when(inventoryShardRepository.releaseReservedStock(inventory.getInventoryId(), 0, 3)).thenReturn(1);
+
+        // Act
+        boolean released = inventoryShardService.releaseReservedStock(inventory, 1, 3);
+
+        // Assert
+        assertThat(released).isTrue();
+        verify(inventoryShardRepository, never()).commitReservedStock(any(), anyInt(), anyInt());
+    }
+}
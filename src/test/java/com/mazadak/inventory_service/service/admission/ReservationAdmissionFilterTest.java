@@ -0,0 +1,112 @@
+package com.mazadak.inventory_service.service.admission;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.event.StockObservedEvent;
+import com.mazadak.inventory_service.model.enums.FillPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ReservationAdmissionFilter Tests")
+class ReservationAdmissionFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationAdmissionFilter reservationAdmissionFilter;
+
+    private UUID soldOutProductId;
+    private UUID inStockProductId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reservationAdmissionFilter = new ReservationAdmissionFilter(60_000, meterRegistry);
+        soldOutProductId = UUID.randomUUID();
+        inStockProductId = UUID.randomUUID();
+        reservationAdmissionFilter.onStockObserved(new StockObservedEvent(
+                Map.of(soldOutProductId, 0, inStockProductId, 5), System.nanoTime()));
+    }
+
+    private static ReserveInventoryRequest request(FillPolicy fillPolicy, reserveItemDTO... items) {
+        return new ReserveInventoryRequest(List.of(items), UUID.randomUUID(), fillPolicy);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("inventory.admission.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should reject a request for a product known to be short without reaching the database")
+    void shouldRejectRequestForShortProduct() {
+        // Act & Assert
+        assertThatThrownBy(() -> reservationAdmissionFilter.admit(request(FillPolicy.ALL_OR_NOTHING,
+                new reserveItemDTO(inStockProductId, 1), new reserveItemDTO(soldOutProductId, 1))))
+                .isInstanceOf(NotEnoughStockException.class);
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(count("miss")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should admit requests the snapshot cannot rule out")
+    void shouldAdmitRequestsSnapshotCannotRuleOut() {
+        // Act & Assert
+        assertThatCode(() -> reservationAdmissionFilter.admit(request(FillPolicy.ALL_OR_NOTHING,
+                new reserveItemDTO(inStockProductId, 5), new reserveItemDTO(UUID.randomUUID(), 100))))
+                .doesNotThrowAnyException();
+        assertThatCode(() -> reservationAdmissionFilter.admit(request(FillPolicy.PARTIAL,
+                new reserveItemDTO(soldOutProductId, 3), new reserveItemDTO(inStockProductId, 9))))
+                .doesNotThrowAnyException();
+        assertThat(count("miss")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a partial request only when none of its products has stock")
+    void shouldRejectPartialRequestWhenNothingIsAvailable() {
+        // Act & Assert
+        assertThatThrownBy(() -> reservationAdmissionFilter.admit(request(FillPolicy.PARTIAL,
+                new reserveItemDTO(soldOutProductId, 3))))
+                .isInstanceOf(NotEnoughStockException.class);
+        assertThatThrownBy(() -> reservationAdmissionFilter.admit(request(FillPolicy.PARTIAL_MIN,
+                new reserveItemDTO(inStockProductId, 9, 6))))
+                .isInstanceOf(NotEnoughStockException.class);
+    }
+
+    @Test
+    @DisplayName("Should forget a product once its stock is freed and ignore readings taken before")
+    void shouldForgetProductOnceStockIsFreed() {
+        // Arrange
+        long readBeforeFree = System.nanoTime();
+        reservationAdmissionFilter.onStockFreed(new StockFreedEvent(List.of(soldOutProductId)));
+        reservationAdmissionFilter.onStockObserved(new StockObservedEvent(Map.of(soldOutProductId, 0), readBeforeFree));
+
+        // Act & Assert
+        assertThatCode(() -> reservationAdmissionFilter.admit(request(FillPolicy.ALL_OR_NOTHING,
+                new reserveItemDTO(soldOutProductId, 1))))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should not trust readings older than the ttl")
+    void shouldNotTrustExpiredReadings() {
+        // Arrange
+        reservationAdmissionFilter = new ReservationAdmissionFilter(0, meterRegistry);
+        reservationAdmissionFilter.onStockObserved(new StockObservedEvent(Map.of(soldOutProductId, 0), System.nanoTime() - 1));
+
+        // Act & Assert
+        assertThatCode(() -> reservationAdmissionFilter.admit(request(FillPolicy.ALL_OR_NOTHING,
+                new reserveItemDTO(soldOutProductId, 1))))
+                .doesNotThrowAnyException();
+        assertThat(reservationAdmissionFilter.evictExpired()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AvailabilityTable Tests")
+class AvailabilityTableTest {
+
+    @Test
+    @DisplayName("Should keep every product's quantities while growing past its expected size")
+    void shouldKeepQuantitiesWhileGrowing() {
+        // Arrange
+        AvailabilityTable table = new AvailabilityTable(16);
+        List<UUID> productIds = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+        // Act
+        for (int i = 0; i < productIds.size(); i++) {
+            table.put(productIds.get(i), i, i / 2, i % 10 == 0);
+        }
+
+        // Assert
+        assertThat(table.size()).isEqualTo(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            assertThat(table.get(productIds.get(i))).isEqualTo(new InventoryDTO(productIds.get(i), i, i / 2));
+            assertThat(table.state(productIds.get(i)))
+                    .isEqualTo(i % 10 == 0 ? AvailabilityTable.DELETED : AvailabilityTable.LIVE);
+        }
+        assertThat(table.state(UUID.randomUUID())).isEqualTo(AvailabilityTable.ABSENT);
+    }
+
+    @Test
+    @DisplayName("Should not let a read started before an invalidation overwrite it")
+    void shouldRejectWritesOlderThanInvalidation() {
+        // Arrange
+        AvailabilityTable table = new AvailabilityTable(16);
+        UUID productId = UUID.randomUUID();
+        table.put(productId, 10, 0, false);
+        int changes = table.invalidate(productId);
+
+        // Act
+        table.invalidate(productId);
+        boolean stale = table.putIfUnchanged(productId, changes, 8, 0, false);
+        boolean fresh = table.putIfUnchanged(productId, table.changes(productId), 7, 1, false);
+
+        // Assert
+        assertThat(stale).isFalse();
+        assertThat(fresh).isTrue();
+        assertThat(table.get(productId)).isEqualTo(new InventoryDTO(productId, 7, 1));
+    }
+
+    @Test
+    @DisplayName("Should leave products invalidated during a load stale")
+    void shouldKeepInvalidatedProductsStale() {
+        // Arrange
+        AvailabilityTable table = new AvailabilityTable(16);
+        UUID productId = UUID.randomUUID();
+        table.invalidate(productId);
+
+        // Act
+        table.putIfAbsent(productId, 10, 0, false);
+
+        // Assert
+        assertThat(table.state(productId)).isEqualTo(AvailabilityTable.STALE);
+        assertThat(table.get(productId)).isNull();
+    }
+}
@@ -0,0 +1,97 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.event.InventoryChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.PathDestinationFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("InventoryReadCache Tests")
+class InventoryReadCacheTest {
+
+    private static final Destination EVERY_REPLICA = new PathDestinationFactory().getDestination(null);
+
+    private final ApplicationEventPublisher applicationEventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InventoryReadCache cache;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        BusProperties busProperties = new BusProperties();
+        busProperties.setId("inventory-service:1");
+        cache = new InventoryReadCache(100, 30, applicationEventPublisher, busProperties,
+                new PathDestinationFactory(), meterRegistry);
+        productId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should load an inventory once and serve it from the cache until invalidated")
+    void shouldServeCachedInventoryUntilInvalidated() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        InventoryDTO inventory = new InventoryDTO(productId, 100, 20);
+
+        // Act
+        cache.getInventory(productId, id -> { loads.incrementAndGet(); return inventory; });
+        InventoryDTO cached = cache.getInventory(productId, id -> { loads.incrementAndGet(); return inventory; });
+        cache.onInvalidation(new InventoryCacheInvalidationEvent(this, "inventory-service:2", EVERY_REPLICA, List.of(productId)));
+        cache.getInventory(productId, id -> { loads.incrementAndGet(); return inventory; });
+
+        // Assert
+        assertThat(cached).isEqualTo(inventory);
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "inventory").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop existence checks of the invalidated products only")
+    void shouldDropInvalidatedExistenceOnly() {
+        // Arrange
+        UUID otherProductId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        cache.exists(productId, id -> { loads.incrementAndGet(); return true; });
+        cache.exists(otherProductId, id -> { loads.incrementAndGet(); return true; });
+
+        // Act
+        cache.onInvalidation(new InventoryCacheInvalidationEvent(this, "inventory-service:1", EVERY_REPLICA, List.of(productId)));
+        Boolean exists = cache.exists(productId, id -> { loads.incrementAndGet(); return false; });
+        cache.exists(otherProductId, id -> { loads.incrementAndGet(); return false; });
+
+        // Assert
+        assertThat(exists).isFalse();
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should broadcast an invalidation to every replica when inventory changes")
+    void shouldBroadcastInvalidationOnChange() {
+        // Arrange
+        ArgumentCaptor<InventoryCacheInvalidationEvent> invalidation =
+                ArgumentCaptor.forClass(InventoryCacheInvalidationEvent.class);
+
+        // Act
+        cache.onInventoryChanged(new InventoryChangedEvent(List.of(productId)));
+
+        // Assert
+        verify(applicationEventPublisher).publishEvent(invalidation.capture());
+        assertThat(invalidation.getValue().getProductIds()).containsExactly(productId);
+        assertThat(invalidation.getValue().getOriginService()).isEqualTo("inventory-service:1");
+        assertThat(invalidation.getValue().getDestinationService()).isEqualTo("**");
+    }
+}
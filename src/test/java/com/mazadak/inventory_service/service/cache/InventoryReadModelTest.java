@@ -0,0 +1,116 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.dto.response.InventoryDTO;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import com.mazadak.inventory_service.repository.InventoryShardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.PathDestinationFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@DisplayName("InventoryReadModel Tests")
+class InventoryReadModelTest {
+
+    private static final Destination EVERY_REPLICA = new PathDestinationFactory().getDestination(null);
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final InventoryShardRepository inventoryShardRepository = mock(InventoryShardRepository.class);
+    private InventoryReadModel readModel;
+    private UUID productId;
+    private UUID deletedProductId;
+    private UUID shardedProductId;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new InventoryReadModel(inventoryRepository, inventoryShardRepository,
+                mock(PlatformTransactionManager.class), true, 16, 60_000, new SimpleMeterRegistry());
+        productId = UUID.randomUUID();
+        deletedProductId = UUID.randomUUID();
+        shardedProductId = UUID.randomUUID();
+        when(inventoryRepository.streamAvailability()).thenAnswer(invocation -> Stream.of(
+                new InventoryAvailabilityRow(productId, 100, 20, false, 0),
+                new InventoryAvailabilityRow(deletedProductId, 5, 0, true, 0),
+                new InventoryAvailabilityRow(shardedProductId, 0, 0, false, 2)));
+        when(inventoryRepository.findAvailabilityByProductIdIn(List.of(shardedProductId))).thenReturn(List.of(
+                new InventoryAvailabilityRow(shardedProductId, 0, 0, false, 2)));
+        when(inventoryShardRepository.sumByProductIdIn(List.of(shardedProductId))).thenReturn(List.of(
+                new InventoryDTO(shardedProductId, 40, 10)));
+    }
+
+    @Test
+    @DisplayName("Should answer reads of every loaded product without the loader")
+    void shouldAnswerLoadedProducts() {
+        // Arrange
+        readModel.reload();
+
+        // Act & Assert
+        assertThat(readModel.getInventory(productId, id -> null)).isEqualTo(new InventoryDTO(productId, 100, 20));
+        assertThat(readModel.getInventory(shardedProductId, id -> null))
+                .isEqualTo(new InventoryDTO(shardedProductId, 40, 10));
+        assertThat(readModel.exists(productId, id -> null)).isTrue();
+        assertThat(readModel.exists(deletedProductId, id -> null)).isFalse();
+        assertThat(readModel.exists(UUID.randomUUID(), id -> null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should pass existence checks of a product created after the load to the loader")
+    void shouldPassCreatedProductsToLoader() {
+        // Arrange
+        readModel.reload();
+        UUID createdElsewhere = UUID.randomUUID();
+
+        // Act
+        readModel.onInvalidation(new InventoryCacheInvalidationEvent(this, "inventory-service:2", EVERY_REPLICA,
+                List.of(createdElsewhere)));
+        Boolean exists = readModel.exists(createdElsewhere, id -> true);
+
+        // Assert
+        assertThat(exists).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should pass reads of an invalidated product to the loader until it is read back")
+    void shouldReadBackInvalidatedProducts() {
+        // Arrange
+        readModel.reload();
+        when(inventoryRepository.findAvailabilityByProductIdIn(anyCollection())).thenReturn(List.of(
+                new InventoryAvailabilityRow(productId, 100, 30, false, 0)));
+        InventoryDTO loaded = new InventoryDTO(productId, 100, 30);
+
+        // Act
+        readModel.onInvalidation(new InventoryCacheInvalidationEvent(this, "inventory-service:2", EVERY_REPLICA, List.of(productId)));
+        InventoryDTO whileStale = readModel.getInventory(productId, id -> loaded);
+        readModel.refresh();
+
+        // Assert
+        assertThat(whileStale).isEqualTo(loaded);
+        assertThat(readModel.getInventory(productId, id -> null)).isEqualTo(loaded);
+    }
+
+    @Test
+    @DisplayName("Should pass every read to the loader when disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Arrange
+        InventoryReadModel disabled = new InventoryReadModel(inventoryRepository, inventoryShardRepository,
+                mock(PlatformTransactionManager.class), false, 16, 60_000, new SimpleMeterRegistry());
+
+        // Act
+        disabled.start();
+        Boolean exists = disabled.exists(productId, id -> true);
+
+        // Assert
+        assertThat(exists).isTrue();
+        verifyNoInteractions(inventoryRepository);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mazadak.inventory_service.service.cache;
+
+import com.mazadak.inventory_service.event.StockFreedEvent;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("LiveProductFilter Tests")
+class LiveProductFilterTest {
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LiveProductFilter filter;
+    private List<UUID> liveProductIds;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LiveProductFilter(inventoryRepository, mock(PlatformTransactionManager.class),
+                1_000, 0.001, 60_000, meterRegistry);
+        liveProductIds = IntStream.range(0, 5_000).mapToObj(i -> UUID.randomUUID()).toList();
+        when(inventoryRepository.streamLiveProductIds()).thenAnswer(invocation -> liveProductIds.stream());
+    }
+
+    @Test
+    @DisplayName("Should pass every check to the database until the filter is built")
+    void shouldPassThroughBeforeBuild() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        Boolean exists = filter.exists(UUID.randomUUID(), id -> { loads.incrementAndGet(); return false; });
+
+        // Assert
+        assertThat(exists).isFalse();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should answer unknown products without the database and never miss a live one")
+    void shouldAnswerDefiniteNegatives() {
+        // Arrange
+        filter.rebuild();
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        long found = liveProductIds.stream()
+                .filter(productId -> filter.exists(productId, id -> { loads.incrementAndGet(); return true; }))
+                .count();
+        Stream.generate(UUID::randomUUID).limit(10_000)
+                .forEach(productId -> filter.exists(productId, id -> { loads.incrementAndGet(); return false; }));
+
+        // Assert
+        assertThat(found).isEqualTo(liveProductIds.size());
+        assertThat(loads.get() - liveProductIds.size()).isLessThan(100); // false positives of 10k unknown
+        assertThat(meterRegistry.get("inventory.exists.filter.lookups").tag("result", "negative").counter().count())
+                .isGreaterThan(9_900);
+        assertThat(meterRegistry.get("inventory.exists.filter.bytes").gauge().value()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should know about products created after it was built")
+    void shouldAddCreatedProducts() {
+        // Arrange
+        filter.rebuild();
+        UUID productId = UUID.randomUUID();
+
+        // Act
+        filter.onStockFreed(new StockFreedEvent(List.of(productId)));
+
+        // Assert
+        assertThat(filter.exists(productId, id -> true)).isTrue();
+        assertThat(meterRegistry.get("inventory.exists.filter.lookups").tag("result", "positive").counter().count())
+                .isEqualTo(1);
+    }
+}
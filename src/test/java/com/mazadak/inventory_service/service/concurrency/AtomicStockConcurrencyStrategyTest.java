@@ -0,0 +1,141 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.model.Inventory;
+import com.mazadak.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AtomicStockConcurrencyStrategy Tests")
+class AtomicStockConcurrencyStrategyTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    private AtomicStockConcurrencyStrategy atomicStrategy;
+
+    private Inventory first;
+    private Inventory second;
+
+    @BeforeEach
+    void setUp() {
+        atomicStrategy = new AtomicStockConcurrencyStrategy(inventoryRepository, 3, new SimpleMeterRegistry());
+        first = inventory(new UUID(0, 1));
+        second = inventory(new UUID(0, 2));
+    }
+
+    private static Inventory inventory(UUID productId) {
+        Inventory inventory = new Inventory();
+        inventory.setInventoryId(UUID.randomUUID());
+        inventory.setProductId(productId);
+        inventory.setTotalQuantity(10);
+        inventory.setReservedQuantity(0);
+        return inventory;
+    }
+
+    @Test
+    @DisplayName("Should reserve every product with a guarded update")
+    void shouldReserveEveryProductWithGuardedUpdate() {
+        // Arrange
+        when(inventoryRepository.reserveStock(first.getInventoryId(), 3)).thenReturn(1);
+        when(inventoryRepository.reserveStock(second.getInventoryId(), 4)).thenReturn(1);
+
+        // Act
+        atomicStrategy.reserve(Map.of(first.getProductId(), first, second.getProductId(), second),
+                Map.of(first.getProductId(), 3, second.getProductId(), 4));
+
+        // Assert
+        verify(inventoryRepository, never()).releaseReservedStock(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should hand back already reserved products when a later one is short")
+    void shouldHandBackReservedProductsWhenLaterOneIsShort() {
+        // Arrange
+        when(inventoryRepository.reserveStock(first.getInventoryId(), 3)).thenReturn(1);
+        when(inventoryRepository.reserveStock(second.getInventoryId(), 4)).thenReturn(0);
+        when(inventoryRepository.findAvailableQuantity(second.getInventoryId())).thenReturn(2);
+        Map<UUID, Integer> requestedQuantities = new TreeMap<>(Map.of(first.getProductId(), 3, second.getProductId(), 4));
+
+        // Act & Assert
+        assertThatThrownBy(() -> atomicStrategy.reserve(
+                Map.of(first.getProductId(), first, second.getProductId(), second), requestedQuantities))
+                .isInstanceOf(NotEnoughStockException.class)
+                .hasMessageContaining("available 2"); // re-read after the failed update, not the loaded row
+        verify(inventoryRepository).releaseReservedStock(first.getInventoryId(), 3);
+        verify(inventoryRepository, never()).releaseReservedStock(eq(second.getInventoryId()), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject a product without inventory before any update")
+    void shouldRejectProductWithoutInventory() {
+        // Arrange
+        UUID missingProductId = new UUID(0, 0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> atomicStrategy.reserve(Map.of(first.getProductId(), first),
+                Map.of(missingProductId, 1, first.getProductId(), 3)))
+                .isInstanceOf(NotEnoughStockException.class);
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    @DisplayName("Should re-read availability and grant what is left when a partial update loses a race")
+    void shouldGrantWhatIsLeftWhenPartialUpdateLosesRace() {
+        // Arrange
+        when(inventoryRepository.reserveStock(first.getInventoryId(), 8)).thenReturn(0);
+        when(inventoryRepository.findAvailableQuantity(first.getInventoryId())).thenReturn(6);
+        when(inventoryRepository.reserveStock(first.getInventoryId(), 6)).thenReturn(1);
+
+        // Act
+        Map<UUID, Integer> granted = atomicStrategy.reserveAvailable(Map.of(first.getProductId(), first),
+                Map.of(first.getProductId(), 8), Map.of(first.getProductId(), 2));
+
+        // Assert
+        assertThat(granted).containsEntry(first.getProductId(), 6);
+    }
+
+    @Test
+    @DisplayName("Should grant nothing of a product still losing the race after the last attempt")
+    void shouldGrantNothingAfterLastAttempt() {
+        // Arrange
+        when(inventoryRepository.reserveStock(eq(first.getInventoryId()), anyInt())).thenReturn(0);
+        when(inventoryRepository.findAvailableQuantity(first.getInventoryId())).thenReturn(6);
+
+        // Act
+        Map<UUID, Integer> granted = atomicStrategy.reserveAvailable(Map.of(first.getProductId(), first),
+                Map.of(first.getProductId(), 8), Map.of(first.getProductId(), 0));
+
+        // Assert
+        assertThat(granted).containsEntry(first.getProductId(), 0);
+        verify(inventoryRepository, times(3)).reserveStock(eq(first.getInventoryId()), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should fail a product with a minimum still losing the race after the last attempt")
+    void shouldFailProductWithMinimumAfterLastAttempt() {
+        // Arrange
+        when(inventoryRepository.reserveStock(eq(first.getInventoryId()), anyInt())).thenReturn(0);
+        when(inventoryRepository.findAvailableQuantity(first.getInventoryId())).thenReturn(6);
+
+        // Act & Assert
+        assertThatThrownBy(() -> atomicStrategy.reserveAvailable(Map.of(first.getProductId(), first),
+                Map.of(first.getProductId(), 8), Map.of(first.getProductId(), 2)))
+                .isInstanceOf(NotEnoughStockException.class);
+        verify(inventoryRepository, times(3)).reserveStock(eq(first.getInventoryId()), anyInt());
+    }
+}
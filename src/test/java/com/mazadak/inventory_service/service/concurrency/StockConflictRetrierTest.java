@@ -0,0 +1,67 @@
+package com.mazadak.inventory_service.service.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("StockConflictRetrier Tests")
+class StockConflictRetrierTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockConflictRetrier retrier;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retrier = new StockConflictRetrier("optimistic", 3, 1,
+                OptimisticLockingFailureException.class::isInstance, meterRegistry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should retry a conflicting mutation until it succeeds")
+    void shouldRetryConflictingMutationUntilItSucceeds() {
+        // Act
+        String result = retrier.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale inventory");
+            }
+            return "reserved";
+        });
+
+        // Assert
+        assertThat(result).isEqualTo("reserved");
+        assertThat(meterRegistry.get("inventory.concurrency.retries").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should give up after the last attempt")
+    void shouldGiveUpAfterLastAttempt() {
+        // Act & Assert
+        assertThatThrownBy(() -> retrier.execute(() -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale inventory");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("inventory.concurrency.retries.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not retry other failures")
+    void shouldNotRetryOtherFailures() {
+        // Act & Assert
+        assertThatThrownBy(() -> retrier.execute(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("broken");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ExpiryPartitionCoordinator Tests")
+class ExpiryPartitionCoordinatorTest {
+
+    private static final int PARTITIONS = 16;
+
+    private Map<List<Integer>, Session> locks;
+
+    @BeforeEach
+    void setUp() {
+        locks = new HashMap<>();
+    }
+
+    // stands in for the database: one session per replica, locks shared between them
+    private final class Session implements PartitionLocks {
+
+        private boolean broken;
+        private boolean connected;
+
+        @Override
+        public boolean connect() {
+            if (broken) {
+                throw new IllegalStateException("connection lost");
+            }
+            boolean reconnected = !connected;
+            connected = true;
+            return reconnected;
+        }
+
+        @Override
+        public boolean tryLock(int namespace, int key) {
+            if (broken) {
+                throw new IllegalStateException("connection lost");
+            }
+            return locks.putIfAbsent(List.of(namespace, key), this) == null || locks.get(List.of(namespace, key)) == this;
+        }
+
+        @Override
+        public void unlock(int namespace, int key) {
+            locks.remove(List.of(namespace, key), this);
+        }
+
+        @Override
+        public int countHeld(int namespace) {
+            if (broken) {
+                throw new IllegalStateException("connection lost");
+            }
+            return (int) locks.keySet().stream().filter(lock -> lock.get(0) == namespace).count();
+        }
+
+        @Override
+        public void close() {
+            locks.values().removeIf(owner -> owner == this);
+            connected = false;
+        }
+    }
+
+    private static List<Set<Integer>> rebalanceAll(List<ExpiryPartitionCoordinator> coordinators) {
+        List<Set<Integer>> owned = new ArrayList<>();
+        for (ExpiryPartitionCoordinator coordinator : coordinators) {
+            owned.add(coordinator.rebalance());
+        }
+        return owned;
+    }
+
+    private static void assertEveryPartitionOwnedOnce(List<Set<Integer>> owned) {
+        List<Integer> all = new ArrayList<>();
+        owned.forEach(all::addAll);
+        assertThat(all).doesNotHaveDuplicates();
+        assertThat(all).hasSize(PARTITIONS);
+    }
+
+    @Test
+    @DisplayName("Should split the partitions between replicas without overlap")
+    void shouldSplitPartitionsWithoutOverlap() {
+        // Arrange
+        ExpiryPartitionCoordinator first = new ExpiryPartitionCoordinator(new Session(), PARTITIONS);
+        first.rebalance();
+        List<ExpiryPartitionCoordinator> coordinators = List.of(first,
+                new ExpiryPartitionCoordinator(new Session(), PARTITIONS),
+                new ExpiryPartitionCoordinator(new Session(), PARTITIONS));
+
+        // Act
+        rebalanceAll(coordinators);
+        List<Set<Integer>> owned = rebalanceAll(coordinators);
+
+        // Assert
+        assertEveryPartitionOwnedOnce(owned);
+        assertThat(owned).allSatisfy(partitions -> assertThat(partitions).hasSizeBetween(4, 6));
+    }
+
+    @Test
+    @DisplayName("Should hand the partitions of a replica that went away to the others")
+    void shouldTakeOverPartitionsOfLeavingReplica() {
+        // Arrange
+        Session leaving = new Session();
+        List<ExpiryPartitionCoordinator> coordinators = new ArrayList<>(List.of(
+                new ExpiryPartitionCoordinator(new Session(), PARTITIONS),
+                new ExpiryPartitionCoordinator(new Session(), PARTITIONS),
+                new ExpiryPartitionCoordinator(leaving, PARTITIONS)));
+        rebalanceAll(coordinators);
+        rebalanceAll(coordinators);
+
+        // Act
+        leaving.close(); // the pod died and took its session with it
+        coordinators.remove(2);
+        List<Set<Integer>> owned = rebalanceAll(coordinators);
+
+        // Assert
+        assertEveryPartitionOwnedOnce(owned);
+    }
+
+    @Test
+    @DisplayName("Should own nothing after losing its database session")
+    void shouldOwnNothingAfterLosingSession() {
+        // Arrange
+        Session session = new Session();
+        ExpiryPartitionCoordinator coordinator = new ExpiryPartitionCoordinator(session, PARTITIONS);
+        assertThat(coordinator.rebalance()).hasSize(PARTITIONS);
+        session.broken = true;
+
+        // Act
+        Set<Integer> owned = coordinator.rebalance();
+
+        // Assert
+        assertThat(owned).isEmpty();
+        assertThat(locks).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should take its partitions again after its session was replaced")
+    void shouldRetakePartitionsAfterSessionWasReplaced() {
+        // Arrange
+        Session session = new Session();
+        ExpiryPartitionCoordinator coordinator = new ExpiryPartitionCoordinator(session, PARTITIONS);
+        assertThat(coordinator.rebalance()).hasSize(PARTITIONS);
+        session.close(); // the database dropped the session behind the coordinator's back
+
+        // Act
+        Set<Integer> owned = coordinator.rebalance();
+
+        // Assert
+        assertThat(owned).hasSize(PARTITIONS);
+        assertThat(locks.keySet()).filteredOn(lock -> lock.get(0) == ExpiryPartitionCoordinator.PARTITION_NAMESPACE)
+                .hasSize(PARTITIONS);
+        assertThat(locks.keySet()).filteredOn(lock -> lock.get(0) == ExpiryPartitionCoordinator.MEMBER_NAMESPACE)
+                .hasSize(1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mazadak.inventory_service.service.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final long START = 1_000_000;
+
+    private TimingWheel<String> wheel;
+    private Map<String, Long> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(TICK, 8, 3, START);
+        fired = new HashMap<>();
+    }
+
+    private void advanceTo(long now) {
+        wheel.advance(now, (key, deadline) -> fired.put(key, now));
+    }
+
+    @Test
+    @DisplayName("Should fire entries on every level within a tick of their deadline")
+    void shouldFireEntriesWithinATickOfTheirDeadline() {
+        // Arrange
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = START + random.nextInt(50_000); // spans all three levels and beyond
+            deadlines.put("r" + i, deadline);
+            wheel.schedule("r" + i, deadline);
+        }
+
+        // Act
+        for (long now = START; now <= START + 50_000 + TICK; now += TICK) {
+            advanceTo(now);
+        }
+
+        // Assert
+        assertThat(fired).hasSameSizeAs(deadlines);
+        deadlines.forEach((key, deadline) ->
+                assertThat(fired.get(key) - deadline).as(key).isBetween(0L, TICK));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not fire cancelled entries and only fire the latest deadline of rescheduled ones")
+    void shouldHonourCancelAndReschedule() {
+        // Arrange
+        wheel.schedule("cancelled", START + 100);
+        wheel.schedule("rescheduled", START + 100);
+        wheel.schedule("rescheduled", START + 900);
+        wheel.cancel("cancelled");
+
+        // Act
+        advanceTo(START + 500);
+        List<String> firedEarly = new ArrayList<>(fired.keySet());
+        advanceTo(START + 1_000);
+
+        // Assert
+        assertThat(firedEarly).isEmpty();
+        assertThat(fired).containsOnlyKeys("rescheduled");
+        assertThat(fired.get("rescheduled")).isEqualTo(START + 1_000);
+    }
+
+    @Test
+    @DisplayName("Should fire a deadline in the past on the next advance")
+    void shouldFirePastDeadlineOnNextAdvance() {
+        // Arrange
+        advanceTo(START + 1_000);
+        wheel.schedule("late", START);
+
+        // Act
+        advanceTo(START + 1_000 + TICK);
+
+        // Assert
+        assertThat(fired).containsOnlyKeys("late");
+    }
+}
@@ -0,0 +1,205 @@
+package com.mazadak.inventory_service.service.groupcommit;
+
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.service.Impl.InventoryReservationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GroupCommitInventoryReservationService Tests")
+class GroupCommitInventoryReservationServiceTest {
+
+    @Mock
+    private InventoryReservationServiceImpl inventoryReservationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GroupCommitInventoryReservationService groupCommitService;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        groupCommitService = new GroupCommitInventoryReservationService(inventoryReservationService, 20, 256, 1, 5_000,
+                meterRegistry);
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        groupCommitService.shutdown();
+    }
+
+    private static ReserveInventoryRequest requestFor(UUID orderId) {
+        return new ReserveInventoryRequest(List.of(new reserveItemDTO(UUID.randomUUID(), 1)), orderId);
+    }
+
+    // answers every request of a group with its order id, or with a stock failure when the order id is null
+    private static List<ReservationOutcome> outcomesOf(List<PendingReservation> group) {
+        List<ReservationOutcome> outcomes = new ArrayList<>();
+        for (PendingReservation pendingReservation : group) {
+            UUID orderId = pendingReservation.request().orderId();
+            outcomes.add(orderId == null
+                    ? ReservationOutcome.failed(new NotEnoughStockException(UUID.randomUUID(), 1, 0))
+                    : ReservationOutcome.reserved(List.of(orderId)));
+        }
+        return outcomes;
+    }
+
+    @Test
+    @DisplayName("Should group concurrent requests and return each caller its own result")
+    void shouldGroupConcurrentRequestsAndReturnOwnResults() throws Exception {
+        // Arrange
+        when(inventoryReservationService.reserveInventoryGroup(anyList()))
+                .thenAnswer(invocation -> outcomesOf(invocation.getArgument(0)));
+        CountDownLatch start = new CountDownLatch(1);
+        List<UUID> orderIds = new ArrayList<>();
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            UUID orderId = UUID.randomUUID();
+            orderIds.add(orderId);
+            futures.add(callers.submit(() -> {
+                start.await();
+                return groupCommitService.reserveInventory(UUID.randomUUID(), requestFor(orderId));
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(10, TimeUnit.SECONDS)).containsExactly(orderIds.get(i));
+        }
+        long groups = mockingDetails(inventoryReservationService).getInvocations().size();
+        assertThat(groups).isLessThan(8);
+        assertThat(meterRegistry.get("inventory.reservation.group.size").summary().totalAmount()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should rethrow a failed outcome only to its own caller")
+    void shouldRethrowFailedOutcomeToItsCaller() {
+        // Arrange
+        when(inventoryReservationService.reserveInventoryGroup(anyList()))
+                .thenAnswer(invocation -> outcomesOf(invocation.getArgument(0)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> groupCommitService.reserveInventory(UUID.randomUUID(), requestFor(null)))
+                .isInstanceOf(NotEnoughStockException.class);
+    }
+
+    @Test
+    @DisplayName("Should apply requests one by one when the group transaction fails")
+    void shouldFallBackToSingleCommitsWhenGroupFails() {
+        // Arrange
+        UUID idempotencyKey = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+        ReserveInventoryRequest request = requestFor(orderId);
+        when(inventoryReservationService.reserveInventoryGroup(anyList()))
+                .thenThrow(new IllegalStateException("connection reset"));
+        when(inventoryReservationService.reserveInventory(idempotencyKey, request)).thenReturn(List.of(orderId));
+
+        // Act
+        List<UUID> result = groupCommitService.reserveInventory(idempotencyKey, request);
+
+        // Assert
+        assertThat(result).containsExactly(orderId);
+        verify(inventoryReservationService).reserveInventory(idempotencyKey, request);
+        verify(inventoryReservationService, never()).confirmReservation(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should commit requests of different lanes in separate groups")
+    void shouldCommitLanesSeparately() throws Exception {
+        // Arrange
+        groupCommitService.shutdown();
+        groupCommitService = new GroupCommitInventoryReservationService(inventoryReservationService, 20, 256, 2, 5_000,
+                meterRegistry);
+        List<List<UUID>> groups = new CopyOnWriteArrayList<>();
+        when(inventoryReservationService.reserveInventoryGroup(anyList())).thenAnswer(invocation -> {
+            List<PendingReservation> group = invocation.getArgument(0);
+            groups.add(group.stream().map(pending -> pending.request().items().get(0).productId()).toList());
+            return outcomesOf(group);
+        });
+        UUID evenProductId = productOnLane(0);
+        UUID oddProductId = productOnLane(1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+
+        // Act
+        for (UUID productId : List.of(evenProductId, oddProductId, evenProductId, oddProductId)) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return groupCommitService.reserveInventory(UUID.randomUUID(), new ReserveInventoryRequest(
+                        List.of(new reserveItemDTO(productId, 1)), UUID.randomUUID()));
+            }));
+        }
+        start.countDown();
+        for (Future<List<UUID>> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertThat(groups).allSatisfy(group -> assertThat(group).containsOnly(group.get(0)));
+    }
+
+    @Test
+    @DisplayName("Should commit queued requests before shutting down and refuse new ones")
+    void shouldDrainQueuedRequestsOnShutdown() throws Exception {
+        // Arrange
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(inventoryReservationService.reserveInventoryGroup(anyList())).thenAnswer(invocation -> {
+            committing.countDown();
+            release.await();
+            return outcomesOf(invocation.getArgument(0));
+        });
+        UUID firstOrderId = UUID.randomUUID();
+        UUID queuedOrderId = UUID.randomUUID();
+        Future<List<UUID>> first = callers.submit(() ->
+                groupCommitService.reserveInventory(UUID.randomUUID(), requestFor(firstOrderId)));
+        committing.await(10, TimeUnit.SECONDS);
+        Future<List<UUID>> queued = callers.submit(() ->
+                groupCommitService.reserveInventory(UUID.randomUUID(), requestFor(queuedOrderId)));
+        Thread.sleep(50);
+
+        // Act
+        Future<?> shutdown = callers.submit(groupCommitService::shutdown);
+        Thread.sleep(50);
+        release.countDown();
+        shutdown.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(firstOrderId);
+        assertThat(queued.get(10, TimeUnit.SECONDS)).containsExactly(queuedOrderId);
+        assertThatThrownBy(() -> groupCommitService.reserveInventory(UUID.randomUUID(), requestFor(UUID.randomUUID())))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static UUID productOnLane(int lane) {
+        UUID productId;
+        do {
+            productId = UUID.randomUUID();
+        } while (Math.floorMod(productId.hashCode(), 2) != lane);
+        return productId;
+    }
+}
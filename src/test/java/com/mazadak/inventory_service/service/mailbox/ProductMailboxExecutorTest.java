@@ -0,0 +1,166 @@
+package com.mazadak.inventory_service.service.mailbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ProductMailboxExecutor Tests")
+class ProductMailboxExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductMailboxExecutor productMailboxExecutor;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        productMailboxExecutor = new ProductMailboxExecutor(4, meterRegistry);
+        callers = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        productMailboxExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should apply mutations of one product one at a time")
+    void shouldApplyMutationsOfOneProductSerially() throws Exception {
+        // Arrange
+        UUID productId = UUID.randomUUID();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            int value = i;
+            futures.add(callers.submit(() -> productMailboxExecutor.execute(productId, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                return value;
+            })));
+        }
+
+        // Assert
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("inventory.mailbox.wait").timer().count()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should exclude single-product mutations while a cart holds their mailboxes")
+    void shouldCoordinateMultiProductWorkAcrossMailboxes() throws Exception {
+        // Arrange
+        List<UUID> productIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            productIds.add(UUID.randomUUID());
+        }
+        AtomicInteger cartsRunning = new AtomicInteger();
+        AtomicInteger singlesRunning = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            UUID productId = productIds.get(i % productIds.size());
+            boolean cart = i % 2 == 0;
+            futures.add(callers.submit(() -> cart
+                    ? productMailboxExecutor.execute(productIds, () -> {
+                        if (cartsRunning.incrementAndGet() > 1 || singlesRunning.get() > 0) {
+                            overlapped.set(true);
+                        }
+                        return cartsRunning.decrementAndGet();
+                    })
+                    : productMailboxExecutor.execute(productId, () -> {
+                        singlesRunning.incrementAndGet();
+                        if (cartsRunning.get() > 0) {
+                            overlapped.set(true);
+                        }
+                        return singlesRunning.decrementAndGet();
+                    })));
+        }
+
+        // Assert
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(overlapped.get()).isFalse();
+        assertThat(productMailboxExecutor.queueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should propagate exceptions to the caller")
+    void shouldPropagateExceptionsToCaller() {
+        // Arrange
+        UUID productId = UUID.randomUUID();
+
+        // Act & Assert
+        assertThatThrownBy(() -> productMailboxExecutor.execute(productId, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(productMailboxExecutor.execute(productId, () -> "still running")).isEqualTo("still running");
+    }
+
+    @Test
+    @DisplayName("Should run nested work inline when the caller already holds its mailboxes")
+    void shouldRunNestedWorkInline() throws Exception {
+        // Arrange
+        List<UUID> productIds = productsOnDistinctStripes(2);
+
+        // Act
+        Future<String> result = callers.submit(() -> productMailboxExecutor.execute(productIds, () ->
+                productMailboxExecutor.execute(productIds.get(0), () ->
+                        productMailboxExecutor.execute(productIds, () -> "nested"))));
+
+        // Assert
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("nested");
+        assertThat(productMailboxExecutor.execute(productIds, () -> "released")).isEqualTo("released");
+    }
+
+    @Test
+    @DisplayName("Should reject multi-product work from a mailbox holding only some of its products")
+    void shouldRejectMultiProductWorkFromMailboxThread() throws Exception {
+        // Arrange
+        List<UUID> productIds = productsOnDistinctStripes(2);
+
+        // Act
+        Future<String> result = callers.submit(() -> productMailboxExecutor.execute(productIds.get(0), () ->
+                productMailboxExecutor.execute(productIds, () -> "deadlocked")));
+
+        // Assert
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    // the executor under test has 4 stripes, picked by the hash of the product id
+    private static List<UUID> productsOnDistinctStripes(int count) {
+        List<UUID> productIds = new ArrayList<>();
+        List<Integer> stripes = new ArrayList<>();
+        while (productIds.size() < count) {
+            UUID productId = UUID.randomUUID();
+            int stripe = Math.floorMod(productId.hashCode(), 4);
+            if (!stripes.contains(stripe)) {
+                stripes.add(stripe);
+                productIds.add(productId);
+            }
+        }
+        return productIds;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// partitions kept in memory, named after their day like the Postgres ones
+class FakeOutboxPartitions implements OutboxPartitions {
+
+    final List<OutboxPartition> partitions = new ArrayList<>();
+    final Set<String> unpublished = new HashSet<>();
+    boolean partitioned = true;
+    int conversions;
+
+    @Override
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    @Override
+    public boolean partitionFrom(LocalDate firstDay) {
+        if (partitioned) {
+            return false;
+        }
+        partitioned = true;
+        conversions++;
+        partitions.add(new OutboxPartition("legacy", firstDay.atStartOfDay()));
+        return true;
+    }
+
+    @Override
+    public List<OutboxPartition> list() {
+        return List.copyOf(partitions);
+    }
+
+    @Override
+    public void create(LocalDate day) {
+        partitions.add(new OutboxPartition("p" + day, day.plusDays(1).atStartOfDay()));
+    }
+
+    @Override
+    public boolean hasUnpublished(String partition) {
+        return unpublished.contains(partition);
+    }
+
+    @Override
+    public void drop(String partition) {
+        partitions.removeIf(p -> p.name().equals(partition));
+    }
+
+    List<String> names() {
+        return partitions.stream().map(OutboxPartition::name).sorted().toList();
+    }
+}
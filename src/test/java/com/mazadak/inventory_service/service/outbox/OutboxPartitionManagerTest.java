@@ -0,0 +1,63 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("OutboxPartitionManager Tests")
+class OutboxPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    @DisplayName("Should create the partitions for today and the days ahead once")
+    void shouldCreatePartitionsAhead() {
+        // Arrange
+        FakeOutboxPartitions partitions = new FakeOutboxPartitions();
+        OutboxPartitionManager manager = new OutboxPartitionManager(partitions, 7, 2);
+
+        // Act
+        manager.maintain(TODAY);
+        manager.maintain(TODAY);
+
+        // Assert
+        assertThat(partitions.names()).containsExactly("p2026-03-10", "p2026-03-11", "p2026-03-12");
+    }
+
+    @Test
+    @DisplayName("Should drop published partitions past retention and keep ones with unpublished events")
+    void shouldDropExpiredPublishedPartitions() {
+        // Arrange
+        FakeOutboxPartitions partitions = new FakeOutboxPartitions();
+        for (int days = 10; days > 0; days--) {
+            partitions.create(TODAY.minusDays(days));
+        }
+        partitions.unpublished.add("p2026-02-28");
+        OutboxPartitionManager manager = new OutboxPartitionManager(partitions, 7, 0);
+
+        // Act
+        manager.maintain(TODAY);
+
+        // Assert
+        assertThat(partitions.names()).containsExactly("p2026-02-28", "p2026-03-03", "p2026-03-04",
+                "p2026-03-05", "p2026-03-06", "p2026-03-07", "p2026-03-08", "p2026-03-09", "p2026-03-10");
+    }
+
+    @Test
+    @DisplayName("Should leave a table that was never converted alone")
+    void shouldSkipUnpartitionedTable() {
+        // Arrange
+        FakeOutboxPartitions partitions = new FakeOutboxPartitions();
+        partitions.partitioned = false;
+        OutboxPartitionManager manager = new OutboxPartitionManager(partitions, 7, 2);
+
+        // Act
+        manager.maintain(TODAY);
+
+        // Assert
+        assertThat(partitions.names()).isEmpty();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mazadak.inventory_service.service.outbox;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("OutboxPartitionMigration Tests")
+class OutboxPartitionMigrationTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    @DisplayName("Should convert the table and create the partitions ahead")
+    void shouldConvertTableAndCreatePartitionsAhead() {
+        // Arrange
+        FakeOutboxPartitions partitions = new FakeOutboxPartitions();
+        partitions.partitioned = false;
+        OutboxPartitionMigration migration = new OutboxPartitionMigration(partitions, 2,
+                mock(ConfigurableApplicationContext.class));
+
+        // Act
+        boolean migrated = migration.migrate(TODAY);
+
+        // Assert
+        assertThat(migrated).isTrue();
+        assertThat(partitions.names()).containsExactly("legacy", "p2026-03-10", "p2026-03-11", "p2026-03-12");
+    }
+
+    @Test
+    @DisplayName("Should do nothing when the table is partitioned already")
+    void shouldDoNothingWhenPartitionedAlready() {
+        // Arrange
+        FakeOutboxPartitions partitions = new FakeOutboxPartitions();
+        partitions.partitioned = false;
+        OutboxPartitionMigration migration = new OutboxPartitionMigration(partitions, 2,
+                mock(ConfigurableApplicationContext.class));
+        migration.migrate(TODAY);
+
+        // Act
+        boolean migrated = migration.migrate(TODAY.plusDays(1));
+
+        // Assert
+        assertThat(migrated).isFalse();
+        assertThat(partitions.conversions).isEqualTo(1);
+        assertThat(partitions.names()).hasSize(4);
+    }
+}
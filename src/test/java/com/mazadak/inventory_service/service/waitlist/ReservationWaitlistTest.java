@@ -0,0 +1,298 @@
+package com.mazadak.inventory_service.service.waitlist;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mazadak.common.exception.domain.inventory.NotEnoughStockException;
+import com.mazadak.inventory_service.config.JpaTestConfiguration;
+import com.mazadak.inventory_service.dto.request.ReserveInventoryRequest;
+import com.mazadak.inventory_service.dto.request.reserveItemDTO;
+import com.mazadak.inventory_service.dto.response.WaitlistTicketDTO;
+import com.mazadak.inventory_service.model.WaitlistTicket;
+import com.mazadak.inventory_service.model.enums.WaitlistStatus;
+import com.mazadak.inventory_service.repository.WaitlistTicketRepository;
+import com.mazadak.inventory_service.service.InventoryReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = JpaTestConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ReservationWaitlist Tests")
+class ReservationWaitlistTest {
+
+    @Autowired
+    private WaitlistTicketRepository waitlistTicketRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final InventoryReservationService inventoryReservationService = mock(InventoryReservationService.class);
+
+    private ReservationWaitlist reservationWaitlist;
+
+    private UUID productId;
+    private UUID firstKey;
+    private UUID secondKey;
+    private ReserveInventoryRequest request;
+
+    @BeforeEach
+    void setUp() {
+        reservationWaitlist = replica();
+        productId = UUID.randomUUID();
+        firstKey = UUID.randomUUID();
+        secondKey = UUID.randomUUID();
+        request = new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 5)), UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationWaitlist.shutdown();
+        waitlistTicketRepository.deleteAll();
+    }
+
+    private ReservationWaitlist replica() {
+        return new ReservationWaitlist(inventoryReservationService, waitlistTicketRepository, transactionTemplate,
+                objectMapper, 2, 60, 300, new SimpleMeterRegistry());
+    }
+
+    // queues a ticket without the background drain that reserveOrWait starts
+    private UUID queue(UUID idempotencyKey, ReserveInventoryRequest request, LocalDateTime expiresAt) throws Exception {
+        HashSet<UUID> productIds = new HashSet<>();
+        request.items().forEach(item -> productIds.add(item.productId()));
+        return waitlistTicketRepository.save(WaitlistTicket.builder()
+                .idempotencyKey(idempotencyKey)
+                .request(objectMapper.writeValueAsString(request))
+                .productIds(productIds)
+                .status(WaitlistStatus.QUEUED)
+                .expiresAt(expiresAt)
+                .build()).getTicketId();
+    }
+
+    private static NotEnoughStockException notEnoughStock(UUID productId) {
+        return new NotEnoughStockException(productId, 5, 0);
+    }
+
+    @Test
+    @DisplayName("Should reserve right away when stock is available")
+    void shouldReserveRightAwayWhenStockIsAvailable() {
+        // Arrange
+        UUID reservationId = UUID.randomUUID();
+        when(inventoryReservationService.reserveInventory(firstKey, request)).thenReturn(List.of(reservationId));
+
+        // Act
+        WaitlistTicketDTO ticket = reservationWaitlist.reserveOrWait(firstKey, request, 30);
+
+        // Assert
+        assertThat(ticket.status()).isEqualTo(WaitlistStatus.FULFILLED);
+        assertThat(ticket.reservationIds()).containsExactly(reservationId);
+        assertThat(reservationWaitlist.depth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should answer a retried request with the ticket of the first one")
+    void shouldAnswerRetryWithFirstTicket() throws Exception {
+        // Arrange
+        UUID ticketId = queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+
+        // Act
+        WaitlistTicketDTO retried = reservationWaitlist.reserveOrWait(firstKey, request, 30);
+
+        // Assert
+        assertThat(retried.ticketId()).isEqualTo(ticketId);
+        assertThat(retried.status()).isEqualTo(WaitlistStatus.QUEUED);
+        assertThat(waitlistTicketRepository.count()).isEqualTo(1);
+        verifyNoInteractions(inventoryReservationService);
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectKeyReusedForDifferentRequest() throws Exception {
+        // Arrange
+        queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+        ReserveInventoryRequest otherRequest =
+                new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 1)), UUID.randomUUID());
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationWaitlist.reserveOrWait(firstKey, otherRequest, 30))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(inventoryReservationService);
+    }
+
+    @Test
+    @DisplayName("Should answer for a ticket queued on another replica")
+    void shouldAnswerForTicketQueuedOnAnotherReplica() {
+        // Arrange
+        when(inventoryReservationService.reserveInventory(any(), eq(request))).thenThrow(notEnoughStock(productId));
+        WaitlistTicketDTO queued = reservationWaitlist.reserveOrWait(firstKey, request, 30);
+        ReservationWaitlist otherReplica = replica();
+
+        try {
+            // Act
+            WaitlistTicketDTO ticket = otherReplica.awaitTicket(queued.ticketId(), 0).join();
+
+            // Assert
+            assertThat(queued.status()).isEqualTo(WaitlistStatus.QUEUED);
+            assertThat(ticket.status()).isEqualTo(WaitlistStatus.QUEUED);
+            assertThat(ticket.ticketId()).isEqualTo(queued.ticketId());
+        } finally {
+            otherReplica.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fulfil queued requests in arrival order once stock is freed")
+    void shouldFulfilQueuedRequestsInOrder() throws Exception {
+        // Arrange
+        UUID firstReservationId = UUID.randomUUID();
+        when(inventoryReservationService.reserveInventory(firstKey, request)).thenReturn(List.of(firstReservationId));
+        when(inventoryReservationService.reserveInventory(secondKey, request)).thenThrow(notEnoughStock(productId));
+        UUID first = queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+        UUID second = queue(secondKey, request, LocalDateTime.now().plusSeconds(30));
+
+        // Act
+        reservationWaitlist.drain(List.of(productId));
+
+        // Assert
+        assertThat(reservationWaitlist.awaitTicket(first, 0).join().reservationIds())
+                .containsExactly(firstReservationId);
+        assertThat(reservationWaitlist.awaitTicket(second, 0).join().status()).isEqualTo(WaitlistStatus.QUEUED);
+        assertThat(reservationWaitlist.depth()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hold later requests back behind a request for the same product alone")
+    void shouldHoldLaterRequestsBackBehindSingleProductRequest() throws Exception {
+        // Arrange
+        ReserveInventoryRequest smallerRequest =
+                new ReserveInventoryRequest(List.of(new reserveItemDTO(productId, 1)), UUID.randomUUID());
+        when(inventoryReservationService.reserveInventory(firstKey, request)).thenThrow(notEnoughStock(productId));
+        UUID first = queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+        UUID second = queue(secondKey, smallerRequest, LocalDateTime.now().plusSeconds(30));
+
+        // Act
+        reservationWaitlist.drain(List.of(productId));
+
+        // Assert
+        verify(inventoryReservationService, never()).reserveInventory(secondKey, smallerRequest);
+        assertThat(reservationWaitlist.awaitTicket(first, 0).join().status()).isEqualTo(WaitlistStatus.QUEUED);
+        assertThat(reservationWaitlist.awaitTicket(second, 0).join().status()).isEqualTo(WaitlistStatus.QUEUED);
+    }
+
+    @Test
+    @DisplayName("Should not let a request waiting on another product hold back a product with free stock")
+    void shouldNotLetMultiProductRequestHoldBackFreeProduct() throws Exception {
+        // Arrange
+        UUID otherProductId = UUID.randomUUID();
+        ReserveInventoryRequest multiProductRequest = new ReserveInventoryRequest(
+                List.of(new reserveItemDTO(productId, 1), new reserveItemDTO(otherProductId, 5)), UUID.randomUUID());
+        UUID reservationId = UUID.randomUUID();
+        when(inventoryReservationService.reserveInventory(firstKey, multiProductRequest))
+                .thenThrow(notEnoughStock(otherProductId));
+        when(inventoryReservationService.reserveInventory(secondKey, request)).thenReturn(List.of(reservationId));
+        UUID first = queue(firstKey, multiProductRequest, LocalDateTime.now().plusSeconds(30));
+        UUID second = queue(secondKey, request, LocalDateTime.now().plusSeconds(30));
+
+        // Act
+        reservationWaitlist.drain(List.of(productId));
+
+        // Assert
+        assertThat(reservationWaitlist.awaitTicket(first, 0).join().status()).isEqualTo(WaitlistStatus.QUEUED);
+        assertThat(reservationWaitlist.awaitTicket(second, 0).join().reservationIds()).containsExactly(reservationId);
+    }
+
+    @Test
+    @DisplayName("Should reject a request when the product's waitlist is full")
+    void shouldRejectRequestWhenWaitlistIsFull() {
+        // Arrange
+        when(inventoryReservationService.reserveInventory(any(), eq(request))).thenThrow(notEnoughStock(productId));
+        reservationWaitlist.reserveOrWait(UUID.randomUUID(), request, 30);
+        reservationWaitlist.reserveOrWait(UUID.randomUUID(), request, 30);
+
+        // Act & Assert
+        assertThatThrownBy(() -> reservationWaitlist.reserveOrWait(UUID.randomUUID(), request, 30))
+                .isInstanceOf(NotEnoughStockException.class);
+    }
+
+    @Test
+    @DisplayName("Should expire a request whose deadline passed while queued")
+    void shouldExpireOverdueRequest() throws Exception {
+        // Arrange
+        UUID ticketId = queue(firstKey, request, LocalDateTime.now().minusSeconds(1));
+
+        // Act
+        reservationWaitlist.drain(List.of(productId));
+
+        // Assert
+        assertThat(reservationWaitlist.awaitTicket(ticketId, 0).join().status()).isEqualTo(WaitlistStatus.EXPIRED);
+        assertThat(reservationWaitlist.depth()).isZero();
+        verifyNoInteractions(inventoryReservationService);
+    }
+
+    @Test
+    @DisplayName("Should complete a long poll as soon as the request is fulfilled")
+    void shouldCompleteLongPollWhenFulfilled() throws Exception {
+        // Arrange
+        UUID reservationId = UUID.randomUUID();
+        when(inventoryReservationService.reserveInventory(firstKey, request)).thenReturn(List.of(reservationId));
+        UUID ticketId = queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+        CompletableFuture<WaitlistTicketDTO> longPoll = reservationWaitlist.awaitTicket(ticketId, 30);
+
+        // Act
+        reservationWaitlist.drain(List.of(productId));
+
+        // Assert
+        WaitlistTicketDTO result = longPoll.get(5, TimeUnit.SECONDS);
+        assertThat(result.status()).isEqualTo(WaitlistStatus.FULFILLED);
+        assertThat(result.reservationIds()).containsExactly(reservationId);
+    }
+
+    @Test
+    @DisplayName("Should complete a long poll when another replica fulfils the request")
+    void shouldCompleteLongPollWhenAnotherReplicaFulfilsRequest() throws Exception {
+        // Arrange
+        UUID reservationId = UUID.randomUUID();
+        when(inventoryReservationService.reserveInventory(firstKey, request)).thenReturn(List.of(reservationId));
+        UUID ticketId = queue(firstKey, request, LocalDateTime.now().plusSeconds(30));
+        CompletableFuture<WaitlistTicketDTO> longPoll = reservationWaitlist.awaitTicket(ticketId, 30);
+        ReservationWaitlist otherReplica = replica();
+
+        try {
+            // Act
+            otherReplica.drain(List.of(productId));
+            reservationWaitlist.sweep();
+
+            // Assert
+            WaitlistTicketDTO result = longPoll.get(5, TimeUnit.SECONDS);
+            assertThat(result.status()).isEqualTo(WaitlistStatus.FULFILLED);
+            assertThat(result.reservationIds()).containsExactly(reservationId);
+        } finally {
+            otherReplica.shutdown();
+        }
+    }
+}